@@ -0,0 +1,147 @@
+// Load test comparing the platform-thread and virtual-thread modes of the API.
+//
+// Run both modes with `./run load`. Each user gets a budget with a few envelopes in `setup`,
+// then requests arrive at a constant rate, so that a slower mode shows up as latency rather
+// than as fewer requests sent. Most requests read the current budget and its envelopes, the
+// rest update an envelope, all of them blocking on JDBC.
+//
+// Environment: BASE_URL, MODE (names the result file), RATE (requests per second),
+// DURATION, USERS, ENVELOPES.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'local';
+const RATE = Number(__ENV.RATE || 500);
+const DURATION = __ENV.DURATION || '2m';
+const USERS = Number(__ENV.USERS || 50);
+const ENVELOPES = Number(__ENV.ENVELOPES || 5);
+const WRITE_RATIO = 0.2;
+
+export const options = {
+    setupTimeout: '5m',
+    scenarios: {
+        mixed: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function params(token) {
+    return {
+        headers: {
+            'Content-Type': 'application/json',
+            Authorization: `Bearer ${token}`,
+        },
+    };
+}
+
+function waitForApi() {
+    for (let attempt = 0; attempt < 120; attempt++) {
+        const response = http.get(`${BASE_URL}/actuator/health`);
+        if (response.status === 200) {
+            return;
+        }
+        sleep(1);
+    }
+    throw new Error(`API at ${BASE_URL} is not healthy`);
+}
+
+function createUser(index) {
+    const name = `load-${MODE}-${Date.now()}-${index}`;
+    const registered = http.post(`${BASE_URL}/api/auth/register`, JSON.stringify({
+        username: name,
+        email: `${name}@example.com`,
+        password: 'load-test-password',
+    }), params(''));
+    const token = registered.json('data.accessToken');
+
+    const budget = http.post(
+        `${BASE_URL}/api/budgets`,
+        JSON.stringify({ amount: 100000 }),
+        params(token),
+    );
+    const budgetId = budget.json('data.budgetId');
+
+    const budgetEnvelopeIds = [];
+    for (let envelope = 0; envelope < ENVELOPES; envelope++) {
+        const created = http.post(`${BASE_URL}/api/envelopes`, JSON.stringify({
+            name: `Envelope ${envelope}`,
+            amount: 100,
+            recurring: true,
+        }), params(token));
+        budgetEnvelopeIds.push(created.json('data.budgetEnvelopeId'));
+    }
+
+    return { token, budgetId, budgetEnvelopeIds };
+}
+
+export function setup() {
+    waitForApi();
+
+    const users = [];
+    for (let index = 0; index < USERS; index++) {
+        users.push(createUser(index));
+    }
+
+    return { users };
+}
+
+export default function (data) {
+    const user = data.users[Math.floor(Math.random() * data.users.length)];
+
+    if (Math.random() < WRITE_RATIO) {
+        const index = Math.floor(Math.random() * user.budgetEnvelopeIds.length);
+        const response = http.put(
+            `${BASE_URL}/api/envelopes/${user.budgetEnvelopeIds[index]}`,
+            JSON.stringify({
+                name: `Envelope ${index}`,
+                amount: 100 + Math.floor(Math.random() * 100),
+                recurring: true,
+            }),
+            Object.assign(params(user.token), { tags: { name: 'updateEnvelope' } }),
+        );
+        check(response, { 'envelope updated': (r) => r.status === 200 });
+        return;
+    }
+
+    const budget = http.get(
+        `${BASE_URL}/api/budgets/current`,
+        Object.assign(params(user.token), { tags: { name: 'getCurrentBudget' } }),
+    );
+    check(budget, { 'budget read': (r) => r.status === 200 });
+
+    const envelopes = http.get(
+        `${BASE_URL}/api/budgets/${user.budgetId}/envelopes?size=10`,
+        Object.assign(params(user.token), { tags: { name: 'getEnvelopes' } }),
+    );
+    check(envelopes, { 'envelopes read': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    const result = {
+        mode: MODE,
+        rate: RATE,
+        throughput: data.metrics.http_reqs.values.rate,
+        failedRatio: data.metrics.http_req_failed.values.rate,
+        p50: duration['p(50)'],
+        p95: duration['p(95)'],
+        p99: duration['p(99)'],
+        max: duration.max,
+    };
+    const line = `${MODE}: ${result.throughput.toFixed(1)} req/s, `
+        + `p99 ${result.p99.toFixed(1)} ms, p95 ${result.p95.toFixed(1)} ms, `
+        + `failed ${(result.failedRatio * 100).toFixed(2)}%\n`;
+
+    return {
+        stdout: line,
+        [`results/${MODE}.json`]: JSON.stringify(result, null, 2),
+    };
+}
@@ -4,7 +4,11 @@ import com.jonichi.peridot.common.constant.ErrorCode;
 import com.jonichi.peridot.common.dto.ApiResponse;
 import com.jonichi.peridot.common.dto.ErrorResponse;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
+import com.jonichi.peridot.common.exception.PeridotServiceUnavailableException;
+import com.jonichi.peridot.common.util.ConstraintErrorRegistry;
+import com.jonichi.peridot.common.util.ConstraintErrorRegistry.ConstraintError;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -12,6 +16,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -27,11 +32,19 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
  * <p>This class handles various types of exceptions thrown throughout the application
  * and provides appropriate HTTP responses to the client. It includes handlers for validation
  * errors, custom application exceptions, and general exceptions.</p>
+ *
+ * <p>The client errors, such as a missing resource or a duplicate, are expected outcomes that
+ * bots can trigger at a high rate. They are logged at DEBUG level only, since the access log
+ * already records every request with its status.</p>
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final ConstraintError UNKNOWN_CONSTRAINT_ERROR = new ConstraintError(
+            ErrorCode.NOT_ALLOWED,
+            "Request violates a data constraint"
+    );
 
     /**
      * Handles {@link MethodArgumentNotValidException} exceptions.
@@ -48,7 +61,7 @@ public class GlobalExceptionHandler {
     ) {
         Map<String, List<String>> errorMap = new HashMap<>();
         e.getBindingResult().getFieldErrors().forEach(error -> {
-            logger.error("Validation Error: {}", error.getDefaultMessage());
+            logger.debug("Validation Error: {}", error.getDefaultMessage());
             String field = error.getField();
             String errorMessage = error.getDefaultMessage();
 
@@ -80,7 +93,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Void>> handlePeridotDuplicateException(
             PeridotDuplicateException e
     ) {
-        logger.error("Duplicate Error: {}", e.getMessage());
+        logger.debug("Duplicate Error: {}", e.getMessage());
 
         HttpStatus status = HttpStatus.BAD_REQUEST;
 
@@ -98,9 +111,9 @@ public class GlobalExceptionHandler {
      * Handles {@link DataIntegrityViolationException} exceptions, typically caused by
      * database integrity constraints such as unique key violations.
      *
-     * <p>Extracts the duplicate field from the exception message and constructs a
-     * standardized API error response with a BAD_REQUEST status and a descriptive error
-     * message.</p>
+     * <p>The violated constraint is looked up in the {@link ConstraintErrorRegistry}, and the
+     * registered error is returned with a BAD_REQUEST status. A violation of a constraint that
+     * is not registered is returned as a generic BAD_REQUEST error.</p>
      *
      * @param e the {@code DataIntegrityViolationException} to handle
      * @return a {@link ResponseEntity} containing the error response and the HTTP status
@@ -109,18 +122,16 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Void>> handleDataIntegrityViolationException(
             DataIntegrityViolationException e
     ) {
-        logger.error("Data Integrity Error: {}", e.getMessage());
+        logger.debug("Data Integrity Error: {}", e.getMessage());
 
-        String message = e.getMessage();
-        String duplicateField = message.substring(
-                message.indexOf("(") + 1,
-                message.indexOf(")", message.indexOf("(") + 1));
+        ConstraintError constraintError = ConstraintErrorRegistry.find(e)
+                .orElse(UNKNOWN_CONSTRAINT_ERROR);
 
         HttpStatus status = HttpStatus.BAD_REQUEST;
         ApiResponse<Void> response = ErrorResponse.<Void>builder()
                 .code(status.value())
-                .message(duplicateField + " already exists")
-                .errorCode(ErrorCode.DUPLICATE)
+                .message(constraintError.message())
+                .errorCode(constraintError.errorCode())
                 .build();
 
         return ResponseEntity.status(status).body(response);
@@ -140,7 +151,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Void>> handleNoResourceFoundException(
             NoResourceFoundException e
     ) {
-        logger.error("No Resource Error: {}", e.getMessage());
+        logger.debug("No Resource Error: {}", e.getMessage());
 
         HttpStatus status = HttpStatus.NOT_FOUND;
 
@@ -167,7 +178,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Void>> handlePeridotNotFoundException(
             PeridotNotFoundException e
     ) {
-        logger.error("Peridot Not Found Error: {}", e.getMessage());
+        logger.debug("Peridot Not Found Error: {}", e.getMessage());
 
         HttpStatus status = HttpStatus.NOT_FOUND;
 
@@ -180,6 +191,33 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(status).body(response);
     }
 
+    /**
+     * Handles {@link PeridotNotAllowedException} and maps it to a 400 Bad Request response.
+     *
+     * <p>This method is used when a request parameter cannot be honoured, so that clients
+     * receive a structured error response with the {@link ErrorCode#NOT_ALLOWED} error
+     * code.</p>
+     *
+     * @param e the {@link PeridotNotAllowedException} thrown when a request is not allowed
+     * @return a {@link ResponseEntity} containing a structured error response
+     */
+    @ExceptionHandler(PeridotNotAllowedException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePeridotNotAllowedException(
+            PeridotNotAllowedException e
+    ) {
+        logger.debug("Peridot Not Allowed Error: {}", e.getMessage());
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        ApiResponse<Void> response = ErrorResponse.<Void>builder()
+                .code(status.value())
+                .message(e.getMessage())
+                .errorCode(ErrorCode.NOT_ALLOWED)
+                .build();
+
+        return ResponseEntity.status(status).body(response);
+    }
+
     /**
      * Handles {@link BadCredentialsException} thrown during authentication.
      *
@@ -232,6 +270,60 @@ public class GlobalExceptionHandler {
 
     }
 
+    /**
+     * Handles {@link PeridotServiceUnavailableException} and maps it to a 503 Service
+     * Unavailable response.
+     *
+     * <p>This method is used when a saturated resource rejects a request, so that clients
+     * receive a fast, structured error response and can retry later.</p>
+     *
+     * @param e the {@link PeridotServiceUnavailableException} thrown when a request is rejected
+     * @return a {@link ResponseEntity} containing a structured error response
+     */
+    @ExceptionHandler(PeridotServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePeridotServiceUnavailableException(
+            PeridotServiceUnavailableException e
+    ) {
+        logger.error("Service Unavailable Error: {}", e.getMessage());
+
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        ApiResponse<Void> response = ErrorResponse.<Void>builder()
+                .code(status.value())
+                .message(e.getMessage())
+                .errorCode(ErrorCode.SERVICE_UNAVAILABLE)
+                .build();
+
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Handles {@link OptimisticLockingFailureException} and maps it to a 409 Conflict response.
+     *
+     * <p>This method is used when a write kept conflicting with concurrent writes to the same
+     * resource after it was retried, so that clients receive a structured error response and
+     * can send the request again.</p>
+     *
+     * @param e the {@link OptimisticLockingFailureException} thrown when a write conflicts
+     * @return a {@link ResponseEntity} containing a structured error response
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Void>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException e
+    ) {
+        logger.error("Conflict Error: {}", e.getMessage());
+
+        HttpStatus status = HttpStatus.CONFLICT;
+
+        ApiResponse<Void> response = ErrorResponse.<Void>builder()
+                .code(status.value())
+                .message("Resource was modified concurrently")
+                .errorCode(ErrorCode.CONFLICT)
+                .build();
+
+        return ResponseEntity.status(status).body(response);
+    }
+
     /**
      * Handles all uncaught exceptions in the application.
      *
@@ -0,0 +1,142 @@
+package com.jonichi.peridot.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that sends the read-only transactions to a read replica.
+ *
+ * <p>It is only active when {@code datasource.replica.enabled} is true, and otherwise leaves the
+ * single {@code spring.datasource} pool to the auto-configuration. When active, it replaces
+ * that pool with a primary pool, configured by {@code spring.datasource} as before, and a
+ * replica pool configured by {@code datasource.replica}, behind a
+ * {@link ReplicaRoutingDataSource}. The replica pool is read-only and sized on its own, so that
+ * the reads can be scaled by adding replicas without growing the primary pool.</p>
+ *
+ * <p>It enables scheduling itself, since the {@link ReplicaLagMonitor} measures the lag in a
+ * scheduled task and every read falls back to the primary until the lag is measured.</p>
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Value("${datasource.replica.url}")
+    String replicaUrl;
+
+    @Value("${datasource.replica.username}")
+    String replicaUsername;
+
+    @Value("${datasource.replica.password}")
+    String replicaPassword;
+
+    @Value("${datasource.replica.max-lag:5s}")
+    Duration maxLag;
+
+    @Value("${datasource.replica.lag-check-interval:1s}")
+    Duration lagCheckInterval;
+
+    /**
+     * Creates the pool of the primary, configured like the single pool it replaces.
+     *
+     * @param properties the {@code spring.datasource} properties
+     * @return the pool of the primary
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+
+        return dataSource;
+    }
+
+    /**
+     * Creates the pool of the replica.
+     *
+     * @param properties the {@code spring.datasource} properties, for the driver
+     * @return the pool of the replica
+     */
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+
+        return dataSource;
+    }
+
+    /**
+     * Creates the monitor of the replica lag.
+     *
+     * @param replicaDataSource the pool of the replica
+     * @param meterRegistryProvider the provider of the registry the lag is published to
+     * @return the monitor of the replica lag
+     */
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        return new ReplicaLagMonitor(
+                new JdbcTemplate(replicaDataSource),
+                maxLag,
+                lagCheckInterval,
+                meterRegistryProvider.getIfAvailable()
+        );
+    }
+
+    /**
+     * Creates the data source used by the application, which takes its connections from the
+     * primary or the replica once the transaction is known to be read-only or not.
+     *
+     * @param primaryDataSource the pool of the primary
+     * @param replicaDataSource the pool of the replica
+     * @param replicaLagMonitor the monitor deciding whether a read may use the replica
+     * @return the routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor
+    ) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(new ReplicaRoutingDataSource(
+                primaryDataSource,
+                replicaDataSource,
+                replicaLagMonitor
+        ));
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+
+        return dataSource;
+    }
+}
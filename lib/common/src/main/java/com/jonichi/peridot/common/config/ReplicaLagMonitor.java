@@ -0,0 +1,161 @@
+package com.jonichi.peridot.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Decides whether a read may be served by the replica, from the replication lag of the replica
+ * and from the recent writes of the user.
+ *
+ * <p>The lag is measured every {@code datasource.replica.lag-check-interval} on the replica
+ * itself. Until it has been measured, when it cannot be measured, or when it exceeds
+ * {@code datasource.replica.max-lag}, every read falls back to the primary.</p>
+ *
+ * <p>Otherwise a read is served by the replica unless its user committed a write more
+ * recently than the lag, plus the check interval since the lag may have grown since it was
+ * measured. The user then reads their own writes from the primary until the replica has
+ * replayed them. Reads without an authenticated user, such as the authentication itself and
+ * the scheduled jobs, are always served by the primary.</p>
+ *
+ * <p>The recent writes are kept in the memory of this instance, so a user only reads their
+ * own writes if their reads are handled by the instance that handled the writes. This holds
+ * for a single instance, or behind a load balancer with sticky sessions per user. Otherwise
+ * the writes must be recorded in a store shared by the instances, or every read of a user who
+ * wrote within the maximum lag must go to the primary.</p>
+ *
+ * <p>The lag is published as the {@code datasource.replica.lag} gauge, and the routed reads are
+ * counted in {@code datasource.replica.reads} by {@code target}.</p>
+ */
+public class ReplicaLagMonitor {
+
+    static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+    static final String READS_COUNTER_NAME = "datasource.replica.reads";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNKNOWN_LAG = -1;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagNanos;
+    private final long checkIntervalNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    private volatile long lagNanos = UNKNOWN_LAG;
+
+    /**
+     * Creates a monitor of the replica lag.
+     *
+     * @param replicaJdbcTemplate the template running the lag query on the replica
+     * @param maxLag the lag above which every read falls back to the primary
+     * @param checkInterval the interval between two measures of the lag
+     * @param meterRegistry the registry the lag and routed reads are published to, or
+     *     {@code null} if they are not published
+     */
+    public ReplicaLagMonitor(
+            JdbcTemplate replicaJdbcTemplate,
+            Duration maxLag,
+            Duration checkInterval,
+            MeterRegistry meterRegistry
+    ) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLagNanos = maxLag.toNanos();
+        this.checkIntervalNanos = checkInterval.toNanos();
+
+        if (meterRegistry == null) {
+            replicaReads = null;
+            primaryReads = null;
+            return;
+        }
+
+        Gauge.builder("datasource.replica.lag", this, ReplicaLagMonitor::lagSeconds)
+                .description("Replication lag of the replica, or NaN when it is unknown")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        replicaReads = Counter.builder(READS_COUNTER_NAME)
+                .tag("target", "replica")
+                .register(meterRegistry);
+        primaryReads = Counter.builder(READS_COUNTER_NAME)
+                .tag("target", "primary")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Measures the replication lag of the replica, and forgets the writes that are too old to
+     * keep their users on the primary.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:1s}")
+    public void checkLag() {
+        try {
+            Double lagSeconds = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagNanos = lagSeconds == null ? 0 : (long) (lagSeconds * TimeUnit.SECONDS.toNanos(1));
+        } catch (DataAccessException e) {
+            if (lagNanos != UNKNOWN_LAG) {
+                logger.warn("Replica lag is unknown, reading from the primary: {}", e.getMessage());
+            }
+            lagNanos = UNKNOWN_LAG;
+        }
+
+        long expired = System.nanoTime() - maxLagNanos - checkIntervalNanos;
+        lastWrites.values().removeIf(lastWrite -> lastWrite - expired < 0);
+    }
+
+    /**
+     * Records that the given user committed a write.
+     *
+     * @param user the name of the user, or {@code null} if no user is authenticated
+     */
+    public void recordWrite(String user) {
+        if (user != null) {
+            lastWrites.put(user, System.nanoTime());
+        }
+    }
+
+    /**
+     * Decides whether a read of the given user may be served by the replica, and counts the
+     * read under the chosen target.
+     *
+     * @param user the name of the user, or {@code null} if no user is authenticated
+     * @return {@code true} if the read may be served by the replica
+     */
+    public boolean canReadFromReplica(String user) {
+        boolean replica = user != null && isReplicaReadable(user);
+
+        if (replicaReads != null) {
+            (replica ? replicaReads : primaryReads).increment();
+        }
+
+        return replica;
+    }
+
+    private boolean isReplicaReadable(String user) {
+        long lag = lagNanos;
+        if (lag == UNKNOWN_LAG || lag > maxLagNanos) {
+            return false;
+        }
+
+        Long lastWrite = lastWrites.get(user);
+        return lastWrite == null || System.nanoTime() - lastWrite > lag + checkIntervalNanos;
+    }
+
+    private double lagSeconds() {
+        long lag = lagNanos;
+        return lag == UNKNOWN_LAG ? Double.NaN : (double) lag / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.jonichi.peridot.common.config;
+
+import com.jonichi.peridot.common.util.listener.TransactionEventListener;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A {@link DataSource} that routes the connections of read-only transactions to the replica
+ * and every other connection to the primary.
+ *
+ * <p>The connection of a transaction started with {@code @Transactional(readOnly = true)}, or
+ * through the read-only variant of the {@code TransactionalHandler}, is taken from the replica
+ * when the {@link ReplicaLagMonitor} allows it for the authenticated user. Any other
+ * connection is taken from the primary. The commit of a read-write transaction is recorded as
+ * a write of the user, so that their following reads see it, while the statements run outside
+ * of a transaction are only reads and are not recorded.</p>
+ *
+ * <p>The route is decided when the connection is taken, so this data source must be wrapped in
+ * a {@code LazyConnectionDataSourceProxy}, which only takes it at the first statement, once
+ * the transaction has been marked read-only.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    /**
+     * Creates a data source routing between the given primary and replica.
+     *
+     * @param primary the data source of the primary
+     * @param replica the data source of the replica
+     * @param replicaLagMonitor the monitor deciding whether a read may use the replica
+     */
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            DataSource replica,
+            ReplicaLagMonitor replicaLagMonitor
+    ) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return replicaLagMonitor.canReadFromReplica(user) ? Target.REPLICA : Target.PRIMARY;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionEventListener.afterCommit(() -> replicaLagMonitor.recordWrite(user));
+        }
+
+        return Target.PRIMARY;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        return authentication.getName();
+    }
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+}
@@ -0,0 +1,124 @@
+package com.jonichi.peridot.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Audits the virtual threads for pinning while the application runs on virtual threads.
+ *
+ * <p>A virtual thread that blocks inside a {@code synchronized} block or a native frame cannot
+ * unmount from its carrier thread, so a blocking JDBC call made there holds one of the few
+ * carrier threads for the whole round trip. When {@code spring.threads.virtual.enabled} is
+ * true, the monitor streams the {@code jdk.VirtualThreadPinned} JFR events of the running JVM
+ * for the pins longer than {@code virtual-threads.pinning.threshold}.</p>
+ *
+ * <p>Every pin is recorded in the {@code jvm.threads.virtual.pinned} {@link Timer}. The first
+ * pin at a given location is logged at WARN level with its stack trace, so that the offending
+ * code can be fixed, and the following ones at that location are only counted.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+    static final String PINNED_TIMER_NAME = "jvm.threads.virtual.pinned";
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String APPLICATION_PACKAGE = "com.jonichi.peridot.";
+    private static final int LOGGED_FRAMES = 20;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean enabled;
+
+    @Value("${virtual-threads.pinning.threshold:20ms}")
+    Duration threshold;
+
+    private Timer pinnedTimer;
+    private RecordingStream recordingStream;
+
+    /**
+     * Starts streaming the pinning events when the application runs on virtual threads.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            pinnedTimer = Timer.builder(PINNED_TIMER_NAME)
+                    .description("Virtual threads blocked while pinned to their carrier thread")
+                    .register(meterRegistry);
+        }
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT_NAME).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT_NAME, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("Auditing virtual threads pinned for longer than {}", threshold);
+    }
+
+    /**
+     * Stops streaming the pinning events.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        if (pinnedTimer != null) {
+            pinnedTimer.record(event.getDuration());
+        }
+
+        List<RecordedFrame> frames = event.getStackTrace() == null
+                ? List.of()
+                : event.getStackTrace().getFrames();
+        String location = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName()
+                        .startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("unknown");
+
+        if (reportedLocations.add(location)) {
+            logger.warn(
+                    "Virtual thread pinned for {} ms at {}:\n\t{}",
+                    event.getDuration().toMillis(),
+                    location,
+                    frames.stream()
+                            .limit(LOGGED_FRAMES)
+                            .map(VirtualThreadPinningMonitor::format)
+                            .collect(Collectors.joining("\n\t"))
+            );
+        }
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
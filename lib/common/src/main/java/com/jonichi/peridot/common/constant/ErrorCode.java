@@ -14,5 +14,7 @@ public class ErrorCode {
     public static final String MISSING_REQUIRED = "ERR_004";
     public static final String UNAUTHORIZED = "ERR_005";
     public static final String NOT_ALLOWED = "ERR_006";
+    public static final String CONFLICT = "ERR_409";
     public static final String INTERNAL_SERVER_ERROR = "ERR_500";
+    public static final String SERVICE_UNAVAILABLE = "ERR_503";
 }
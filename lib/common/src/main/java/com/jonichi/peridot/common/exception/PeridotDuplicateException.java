@@ -6,7 +6,7 @@ package com.jonichi.peridot.common.exception;
  * <p>The {@code PeridotDuplicateException} is thrown when a conflict occurs due to
  * duplicate entities, such as when attempting to create a user or resource that already exists.</p>
  */
-public class PeridotDuplicateException extends RuntimeException {
+public class PeridotDuplicateException extends PeridotException {
 
     /**
      * Constructs a new {@code PeridotDuplicateException} with the specified detail message.
@@ -0,0 +1,23 @@
+package com.jonichi.peridot.common.exception;
+
+/**
+ * Base class of the exceptions the Peridot application throws on expected error paths.
+ *
+ * <p>These exceptions, such as a missing budget or a duplicate envelope, describe an outcome of
+ * the request rather than a fault in the application, and are all mapped to an error response
+ * by the {@code GlobalExceptionHandler}. They are thrown often, so they neither capture a stack
+ * trace nor record suppressed exceptions: filling in the stack trace is most of the cost of
+ * throwing an exception, and the trace of an expected error is never looked at.</p>
+ */
+public abstract class PeridotException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code PeridotException} with the specified detail message and no stack
+     * trace.
+     *
+     * @param message the detail message describing the reason for the exception
+     */
+    protected PeridotException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,20 @@
+package com.jonichi.peridot.common.exception;
+
+/**
+ * Custom exception to indicate that a request is not allowed as sent.
+ *
+ * <p>This exception is thrown when a request parameter is well-formed for the endpoint but
+ * cannot be honoured, such as a pagination cursor that was issued for a different sort. It
+ * extends {@link PeridotException} and provides a custom message to describe the error.</p>
+ */
+public class PeridotNotAllowedException extends PeridotException {
+
+    /**
+     * Constructs a new {@code PeridotNotAllowedException} with the specified detail message.
+     *
+     * @param message the detail message, which provides more information about the error
+     */
+    public PeridotNotAllowedException(String message) {
+        super(message);
+    }
+}
@@ -4,9 +4,9 @@ package com.jonichi.peridot.common.exception;
  * Custom exception to indicate that a resource was not found.
  *
  * <p>This exception is thrown when a requested resource could not be found. It extends
- * {@link RuntimeException} and provides a custom message to describe the error.</p>
+ * {@link PeridotException} and provides a custom message to describe the error.</p>
  */
-public class PeridotNotFoundException extends RuntimeException {
+public class PeridotNotFoundException extends PeridotException {
 
     /**
      * Constructs a new {@code PeridotNotFoundException} with the specified detail message.
@@ -0,0 +1,21 @@
+package com.jonichi.peridot.common.exception;
+
+/**
+ * Custom exception to indicate that a request cannot be served at the moment.
+ *
+ * <p>This exception is thrown when a bounded resource, such as the password hashing lane, is
+ * saturated and the request is rejected instead of being queued indefinitely. It extends
+ * {@link PeridotException} and provides a custom message to describe the error.</p>
+ */
+public class PeridotServiceUnavailableException extends PeridotException {
+
+    /**
+     * Constructs a new {@code PeridotServiceUnavailableException} with the specified detail
+     * message.
+     *
+     * @param message the detail message, which provides more information about the error
+     */
+    public PeridotServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,75 @@
+package com.jonichi.peridot.common.util;
+
+import com.jonichi.peridot.common.constant.ErrorCode;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.spi.ViolatedConstraintNameExtractor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Registry mapping the names of the database constraints to the error they signal.
+ *
+ * <p>A {@link DataIntegrityViolationException} is resolved by the name of the violated
+ * constraint, which Hibernate already extracts for the statements it runs and which is
+ * extracted with the PostgreSQL constraint name extractor of Hibernate for the statements run
+ * through JDBC. The error message is then looked up instead of being cut out of the driver
+ * message. Every unique constraint of the schema must be registered here when it is added.</p>
+ */
+public final class ConstraintErrorRegistry {
+
+    private static final ViolatedConstraintNameExtractor CONSTRAINT_NAME_EXTRACTOR =
+            new PostgreSQLDialect().getViolatedConstraintNameExtractor();
+
+    private static final Map<String, ConstraintError> CONSTRAINT_ERRORS = Map.of(
+            "reference_code_unique",
+            new ConstraintError(ErrorCode.DUPLICATE, "Reference code already exists"),
+            "user_username_unique",
+            new ConstraintError(ErrorCode.DUPLICATE, "Username already exists"),
+            "user_email_unique",
+            new ConstraintError(ErrorCode.DUPLICATE, "Email already exists"),
+            "user_id_period_unique",
+            new ConstraintError(ErrorCode.DUPLICATE, "Budget already exists"),
+            "user_id_name_unique",
+            new ConstraintError(ErrorCode.DUPLICATE, "Envelope already exists")
+    );
+
+    private ConstraintErrorRegistry() {
+    }
+
+    /**
+     * Finds the error registered for the constraint violated by the given exception.
+     *
+     * @param e the exception thrown on a violated constraint
+     * @return the registered error, or an empty {@link Optional} if the violated constraint is
+     *     unknown or not registered
+     */
+    public static Optional<ConstraintError> find(DataIntegrityViolationException e) {
+        return Optional.ofNullable(constraintName(e)).map(CONSTRAINT_ERRORS::get);
+    }
+
+    private static String constraintName(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException constraintViolation) {
+                return constraintViolation.getConstraintName();
+            }
+
+            if (cause instanceof SQLException sqlException) {
+                return CONSTRAINT_NAME_EXTRACTOR.extractConstraintName(sqlException);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The error signalled by a violated constraint.
+     *
+     * @param errorCode the error code of the response
+     * @param message the message of the response
+     */
+    public record ConstraintError(String errorCode, String message) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.jonichi.peridot.common.util;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Utility class for the ids of entities inserted with native SQL.
+ *
+ * <p>The id sequences are incremented by the allocation size of the entity id generators, and
+ * each {@code nextval} hands a whole pool of ids to the generator that called it. A native
+ * insert calling {@code nextval} itself would therefore consume a pool for a single id, so
+ * native inserts take their ids from the same generator as the entity instead.</p>
+ */
+public interface EntityIdUtil {
+
+    /**
+     * Takes the next id of an entity from the id generator of the entity.
+     *
+     * <p>The id is usually taken from the pool of the generator without a round trip to the
+     * database. It must be called inside a transaction, which the generator uses to fetch the
+     * next pool from the sequence.</p>
+     *
+     * @param entityManager the entity manager of the current transaction
+     * @param entityClass the class of the entity to insert
+     * @return the next id of the entity
+     */
+    static Integer nextId(EntityManager entityManager, Class<?> entityClass) {
+        SharedSessionContractImplementor session =
+                entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass)
+                .getGenerator();
+
+        return (Integer) generator.generate(session, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.jonichi.peridot.common.util;
+
+/**
+ * Utility class for entity tags of conditional requests.
+ */
+public interface EntityTagUtil {
+
+    /**
+     * Creates a strong entity tag from the id and version of a resource.
+     *
+     * <p>The version must change whenever the representation of the resource changes, so that
+     * equal entity tags always mean equal representations.</p>
+     *
+     * @param id the id of the resource
+     * @param version the version of the resource
+     * @return the quoted entity tag
+     */
+    static String fromVersion(Integer id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+}
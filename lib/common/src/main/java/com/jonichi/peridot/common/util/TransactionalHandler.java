@@ -2,6 +2,7 @@ package com.jonichi.peridot.common.util;
 
 import com.jonichi.peridot.common.util.listener.TransactionEventListener;
 import java.util.function.Supplier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Propagation;
 
 /**
@@ -10,6 +11,10 @@ import org.springframework.transaction.annotation.Propagation;
  * <p>The {@code TransactionalHandler} class provides functionality to run operations within
  * a transactional boundary. It ensures that the provided runnable is executed in a Spring-managed
  * transaction with the appropriate propagation behavior.</p>
+ *
+ * <p>Every method takes the name of the operation run in the transaction, such as
+ * {@code "createEnvelope"}. The transactions are recorded by the {@link TransactionEventListener}
+ * under that name, so it must be a constant rather than a value derived from the request.</p>
  */
 public interface TransactionalHandler {
 
@@ -20,9 +25,44 @@ public interface TransactionalHandler {
      * The transaction is started with {@code REQUIRED} propagation, meaning it will join an
      * existing transaction if one exists, or create a new transaction if none exists.</p>
      *
+     * @param operation the name of the operation run in the transaction
      * @param runnable the operation to run within the transaction context
      */
-    void runInTransaction(Runnable runnable);
+    void runInTransaction(String operation, Runnable runnable);
+
+    /**
+     * Runs the provided {@code Runnable} in a read-only transaction.
+     *
+     * <p>This method is meant for long reads, such as consuming a {@code Stream} from a
+     * repository, which needs an open transaction for the database to fetch its rows in
+     * batches. The persistence context is never flushed, so nothing it holds is written. The
+     * transaction is started with {@code REQUIRED} propagation, like
+     * {@link #runInTransaction(String, Runnable)}.</p>
+     *
+     * <p>When a read replica is configured, a new read-only transaction reads from it, unless
+     * the user has just written, see {@code ReplicaRoutingDataSource}.</p>
+     *
+     * @param operation the name of the operation run in the transaction
+     * @param runnable the operation to run within the read-only transaction context
+     */
+    void runInReadOnlyTransaction(String operation, Runnable runnable);
+
+    /**
+     * Executes the provided {@link Supplier} within a read-only transaction and returns its
+     * result.
+     *
+     * <p>This method is meant for the reads answering a request, such as a page of entities,
+     * so that they can be served by the read replica when one is configured, like
+     * {@link #runInReadOnlyTransaction(String, Runnable)}. The transaction is started with
+     * {@code REQUIRED} propagation, so a call made inside an existing transaction joins it and
+     * reads from wherever that transaction reads.</p>
+     *
+     * @param <T> the type of the result returned by the supplier
+     * @param operation the name of the operation run in the transaction
+     * @param supplier the {@link Supplier} to execute within the read-only transaction
+     * @return the result of the {@link Supplier#get()} method
+     */
+    <T> T runInReadOnlyTransactionSupplier(String operation, Supplier<T> supplier);
 
     /**
      * Executes the provided {@link Supplier} within a transactional context.
@@ -30,7 +70,7 @@ public interface TransactionalHandler {
      * <p>This method ensures that the code inside the {@link Supplier#get()} is executed within
      * a Spring-managed transaction. The method wraps the execution of the supplier and ensures
      * that transaction events are registered through
-     * {@link TransactionEventListener#registerTransactionEvents()}. The result of the
+     * {@link TransactionEventListener#registerTransactionEvents(String)}. The result of the
      * {@link Supplier#get()} is returned to the caller.</p>
      *
      * <p>The default propagation level is {@link Propagation#REQUIRED}, meaning that if a
@@ -38,9 +78,35 @@ public interface TransactionalHandler {
      * created.</p>
      *
      * @param <T> the type of the result returned by the supplier
+     * @param operation the name of the operation run in the transaction
+     * @param supplier the {@link Supplier} to execute within the transaction
+     * @return the result of the {@link Supplier#get()} method
+     */
+    <T> T runInTransactionSupplier(String operation, Supplier<T> supplier);
+
+    /**
+     * Executes the provided {@link Supplier} within a transaction, retrying it when the
+     * transaction fails on a conflicting concurrent write.
+     *
+     * <p>This method is meant for writes that read entities and write them back, relying on
+     * their versions to detect that another transaction wrote them in between. When that
+     * happens, the transaction is rolled back with an {@link OptimisticLockingFailureException}
+     * and the supplier is run again in a new transaction, after a short randomized backoff so
+     * that the conflicting writers do not collide again. The supplier is attempted a bounded
+     * number of times, after which the exception is rethrown. It must therefore be safe to run
+     * more than once.</p>
+     *
+     * <p>If a transaction already exists, the supplier joins it and is not retried, since the
+     * conflict rolls back the whole transaction and not only the supplier.</p>
+     *
+     * <p>Every attempt is recorded as a transaction of its own.</p>
+     *
+     * @param <T> the type of the result returned by the supplier
+     * @param operation the name of the operation run in the transaction
      * @param supplier the {@link Supplier} to execute within the transaction
      * @return the result of the {@link Supplier#get()} method
+     * @throws OptimisticLockingFailureException if every attempt conflicted with another write
      */
-    <T> T runInTransactionSupplier(Supplier<T> supplier);
+    <T> T runInTransactionWithRetry(String operation, Supplier<T> supplier);
 
 }
@@ -1,58 +1,165 @@
 package com.jonichi.peridot.common.util.listener;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
- * Listener that registers transaction events and logs transaction lifecycle details.
+ * Listener that records the transactions run through the {@code TransactionalHandler}.
  *
- * <p>This class is responsible for registering callbacks that log the various stages of a
- * transaction, including before commit, after commit, and after completion.
- * </p>
+ * <p>Every transaction is timed in two {@link Timer}s tagged by the operation name given by
+ * the caller and by the outcome of the transaction:</p>
+ * <ul>
+ *     <li>{@code transaction.duration}, from the moment the transaction is requested until it
+ *     has completed, including the wait for a connection;</li>
+ *     <li>{@code transaction.connection.hold}, from the moment the transaction has begun on its
+ *     connection until it has completed and released it.</li>
+ * </ul>
+ *
+ * <p>The counts of the timers per {@code outcome} are the commit and rollback counts, and the
+ * duration timer publishes a percentile histogram. Nothing is recorded when no
+ * {@link MeterRegistry} is available. A fraction {@code transaction.log.sample-rate} of the
+ * transactions is also logged at DEBUG level when that level is enabled.</p>
+ *
+ * <p>It also defers work that must only see committed data, such as recording the write of a
+ * user for the read replica routing, until the current transaction commits.</p>
  */
 @Component
+@RequiredArgsConstructor
 public class TransactionEventListener {
 
+    static final String DURATION_TIMER_NAME = "transaction.duration";
+    static final String CONNECTION_HOLD_TIMER_NAME = "transaction.connection.hold";
+    static final String OUTCOME_COMMITTED = "committed";
+    static final String OUTCOME_ROLLED_BACK = "rolled_back";
+    static final String OUTCOME_UNKNOWN = "unknown";
+
     private static final Logger logger = LoggerFactory.getLogger(TransactionEventListener.class);
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Value("${transaction.log.sample-rate:0.01}")
+    double logSampleRate;
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Looks up the {@link MeterRegistry} the transactions are recorded to.
+     */
+    @PostConstruct
+    public void init() {
+        meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * Registers a transaction synchronization callback that records how long the current
+     * transaction holds its connection.
+     *
+     * <p>This method is called as the first step inside the transaction, once its connection
+     * has been acquired. It does nothing if transaction synchronization is not active.</p>
+     *
+     * @param operation the name of the operation run in the transaction
+     */
+    public void registerTransactionEvents(String operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                record(
+                        CONNECTION_HOLD_TIMER_NAME,
+                        operation,
+                        outcomeOf(status),
+                        System.nanoTime() - start
+                );
+            }
+        });
+    }
+
+    /**
+     * Records the duration of a transaction from the moment it was requested.
+     *
+     * @param operation the name of the operation run in the transaction
+     * @param committed whether the transaction committed, rather than rolled back
+     * @param nanos the duration of the transaction in nanoseconds
+     */
+    public void recordTransaction(String operation, boolean committed, long nanos) {
+        String outcome = committed ? OUTCOME_COMMITTED : OUTCOME_ROLLED_BACK;
+        record(DURATION_TIMER_NAME, operation, outcome, nanos);
+
+        if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            logger.debug(
+                    "Transaction {} {} in {} ms",
+                    operation,
+                    outcome,
+                    TimeUnit.NANOSECONDS.toMillis(nanos)
+            );
+        }
+    }
+
+    private void record(String name, String operation, String outcome, long nanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        timers.computeIfAbsent(new TimerKey(name, operation, outcome), this::register)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.name())
+                .tag("operation", key.operation())
+                .tag("outcome", key.outcome())
+                .publishPercentileHistogram(DURATION_TIMER_NAME.equals(key.name()))
+                .register(meterRegistry);
+    }
+
+    private static String outcomeOf(int status) {
+        return switch (status) {
+            case TransactionSynchronization.STATUS_COMMITTED -> OUTCOME_COMMITTED;
+            case TransactionSynchronization.STATUS_ROLLED_BACK -> OUTCOME_ROLLED_BACK;
+            default -> OUTCOME_UNKNOWN;
+        };
+    }
 
     /**
-     * Registers a transaction synchronization callback to log events related to transaction
-     * lifecycle.
+     * Runs the given {@code Runnable} once the current transaction has committed.
      *
-     * <p>This method checks if transaction synchronization is active, and if so, it registers
-     * callbacks to log when a transaction is about to commit, has been committed, or has
-     * completed (whether it was successful or rolled back).
-     * </p>
+     * <p>If transaction synchronization is not active, the work that precedes this call has
+     * already been committed, so the {@code Runnable} is run right away. If the transaction
+     * rolls back, the {@code Runnable} is never run.</p>
+     *
+     * @param runnable the operation to run after the commit
      */
-    public static void registerTransactionEvents() {
-        logger.info("Transaction started...");
-
-        if (TransactionSynchronizationManager.isSynchronizationActive()) {
-            TransactionSynchronizationManager
-                    .registerSynchronization(new TransactionSynchronization() {
-
-                        @Override
-                        public void beforeCommit(boolean readOnly) {
-                            logger.info("Transaction is about to commit. Read-only: {}", readOnly);
-                        }
-
-                        @Override
-                        public void afterCommit() {
-                            logger.info("Transaction successfully committed.");
-                        }
-
-                        @Override
-                        public void afterCompletion(int status) {
-                            if (status == STATUS_COMMITTED) {
-                                logger.info("Transaction completed successfully.");
-                            } else if (status == STATUS_ROLLED_BACK) {
-                                logger.info("Transaction rolled back.");
-                            }
-                        }
-                    });
+    public static void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
         }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    private record TimerKey(String name, String operation, String outcome) {
     }
 }
@@ -1,10 +1,18 @@
 package com.jonichi.peridot.common.util.listener;
 
 import com.jonichi.peridot.common.util.TransactionalHandler;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class to handle running code within a transaction context.
@@ -12,22 +20,134 @@ import org.springframework.transaction.annotation.Transactional;
  * <p>The {@code TransactionalHandler} class provides functionality to run operations within
  * a transactional boundary. It ensures that the provided runnable is executed in a Spring-managed
  * transaction with the appropriate propagation behavior.</p>
+ *
+ * <p>Transactions are started with a {@link TransactionTemplate} rather than through
+ * {@link Transactional}, so that each transaction can be timed from the moment it is requested
+ * until it has completed, and so that each retried attempt gets its own transaction, which a
+ * call from this class to one of its own methods would not get through the transactional
+ * proxy. The template is only looked up when a transaction is started, so that contexts
+ * without a transaction manager can still create this class. A call made inside an existing
+ * transaction joins it and is not recorded separately.</p>
  */
 @Service
+@RequiredArgsConstructor
 public class TransactionalHandlerImpl implements TransactionalHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(TransactionalHandlerImpl.class);
+    private final ObjectProvider<TransactionTemplate> transactionTemplateProvider;
+    private final TransactionEventListener transactionEventListener;
+
+    @Value("${transaction.retry.max-attempts:3}")
+    int transactionRetryMaxAttempts;
+
+    @Value("${transaction.retry.backoff-millis:20}")
+    long transactionRetryBackoffMillis;
+
+    @Override
+    public void runInTransaction(String operation, Runnable runnable) {
+        execute(operation, transactionTemplateProvider.getObject(), () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void runInReadOnlyTransaction(String operation, Runnable runnable) {
+        execute(operation, readOnlyTemplate(), () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T runInReadOnlyTransactionSupplier(String operation, Supplier<T> supplier) {
+        return execute(operation, readOnlyTemplate(), supplier);
+    }
+
     @Override
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void runInTransaction(Runnable runnable) {
-        TransactionEventListener.registerTransactionEvents();
-        runnable.run();
+    public <T> T runInTransactionSupplier(String operation, Supplier<T> supplier) {
+        return execute(operation, transactionTemplateProvider.getObject(), supplier);
     }
 
     @Override
-    @Transactional(propagation = Propagation.REQUIRED)
-    public <T> T runInTransactionSupplier(Supplier<T> supplier) {
-        TransactionEventListener.registerTransactionEvents();
-        return supplier.get();
+    public <T> T runInTransactionWithRetry(String operation, Supplier<T> supplier) {
+        TransactionTemplate transactionTemplate = transactionTemplateProvider.getObject();
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return execute(operation, transactionTemplate, supplier);
+            } catch (OptimisticLockingFailureException e) {
+                if (joined || attempt >= transactionRetryMaxAttempts) {
+                    logger.error("Transaction {} conflicted after {} attempts", operation, attempt);
+                    throw e;
+                }
+
+                logger.warn(
+                        "Transaction {} conflicted on attempt {}: {}",
+                        operation,
+                        attempt,
+                        e.getMessage()
+                );
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Creates a template starting read-only transactions with the transaction manager of the
+     * default template.
+     */
+    private TransactionTemplate readOnlyTemplate() {
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(
+                transactionTemplateProvider.getObject().getTransactionManager()
+        );
+        readOnlyTemplate.setReadOnly(true);
+
+        return readOnlyTemplate;
+    }
+
+    /**
+     * Runs the supplier in a transaction started by the given template and records it, or in
+     * the existing transaction if there is one.
+     */
+    private <T> T execute(String operation, TransactionTemplate template, Supplier<T> supplier) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return supplier.get();
+        }
+
+        long start = System.nanoTime();
+        boolean committed = false;
+
+        try {
+            T result = template.execute(status -> {
+                transactionEventListener.registerTransactionEvents(operation);
+                return supplier.get();
+            });
+            committed = true;
+            return result;
+        } finally {
+            transactionEventListener.recordTransaction(
+                    operation,
+                    committed,
+                    System.nanoTime() - start
+            );
+        }
+    }
+
+    /**
+     * Waits before the next attempt, for a random time between half and all of a delay that
+     * doubles with every attempt, so that the conflicting writers retry at different times.
+     */
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        long delay = transactionRetryBackoffMillis << (attempt - 1);
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
     }
 
 }
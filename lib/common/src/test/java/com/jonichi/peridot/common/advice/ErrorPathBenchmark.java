@@ -0,0 +1,140 @@
+package com.jonichi.peridot.common.advice;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.jonichi.peridot.common.constant.ErrorCode;
+import com.jonichi.peridot.common.dto.ApiResponse;
+import com.jonichi.peridot.common.dto.ErrorResponse;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
+import com.jonichi.peridot.common.exception.PeridotNotFoundException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Compares the cost of the 404 and 400 error paths, from the throw to the error response.
+ *
+ * <p>The exception is thrown {@code depth} frames below the catch, to stand for the controller,
+ * service and proxy frames of a request. The {@code legacy} benchmarks reproduce the previous
+ * behavior: the exceptions captured a stack trace, and duplicates were answered by cutting the
+ * field name out of the driver message. The other benchmarks throw the stackless
+ * {@link PeridotNotFoundException} and {@link PeridotNotAllowedException}, and resolve
+ * duplicates through the {@code ConstraintErrorRegistry}. The handler logs at the production
+ * level, where the client errors are not logged.</p>
+ *
+ * <p>Run with {@code ./run bench lib/common}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    @Param({"16", "64"})
+    int depth;
+
+    private GlobalExceptionHandler globalExceptionHandler;
+    private DataIntegrityViolationException duplicateEnvelope;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.INFO);
+        globalExceptionHandler = new GlobalExceptionHandler();
+
+        String driverMessage = "ERROR: duplicate key value violates unique constraint "
+                + "\"user_id_name_unique\"\n"
+                + "  Detail: Key (user_id, name)=(1, Sample) already exists.";
+        duplicateEnvelope = new DuplicateKeyException(
+                "PreparedStatementCallback; " + driverMessage,
+                new SQLException(driverMessage, "23505")
+        );
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static <T> T throwAt(int depth, Supplier<RuntimeException> exception) {
+        if (depth == 0) {
+            throw exception.get();
+        }
+
+        return throwAt(depth - 1, exception);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> legacyNotFound() {
+        try {
+            return throwAt(depth, () -> new LegacyNotFoundException("Budget does not exist"));
+        } catch (LegacyNotFoundException e) {
+            HttpStatus status = HttpStatus.NOT_FOUND;
+
+            return ResponseEntity.status(status).body(ErrorResponse.<Void>builder()
+                    .code(status.value())
+                    .message(e.getMessage())
+                    .errorCode(ErrorCode.NOT_FOUND)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> notFound() {
+        try {
+            return throwAt(depth, () -> new PeridotNotFoundException("Budget does not exist"));
+        } catch (PeridotNotFoundException e) {
+            return globalExceptionHandler.handlePeridotNotFoundException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> notAllowed() {
+        try {
+            return throwAt(depth, () -> new PeridotNotAllowedException("Invalid sortBy"));
+        } catch (PeridotNotAllowedException e) {
+            return globalExceptionHandler.handlePeridotNotAllowedException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> legacyDuplicate() {
+        String message = duplicateEnvelope.getMessage();
+        String duplicateField = message.substring(
+                message.indexOf("(") + 1,
+                message.indexOf(")", message.indexOf("(") + 1));
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        return ResponseEntity.status(status).body(ErrorResponse.<Void>builder()
+                .code(status.value())
+                .message(duplicateField + " already exists")
+                .errorCode(ErrorCode.DUPLICATE)
+                .build());
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> duplicate() {
+        return globalExceptionHandler.handleDataIntegrityViolationException(duplicateEnvelope);
+    }
+
+    private static final class LegacyNotFoundException extends RuntimeException {
+
+        private LegacyNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.jonichi.peridot.common.advice;
 import com.jonichi.peridot.common.constant.ErrorCode;
 import com.jonichi.peridot.common.dto.ApiResponse;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
+import com.jonichi.peridot.common.exception.PeridotServiceUnavailableException;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -12,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import static org.mockito.Mockito.when;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -104,8 +109,13 @@ public class GlobalExceptionHandlerTest {
     @Test
     public void handleDataIntegrityViolationException_shouldReturnBadRequestError() throws Exception {
         // given
-        DataIntegrityViolationException exception = new DataIntegrityViolationException(
-                "Detail: Key (email)=(test@mail.com) already exists."
+        DataIntegrityViolationException exception = new DuplicateKeyException(
+                "Duplicate key",
+                new SQLException(
+                        "ERROR: duplicate key value violates unique constraint "
+                                + "\"user_email_unique\"",
+                        "23505"
+                )
         );
 
         // when
@@ -115,11 +125,29 @@ public class GlobalExceptionHandlerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(Objects.requireNonNull(response.getBody()).getCode()).isEqualTo(400);
         assertThat(response.getBody().isSuccess()).isFalse();
-        assertThat(response.getBody().getMessage()).isEqualTo("email already exists");
+        assertThat(response.getBody().getMessage()).isEqualTo("Email already exists");
         assertThat(response.getBody().getErrorCode()).isEqualTo(ErrorCode.DUPLICATE);
         assertThat(response.getBody().getTimestamp()).isNotNull();
     }
 
+    @Test
+    public void handleDataIntegrityViolationException_withUnknownConstraint_shouldReturnBadRequestError()
+            throws Exception {
+        // given
+        DataIntegrityViolationException exception = new DataIntegrityViolationException(
+                "Detail: Key (email)=(test@mail.com) already exists."
+        );
+
+        // when
+        ResponseEntity<ApiResponse<Void>> response = globalExceptionHandler.handleDataIntegrityViolationException(exception);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(Objects.requireNonNull(response.getBody()).getCode()).isEqualTo(400);
+        assertThat(response.getBody().getMessage()).isEqualTo("Request violates a data constraint");
+        assertThat(response.getBody().getErrorCode()).isEqualTo(ErrorCode.NOT_ALLOWED);
+    }
+
 
     @Test
     public void handleNoResourceFoundException_shouldReturn404NotFoundError() throws Exception {
@@ -173,6 +201,64 @@ public class GlobalExceptionHandlerTest {
     }
 
 
+    @Test
+    public void handlePeridotServiceUnavailableException_shouldReturn503Error() throws Exception {
+        // given
+        PeridotServiceUnavailableException exception =
+                new PeridotServiceUnavailableException("Service is busy");
+
+        // when
+        ResponseEntity<ApiResponse<Void>> response = globalExceptionHandler
+                .handlePeridotServiceUnavailableException(exception);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(Objects.requireNonNull(response.getBody()).getCode()).isEqualTo(503);
+        assertThat(response.getBody().isSuccess()).isFalse();
+        assertThat(response.getBody().getMessage()).isEqualTo("Service is busy");
+        assertThat(response.getBody().getErrorCode()).isEqualTo(ErrorCode.SERVICE_UNAVAILABLE);
+        assertThat(response.getBody().getTimestamp()).isNotNull();
+    }
+
+    @Test
+    public void handleOptimisticLockingFailureException_shouldReturn409Error() throws Exception {
+        // given
+        OptimisticLockingFailureException exception =
+                new OptimisticLockingFailureException("Row was updated by another transaction");
+
+        // when
+        ResponseEntity<ApiResponse<Void>> response = globalExceptionHandler
+                .handleOptimisticLockingFailureException(exception);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(Objects.requireNonNull(response.getBody()).getCode()).isEqualTo(409);
+        assertThat(response.getBody().isSuccess()).isFalse();
+        assertThat(response.getBody().getMessage())
+                .isEqualTo("Resource was modified concurrently");
+        assertThat(response.getBody().getErrorCode()).isEqualTo(ErrorCode.CONFLICT);
+        assertThat(response.getBody().getTimestamp()).isNotNull();
+    }
+
+    @Test
+    public void handlePeridotNotAllowedException_shouldReturn400Error() throws Exception {
+        // given
+        PeridotNotAllowedException exception =
+                new PeridotNotAllowedException("Cursor is not valid");
+
+        // when
+        ResponseEntity<ApiResponse<Void>> response = globalExceptionHandler
+                .handlePeridotNotAllowedException(exception);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(Objects.requireNonNull(response.getBody()).getCode()).isEqualTo(400);
+        assertThat(response.getBody().isSuccess()).isFalse();
+        assertThat(response.getBody().getMessage()).isEqualTo("Cursor is not valid");
+        assertThat(response.getBody().getErrorCode()).isEqualTo(ErrorCode.NOT_ALLOWED);
+        assertThat(response.getBody().getTimestamp()).isNotNull();
+    }
+
     @Test
     public void handleAll_shouldReturn500InternalServerError() throws Exception {
         // given
@@ -0,0 +1,137 @@
+package com.jonichi.peridot.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ReplicaLagMonitorTest {
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private MeterRegistry meterRegistry;
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        replicaLagMonitor = new ReplicaLagMonitor(
+                replicaJdbcTemplate,
+                Duration.ofSeconds(5),
+                Duration.ofMillis(50),
+                meterRegistry
+        );
+    }
+
+    private void givenLag(double lagSeconds) {
+        when(replicaJdbcTemplate.queryForObject(ReplicaLagMonitor.LAG_QUERY, Double.class))
+                .thenReturn(lagSeconds);
+        replicaLagMonitor.checkLag();
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get(ReplicaLagMonitor.READS_COUNTER_NAME)
+                .tag("target", target)
+                .counter()
+                .count();
+    }
+
+    @Test
+    public void canReadFromReplica_beforeLagIsMeasured_shouldReadFromPrimary() throws Exception {
+        // given
+
+        // when
+        boolean replica = replicaLagMonitor.canReadFromReplica("user");
+
+        // then
+        assertThat(replica).isFalse();
+        assertThat(reads("primary")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void canReadFromReplica_withUserWithoutWrites_shouldReadFromReplica() throws Exception {
+        // given
+        givenLag(0.0);
+
+        // when
+        boolean replica = replicaLagMonitor.canReadFromReplica("user");
+
+        // then
+        assertThat(replica).isTrue();
+        assertThat(reads("replica")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void canReadFromReplica_withoutUser_shouldReadFromPrimary() throws Exception {
+        // given
+        givenLag(0.0);
+
+        // when
+        boolean replica = replicaLagMonitor.canReadFromReplica(null);
+
+        // then
+        assertThat(replica).isFalse();
+    }
+
+    @Test
+    public void canReadFromReplica_afterRecentWrite_shouldReadOwnWriteFromPrimary()
+            throws Exception {
+        // given
+        givenLag(0.0);
+        replicaLagMonitor.recordWrite("user");
+
+        // when
+        boolean ownRead = replicaLagMonitor.canReadFromReplica("user");
+        boolean otherRead = replicaLagMonitor.canReadFromReplica("other");
+        Thread.sleep(100);
+        boolean laterRead = replicaLagMonitor.canReadFromReplica("user");
+
+        // then
+        assertThat(ownRead).isFalse();
+        assertThat(otherRead).isTrue();
+        assertThat(laterRead).isTrue();
+    }
+
+    @Test
+    public void canReadFromReplica_withLagAboveMaximum_shouldReadFromPrimary() throws Exception {
+        // given
+        givenLag(30.0);
+
+        // when
+        boolean replica = replicaLagMonitor.canReadFromReplica("user");
+
+        // then
+        assertThat(replica).isFalse();
+        assertThat(meterRegistry.get("datasource.replica.lag").gauge().value()).isEqualTo(30.0);
+    }
+
+    @Test
+    public void canReadFromReplica_withUnreachableReplica_shouldReadFromPrimary()
+            throws Exception {
+        // given
+        givenLag(0.0);
+        when(replicaJdbcTemplate.queryForObject(ReplicaLagMonitor.LAG_QUERY, Double.class))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        replicaLagMonitor.checkLag();
+
+        // when
+        boolean replica = replicaLagMonitor.canReadFromReplica("user");
+
+        // then
+        assertThat(replica).isFalse();
+        assertThat(Double.isNaN(meterRegistry.get("datasource.replica.lag").gauge().value()))
+                .isTrue();
+    }
+}
@@ -0,0 +1,109 @@
+package com.jonichi.peridot.common.config;
+
+import java.util.List;
+import javax.sql.DataSource;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user", null, List.of())
+        );
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void determineCurrentLookupKey_withReadOnlyTransaction_shouldRouteToReplica()
+            throws Exception {
+        // given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaLagMonitor.canReadFromReplica("user")).thenReturn(true);
+
+        // when
+        Object target = replicaRoutingDataSource.determineCurrentLookupKey();
+
+        // then
+        assertThat(target).isEqualTo(ReplicaRoutingDataSource.Target.REPLICA);
+    }
+
+    @Test
+    public void determineCurrentLookupKey_withLaggingReplica_shouldRouteToPrimary()
+            throws Exception {
+        // given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaLagMonitor.canReadFromReplica("user")).thenReturn(false);
+
+        // when
+        Object target = replicaRoutingDataSource.determineCurrentLookupKey();
+
+        // then
+        assertThat(target).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+    }
+
+    @Test
+    public void determineCurrentLookupKey_withWriteTransaction_shouldRecordWriteOnCommit()
+            throws Exception {
+        // given
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // when
+        Object target = replicaRoutingDataSource.determineCurrentLookupKey();
+        verify(replicaLagMonitor, never()).recordWrite("user");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+
+        // then
+        assertThat(target).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        verify(replicaLagMonitor).recordWrite("user");
+    }
+
+    @Test
+    public void determineCurrentLookupKey_withoutTransaction_shouldNotRecordWrite()
+            throws Exception {
+        // given
+
+        // when
+        Object target = replicaRoutingDataSource.determineCurrentLookupKey();
+
+        // then
+        assertThat(target).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        assertThat(TransactionSynchronizationManager.getSynchronizations().isEmpty()).isTrue();
+        verify(replicaLagMonitor, never()).recordWrite("user");
+    }
+}
@@ -0,0 +1,81 @@
+package com.jonichi.peridot.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.context.ActiveProfiles;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class VirtualThreadPinningMonitorTest {
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MeterRegistry meterRegistry;
+    private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        virtualThreadPinningMonitor = new VirtualThreadPinningMonitor(meterRegistryProvider);
+        virtualThreadPinningMonitor.threshold = Duration.ofMillis(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        virtualThreadPinningMonitor.shutdown();
+    }
+
+    @Test
+    public void init_withSynchronizedBlockingCall_shouldRecordPinnedThread() throws Exception {
+        // given
+        virtualThreadPinningMonitor.enabled = true;
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        virtualThreadPinningMonitor.init();
+        Object lock = new Object();
+
+        // when
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // then
+        Timer pinnedTimer = meterRegistry.get(VirtualThreadPinningMonitor.PINNED_TIMER_NAME)
+                .timer();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (pinnedTimer.count() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(pinnedTimer.count()).isEqualTo(1L);
+    }
+
+    @Test
+    public void init_withPlatformThreads_shouldNotAudit() throws Exception {
+        // given
+        virtualThreadPinningMonitor.enabled = false;
+
+        // when
+        virtualThreadPinningMonitor.init();
+
+        // then
+        verifyNoInteractions(meterRegistryProvider);
+    }
+}
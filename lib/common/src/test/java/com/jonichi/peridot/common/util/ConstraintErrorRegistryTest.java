@@ -0,0 +1,75 @@
+package com.jonichi.peridot.common.util;
+
+import com.jonichi.peridot.common.constant.ErrorCode;
+import com.jonichi.peridot.common.util.ConstraintErrorRegistry.ConstraintError;
+import java.sql.SQLException;
+import java.util.Optional;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class ConstraintErrorRegistryTest {
+
+    @Test
+    public void find_withHibernateConstraintViolation_shouldReturnRegisteredError()
+            throws Exception {
+        // given
+        DataIntegrityViolationException exception = new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException(
+                        "could not execute statement",
+                        new SQLException("duplicate key", "23505"),
+                        "user_id_period_unique"
+                )
+        );
+
+        // when
+        Optional<ConstraintError> actual = ConstraintErrorRegistry.find(exception);
+
+        // then
+        assertThat(actual.orElseThrow()).isEqualTo(
+                new ConstraintError(ErrorCode.DUPLICATE, "Budget already exists")
+        );
+    }
+
+    @Test
+    public void find_withJdbcUniqueViolation_shouldReturnRegisteredError() throws Exception {
+        // given
+        DataIntegrityViolationException exception = new DataIntegrityViolationException(
+                "Duplicate key",
+                new SQLException(
+                        "ERROR: duplicate key value violates unique constraint "
+                                + "\"user_id_name_unique\"",
+                        "23505"
+                )
+        );
+
+        // when
+        Optional<ConstraintError> actual = ConstraintErrorRegistry.find(exception);
+
+        // then
+        assertThat(actual.orElseThrow().message()).isEqualTo("Envelope already exists");
+    }
+
+    @Test
+    public void find_withUnregisteredConstraint_shouldReturnEmpty() throws Exception {
+        // given
+        DataIntegrityViolationException exception = new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException(
+                        "could not execute statement",
+                        new SQLException("foreign key", "23503"),
+                        "fk_user_envelope"
+                )
+        );
+
+        // when
+        Optional<ConstraintError> actual = ConstraintErrorRegistry.find(exception);
+
+        // then
+        assertThat(actual.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,36 @@
+package com.jonichi.peridot.common.util;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class EntityTagUtilTest {
+
+    @Test
+    public void fromVersion_shouldReturnQuotedIdAndVersion() throws Exception {
+        // given
+        Integer id = 10;
+        Long version = 3L;
+
+        // when
+        String actual = EntityTagUtil.fromVersion(id, version);
+
+        // then
+        assertThat(actual).isEqualTo("\"10-3\"");
+    }
+
+    @Test
+    public void fromVersion_withDifferentIds_shouldReturnDifferentTags() throws Exception {
+        // given
+        Long version = 0L;
+
+        // when
+        String first = EntityTagUtil.fromVersion(1, version);
+        String second = EntityTagUtil.fromVersion(2, version);
+
+        // then
+        assertThat(first).isNotEqualTo(second);
+    }
+
+}
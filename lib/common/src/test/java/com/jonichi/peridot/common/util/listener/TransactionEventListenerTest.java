@@ -0,0 +1,122 @@
+package com.jonichi.peridot.common.util.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class TransactionEventListenerTest {
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MeterRegistry meterRegistry;
+    private TransactionEventListener transactionEventListener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionEventListener = new TransactionEventListener(meterRegistryProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void afterCommit_withoutTransaction_shouldRunImmediately() throws Exception {
+        // given
+        AtomicInteger runs = new AtomicInteger();
+
+        // when
+        TransactionEventListener.afterCommit(runs::incrementAndGet);
+
+        // then
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void afterCommit_insideTransaction_shouldRunOnlyAfterCommit() throws Exception {
+        // given
+        AtomicInteger runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        TransactionEventListener.afterCommit(runs::incrementAndGet);
+        int runsBeforeCommit = runs.get();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+
+        // then
+        assertThat(runsBeforeCommit).isEqualTo(0);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void afterCommit_withRollback_shouldNotRun() throws Exception {
+        // given
+        AtomicInteger runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        TransactionEventListener.afterCommit(runs::incrementAndGet);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(
+                        TransactionSynchronization.STATUS_ROLLED_BACK
+                ));
+
+        // then
+        assertThat(runs.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void registerTransactionEvents_withCompletion_shouldRecordConnectionHold()
+            throws Exception {
+        // given
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        transactionEventListener.init();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        transactionEventListener.registerTransactionEvents("createEnvelope");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(
+                        TransactionSynchronization.STATUS_ROLLED_BACK
+                ));
+
+        // then
+        assertThat(meterRegistry.timer(
+                TransactionEventListener.CONNECTION_HOLD_TIMER_NAME,
+                "operation", "createEnvelope",
+                "outcome", "rolled_back"
+        ).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void recordTransaction_withoutMeterRegistry_shouldNotRecord() throws Exception {
+        // given
+        transactionEventListener.init();
+
+        // when
+        transactionEventListener.recordTransaction("createEnvelope", true, 1_000_000);
+
+        // then
+        assertThat(meterRegistry.getMeters().isEmpty()).isTrue();
+    }
+}
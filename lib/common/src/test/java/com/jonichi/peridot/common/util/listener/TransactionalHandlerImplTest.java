@@ -0,0 +1,196 @@
+package com.jonichi.peridot.common.util.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class TransactionalHandlerImplTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ObjectProvider<TransactionTemplate> transactionTemplateProvider;
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MeterRegistry meterRegistry;
+    private TransactionalHandlerImpl transactionalHandlerImpl;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        TransactionEventListener transactionEventListener =
+                new TransactionEventListener(meterRegistryProvider);
+        transactionEventListener.init();
+
+        transactionalHandlerImpl = new TransactionalHandlerImpl(
+                transactionTemplateProvider,
+                transactionEventListener
+        );
+        transactionalHandlerImpl.transactionRetryMaxAttempts = 3;
+        transactionalHandlerImpl.transactionRetryBackoffMillis = 1;
+        when(transactionTemplateProvider.getObject())
+                .thenReturn(new TransactionTemplate(transactionManager));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    private Supplier<String> conflictingSupplier(int conflicts, AtomicInteger attempts) {
+        return () -> {
+            if (attempts.incrementAndGet() <= conflicts) {
+                throw new OptimisticLockingFailureException("Row was updated");
+            }
+
+            return "saved";
+        };
+    }
+
+    private long transactionCount(String operation, String outcome) {
+        return meterRegistry.timer(
+                TransactionEventListener.DURATION_TIMER_NAME,
+                "operation", operation,
+                "outcome", outcome
+        ).count();
+    }
+
+    @Test
+    public void runInTransactionSupplier_withCommit_shouldRecordCommittedTransaction()
+            throws Exception {
+        // given
+        Supplier<String> supplier = () -> "saved";
+
+        // when
+        String result = transactionalHandlerImpl.runInTransactionSupplier(
+                "createEnvelope",
+                supplier
+        );
+
+        // then
+        assertThat(result).isEqualTo("saved");
+        assertThat(transactionCount("createEnvelope", "committed")).isEqualTo(1);
+        assertThat(transactionCount("createEnvelope", "rolled_back")).isEqualTo(0);
+    }
+
+    @Test
+    public void runInTransactionSupplier_withException_shouldRecordRolledBackTransaction()
+            throws Exception {
+        // given
+        Supplier<String> supplier = () -> {
+            throw new IllegalStateException("Invalid envelope");
+        };
+
+        // when
+        assertThatThrownBy(() -> transactionalHandlerImpl.runInTransactionSupplier(
+                "createEnvelope",
+                supplier
+        )).isInstanceOf(IllegalStateException.class);
+
+        // then
+        assertThat(transactionCount("createEnvelope", "rolled_back")).isEqualTo(1);
+        assertThat(transactionCount("createEnvelope", "committed")).isEqualTo(0);
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void runInReadOnlyTransactionSupplier_shouldRunInReadOnlyTransaction()
+            throws Exception {
+        // given
+        Supplier<String> supplier = () -> "read";
+
+        // when
+        String result = transactionalHandlerImpl.runInReadOnlyTransactionSupplier(
+                "getEnvelopes",
+                supplier
+        );
+
+        // then
+        assertThat(result).isEqualTo("read");
+        assertThat(transactionCount("getEnvelopes", "committed")).isEqualTo(1);
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    public void runInTransactionWithRetry_withConflicts_shouldRetryInNewTransactions()
+            throws Exception {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String result = transactionalHandlerImpl.runInTransactionWithRetry(
+                "saveEnvelopes",
+                conflictingSupplier(2, attempts)
+        );
+
+        // then
+        assertThat(result).isEqualTo("saved");
+        assertThat(attempts.get()).isEqualTo(3);
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(transactionCount("saveEnvelopes", "rolled_back")).isEqualTo(2);
+        assertThat(transactionCount("saveEnvelopes", "committed")).isEqualTo(1);
+    }
+
+    @Test
+    public void runInTransactionWithRetry_withConflictOnEveryAttempt_shouldThrowConflict()
+            throws Exception {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Supplier<String> supplier = conflictingSupplier(Integer.MAX_VALUE, attempts);
+
+        // then
+        assertThatThrownBy(() -> transactionalHandlerImpl.runInTransactionWithRetry(
+                "saveEnvelopes",
+                supplier
+        ))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessage("Row was updated");
+        assertThat(attempts.get()).isEqualTo(3);
+        verify(transactionManager, times(3)).rollback(any());
+    }
+
+    @Test
+    public void runInTransactionWithRetry_withOtherException_shouldNotRetry() throws Exception {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Supplier<String> supplier = () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Invalid envelope");
+        };
+
+        // then
+        assertThatThrownBy(() -> transactionalHandlerImpl.runInTransactionWithRetry(
+                "saveEnvelopes",
+                supplier
+        ))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Invalid envelope");
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+}
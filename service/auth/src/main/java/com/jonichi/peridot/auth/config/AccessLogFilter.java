@@ -0,0 +1,158 @@
+package com.jonichi.peridot.auth.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * A filter that logs one structured event per request.
+ *
+ * <p>The event is written to the {@code com.jonichi.peridot.access} logger with the method,
+ * path, status, duration, user id and outcome of the request as key-value pairs, which the
+ * logging configuration encodes as a single JSON line through an asynchronous, bounded appender
+ * that never blocks the request thread.</p>
+ *
+ * <p>Successful and client error requests are sampled at {@code access-log.sample-rate}.
+ * Server errors, including exceptions that escape the filter chain, are never sampled away and
+ * are logged at ERROR level, which the asynchronous appender keeps when its queue fills up.</p>
+ *
+ * <p>The filter runs before the security filters, so that rejected requests are logged too.
+ * Since the security context is cleared before the filter sees the response, the user id is
+ * read from the {@link #USER_ID_ATTRIBUTE} request attribute set on authentication. The
+ * event of a request that continues asynchronously, such as a streamed response, is logged
+ * once that request completes.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    /**
+     * The request attribute holding the id of the authenticated user.
+     */
+    public static final String USER_ID_ATTRIBUTE = AccessLogFilter.class.getName() + ".userId";
+
+    static final String LOGGER_NAME = "com.jonichi.peridot.access";
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_CLIENT_ERROR = "client_error";
+    static final String OUTCOME_SERVER_ERROR = "server_error";
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    @Value("${access-log.sample-rate:0.1}")
+    double sampleRate;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AccessLogAsyncListener(start));
+            } else {
+                log(request, response, start, failed);
+            }
+        }
+    }
+
+    private void log(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            long start,
+            boolean failed
+    ) {
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        String outcome = outcomeOf(status);
+        boolean serverError = OUTCOME_SERVER_ERROR.equals(outcome);
+
+        if (!serverError && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        logger.atLevel(serverError ? Level.ERROR : Level.INFO)
+                .setMessage("{} {} {}")
+                .addArgument(request.getMethod())
+                .addArgument(request.getRequestURI())
+                .addArgument(status)
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("path", request.getRequestURI())
+                .addKeyValue("status", status)
+                .addKeyValue("duration_ms", elapsedMillis(start))
+                .addKeyValue("user_id", request.getAttribute(USER_ID_ATTRIBUTE))
+                .addKeyValue("outcome", outcome)
+                .log();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static String outcomeOf(int status) {
+        if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            return OUTCOME_SERVER_ERROR;
+        }
+
+        if (status >= HttpServletResponse.SC_BAD_REQUEST) {
+            return OUTCOME_CLIENT_ERROR;
+        }
+
+        return OUTCOME_SUCCESS;
+    }
+
+    /**
+     * Logs the event of an asynchronous request once it completes. The container also
+     * completes a request that timed out or failed, so only completion is handled.
+     */
+    private final class AccessLogAsyncListener implements AsyncListener {
+
+        private final long start;
+
+        private AccessLogAsyncListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(
+                    (HttpServletRequest) event.getSuppliedRequest(),
+                    (HttpServletResponse) event.getSuppliedResponse(),
+                    start,
+                    false
+            );
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.jonichi.peridot.auth.config;
 
+import com.jonichi.peridot.auth.model.User;
 import com.jonichi.peridot.auth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -26,7 +33,24 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor
 public class AuthConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthConfig.class);
     private final UserRepository userRepository;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${password-encoder.threads:2}")
+    int passwordEncoderThreads;
+
+    @Value("${password-encoder.queue-capacity:50}")
+    int passwordEncoderQueueCapacity;
+
+    @Value("${password-encoder.timeout-millis:5000}")
+    long passwordEncoderTimeoutMillis;
+
+    @Value("${password-encoder.strength:0}")
+    int passwordEncoderStrength;
+
+    @Value("${password-encoder.target-millis:100}")
+    long passwordEncoderTargetMillis;
 
     /**
      * Provides a {@link UserDetailsService} bean to fetch user details by username.
@@ -43,17 +67,59 @@ public class AuthConfig {
                 .orElseThrow(() -> new UsernameNotFoundException("Invalid username or password"));
     }
 
+    /**
+     * Provides a {@link UserDetailsPasswordService} bean to store upgraded password hashes.
+     *
+     * <p>After a successful login, the {@link DaoAuthenticationProvider} uses this service to
+     * replace a stored hash whose strength is lower than the configured one with a hash of the
+     * presented password.</p>
+     *
+     * @return a {@link UserDetailsPasswordService} implementation
+     */
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            userRepository.updatePassword(user.getUsername(), newPassword);
+
+            if (user instanceof User peridotUser) {
+                peridotUser.setPassword(newPassword);
+            }
+
+            return user;
+        };
+    }
+
     /**
      * Provides a {@link PasswordEncoder} bean for securely encoding passwords.
      *
-     * <p>This bean uses the {@link BCryptPasswordEncoder}, which implements
-     * the bcrypt hashing algorithm, to encode and verify user passwords.</p>
+     * <p>This bean uses a {@link CalibratedBCryptPasswordEncoder}, which implements the bcrypt
+     * hashing algorithm with a strength that is either configured through
+     * {@code password-encoder.strength} or calibrated at startup to take about
+     * {@code password-encoder.target-millis} per hash. The hashing runs on the bounded lane of
+     * a {@link BoundedPasswordEncoder}, so that login bursts cannot occupy the request
+     * threads.</p>
      *
      * @return a {@link PasswordEncoder} implementation
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        CalibratedBCryptPasswordEncoder bcryptPasswordEncoder = passwordEncoderStrength > 0
+                ? new CalibratedBCryptPasswordEncoder(passwordEncoderStrength)
+                : CalibratedBCryptPasswordEncoder.calibrate(passwordEncoderTargetMillis);
+
+        logger.info(
+                "Using BCrypt strength {} (target {} ms)",
+                bcryptPasswordEncoder.getStrength(),
+                passwordEncoderTargetMillis
+        );
+
+        return new BoundedPasswordEncoder(
+                bcryptPasswordEncoder,
+                passwordEncoderThreads,
+                passwordEncoderQueueCapacity,
+                passwordEncoderTimeoutMillis,
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new)
+        );
     }
 
     /**
@@ -61,7 +127,8 @@ public class AuthConfig {
      *
      * <p>This method configures a {@link DaoAuthenticationProvider}, which uses
      * the {@link UserDetailsService} to fetch user details and the {@link PasswordEncoder}
-     * to validate credentials.</p>
+     * to validate credentials. Stored hashes that need an upgrade are rehashed on login
+     * through the {@link UserDetailsPasswordService}.</p>
      *
      * @return an {@link AuthenticationProvider} implementation
      */
@@ -70,6 +137,7 @@ public class AuthConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 
@@ -0,0 +1,129 @@
+package com.jonichi.peridot.auth.config;
+
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * A {@link BCryptPasswordEncoder} whose work factor is calibrated for the current CPU.
+ *
+ * <p>The strength is either configured explicitly or derived at startup from a short probe,
+ * so that a single hash takes roughly the configured target time on the node. Since the cost
+ * of bcrypt doubles with each step of strength, the probe is run at a low strength, the result
+ * is extrapolated and then checked with a single hash at the estimated strength. The
+ * calibrated strength is never below {@value #MIN_CALIBRATED_STRENGTH}, the default strength of
+ * bcrypt, so that a fast CPU does not weaken the hashes.</p>
+ *
+ * <p>A stored hash only needs an upgrade when its strength is lower than the configured one.
+ * Stronger hashes are kept, so that a lower or noisier calibration on another node or after a
+ * restart never rehashes passwords to a weaker strength, nor back and forth.</p>
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    static final int MAX_STRENGTH = 16;
+    static final int MIN_CALIBRATED_STRENGTH = 10;
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_ROUNDS = 5;
+    private static final String PROBE_PASSWORD = "calibration-password";
+
+    private final int strength;
+
+    /**
+     * Creates an encoder with the given strength.
+     *
+     * @param strength the log rounds to use, between 4 and 16
+     */
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Creates an encoder whose strength makes a hash take about the target time on this CPU.
+     *
+     * @param targetMillis the target time of a single hash in milliseconds
+     * @return the calibrated encoder
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis) {
+        return new CalibratedBCryptPasswordEncoder(calibrateStrength(targetMillis));
+    }
+
+    /**
+     * Finds the strength that makes a hash take about the target time on this CPU.
+     *
+     * @param targetMillis the target time of a single hash in milliseconds
+     * @return the calibrated strength, between {@value #MIN_CALIBRATED_STRENGTH} and 16
+     */
+    static int calibrateStrength(long targetMillis) {
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            measure(PROBE_STRENGTH);
+        }
+
+        int strength = clamp(PROBE_STRENGTH + log2(targetNanos, measure(PROBE_STRENGTH)));
+
+        // The probe is cheap but noisy, so the estimate is checked once at full cost and moved
+        // by one step when the actual hash time is off by more than a factor of sqrt(2).
+        long actualNanos = measure(strength);
+        if (actualNanos * Math.sqrt(2) < targetNanos) {
+            strength = clamp(strength + 1);
+        } else if (actualNanos > targetNanos * Math.sqrt(2)) {
+            strength = clamp(strength - 1);
+        }
+
+        return strength;
+    }
+
+    private static long measure(int strength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        probe.encode(PROBE_PASSWORD);
+        return Math.max(System.nanoTime() - start, 1);
+    }
+
+    private static long log2(long targetNanos, long actualNanos) {
+        return Math.round(Math.log(targetNanos / (double) actualNanos) / Math.log(2));
+    }
+
+    private static int clamp(long strength) {
+        return Math.clamp(strength, MIN_CALIBRATED_STRENGTH, MAX_STRENGTH);
+    }
+
+    /**
+     * Reads the strength of a bcrypt hash.
+     *
+     * @param encodedPassword the bcrypt hash, for example {@code $2a$10$...}
+     * @return the strength of the hash, or -1 if it is not a bcrypt hash
+     */
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null
+                || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the strength used for new hashes.
+     *
+     * @return the strength of the encoder
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encodedPassword != null
+                && !encodedPassword.isEmpty()
+                && strengthOf(encodedPassword) < strength;
+    }
+}
@@ -1,12 +1,18 @@
 package com.jonichi.peridot.auth.config;
 
+import com.jonichi.peridot.auth.model.AuthenticatedUser;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.VerifiedToken;
 import com.jonichi.peridot.auth.service.JwtService;
+import com.jonichi.peridot.auth.service.TokenRevocationService;
+import com.jonichi.peridot.auth.service.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,6 +26,20 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * A filter that checks for a JWT token in the HTTP request's Authorization header.
  * If a valid token is found, it authenticates the user by setting the authentication
  * details in the Spring Security context.
+ *
+ * <p>The token is parsed and verified only once per request; the resulting
+ * {@link VerifiedToken} is reused for the username lookup and the validity check. The
+ * {@link VerifiedTokenCache} is consulted first, so a token that was already verified is not
+ * verified again until it expires.</p>
+ *
+ * <p>When {@code jwt.stateless-authentication} is enabled, the principal is built from the
+ * user id and role claims of the verified token instead of being loaded from the database.
+ * Tokens without these claims fall back to loading the user. In both modes, tokens revoked
+ * through the {@link TokenRevocationService} are rejected.</p>
+ *
+ * <p>The principal is stored as an {@link AuthenticatedUser} carrying the user id, so that the
+ * user is resolved at most once per request. Its id is also stored in the
+ * {@link AccessLogFilter#USER_ID_ATTRIBUTE} request attribute for the access log.</p>
  */
 @Component
 @RequiredArgsConstructor
@@ -27,6 +47,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${jwt.stateless-authentication:false}")
+    boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(
@@ -37,6 +62,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final VerifiedToken verifiedToken;
         final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -45,11 +71,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        verifiedToken = verifiedTokenCache.get(jwt, jwtService::verifyToken);
+        userEmail = verifiedToken.username();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            UserDetails userDetails = loadPrincipal(verifiedToken);
+            if (jwtService.isTokenValid(verifiedToken, userDetails)
+                    && !isRevoked(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -62,9 +90,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 );
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+                    request.setAttribute(
+                            AccessLogFilter.USER_ID_ATTRIBUTE,
+                            authenticatedUser.id()
+                    );
+                }
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Resolves the principal of the verified token.
+     *
+     * <p>In stateless mode the principal is built from the token claims alone; otherwise, or
+     * when the token does not carry the identity claims, the user is loaded by username.</p>
+     *
+     * @param verifiedToken the verified claims of the JWT token
+     * @return the principal the token was issued for
+     */
+    private UserDetails loadPrincipal(VerifiedToken verifiedToken) {
+        if (statelessAuthentication && verifiedToken.hasIdentityClaims()) {
+            return new AuthenticatedUser(
+                    verifiedToken.userId(),
+                    verifiedToken.username(),
+                    verifiedToken.role()
+            );
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(verifiedToken.username());
+
+        if (userDetails instanceof User user) {
+            return AuthenticatedUser.from(user);
+        }
+
+        return userDetails;
+    }
+
+    private boolean isRevoked(VerifiedToken verifiedToken, UserDetails userDetails) {
+        Integer userId = verifiedToken.userId();
+
+        if (userId == null && userDetails instanceof AuthenticatedUser authenticatedUser) {
+            userId = authenticatedUser.id();
+        }
+
+        return tokenRevocationService.isRevoked(userId, verifiedToken.issuedAt());
+    }
 }
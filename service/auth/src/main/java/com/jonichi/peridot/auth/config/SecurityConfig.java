@@ -1,5 +1,6 @@
 package com.jonichi.peridot.auth.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +19,16 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
  *
  * <p>This class is responsible for securing the HTTP requests in the application,
  * including configuring JWT-based authentication and stateless session management.</p>
+ *
+ * <p>Asynchronous dispatches, such as the one that completes a streamed response, are permitted
+ * since the request they belong to was already authorized on its initial dispatch.</p>
+ *
+ * <p>Only the health endpoint of the actuator is public. The other exposed endpoints, such as
+ * metrics, describe the load and internals of the application and require an authenticated
+ * user like the API does.</p>
+ *
+ * <p>The authentication endpoints are public, except for logging out, which revokes the tokens
+ * of the authenticated user.</p>
  */
 @Configuration
 @EnableWebSecurity
@@ -41,8 +52,12 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/actuator/**")
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
                         .permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**")
+                        .permitAll()
+                        .requestMatchers("/api/auth/logout")
+                        .authenticated()
                         .requestMatchers("/api/auth/**")
                         .permitAll()
                         .anyRequest()
@@ -45,7 +45,6 @@ public class AuthController {
     public ResponseEntity<ApiResponse<AuthTokenDTO>> register(
             @RequestBody @Valid RegisterRequestDTO registerRequestDTO
     ) {
-        logger.info("Start - Controller - register");
         logger.debug(
                 "Request: username={}, email={}, password={}",
                 registerRequestDTO.username(),
@@ -67,7 +66,6 @@ public class AuthController {
                 .data(authTokenDTO)
                 .build();
 
-        logger.info("End - Controller - register");
         return ResponseEntity.status(status).body(response);
     }
 
@@ -86,7 +84,6 @@ public class AuthController {
     public ResponseEntity<ApiResponse<AuthTokenDTO>> authenticate(
             @RequestBody @Valid AuthenticateRequestDTO authenticateRequestDTO
     ) {
-        logger.info("Start - Controller - authenticate");
         logger.debug(
                 "Request: username={}, password={}",
                 authenticateRequestDTO.username(),
@@ -105,7 +102,28 @@ public class AuthController {
                 .data(authTokenDTO)
                 .build();
 
-        logger.info("End - Controller - authenticate");
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Endpoint for logging the authenticated user out of every session.
+     *
+     * <p>This method revokes every accessToken issued to the user so far, including the one used
+     * for this request. Requests made with any of these accessTokens are rejected afterwards, and
+     * the user has to authenticate again.</p>
+     *
+     * @return a {@link ResponseEntity} containing a {@link ApiResponse} without data
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout() {
+        authService.logout();
+
+        HttpStatus status = HttpStatus.OK;
+        ApiResponse<Void> response = SuccessResponse.<Void>builder()
+                .code(status.value())
+                .message("User logged out successfully")
+                .build();
+
         return ResponseEntity.status(status).body(response);
     }
 
@@ -0,0 +1,51 @@
+package com.jonichi.peridot.auth.model;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Principal of an authenticated request.
+ *
+ * <p>The {@code AuthenticatedUser} is resolved once by the authentication filter, either from
+ * the claims of the verified token or from the loaded {@link User}, and carries the user id so
+ * that the rest of the request never needs to look the user up again. It holds no
+ * password.</p>
+ *
+ * @param id the id of the authenticated user
+ * @param username the username of the authenticated user
+ * @param role the role of the authenticated user
+ */
+public record AuthenticatedUser(
+        Integer id,
+        String username,
+        Role role
+) implements UserDetails {
+
+    /**
+     * Creates the principal of the given user.
+     *
+     * @param user the loaded user
+     * @return the principal of the user
+     */
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
@@ -45,7 +45,11 @@ public class User implements UserDetails {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "_user_sequence")
-    @SequenceGenerator(name = "_user_sequence", sequenceName = "_user_sequence", allocationSize = 1)
+    @SequenceGenerator(
+            name = "_user_sequence",
+            sequenceName = "_user_sequence",
+            allocationSize = 50
+    )
     private Integer id;
 
     @Column(nullable = false)
@@ -0,0 +1,41 @@
+package com.jonichi.peridot.auth.model;
+
+/**
+ * Outcome of inserting a new user with a conflict-aware insert.
+ *
+ * <p>When the user was inserted, {@code id} holds the generated id and both flags are
+ * {@code false}. Otherwise {@code id} is {@code null} and the flags tell which unique key
+ * already belongs to another user.</p>
+ *
+ * @param id the id of the inserted user, or {@code null} if nothing was inserted
+ * @param usernameTaken whether the username is already in use
+ * @param emailTaken whether the email is already in use
+ */
+public record UserInsertResult(
+        Integer id,
+        boolean usernameTaken,
+        boolean emailTaken
+) {
+
+    /**
+     * Checks whether the user was inserted.
+     *
+     * @return true if a new user row was created, otherwise false
+     */
+    public boolean isInserted() {
+        return id != null;
+    }
+
+    /**
+     * Checks whether the conflicting unique key could be identified.
+     *
+     * <p>A concurrent registration that commits while the insert is waiting on it is not
+     * visible to the rest of the statement, so neither flag is set even though nothing was
+     * inserted.</p>
+     *
+     * @return true if the user was not inserted and at least one flag is set
+     */
+    public boolean hasConflict() {
+        return usernameTaken || emailTaken;
+    }
+}
@@ -0,0 +1,38 @@
+package com.jonichi.peridot.auth.model;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims of a JWT token whose signature has already been verified.
+ *
+ * <p>A {@code VerifiedToken} is produced once per request by parsing the bearer token, and is
+ * then shared by every step that needs information from the token so that the same token is
+ * never parsed and verified more than once.</p>
+ *
+ * <p>The {@code userId} and {@code role} claims are only present on tokens issued for a
+ * {@link User}; they are {@code null} for tokens that do not carry them.</p>
+ *
+ * @param username the subject of the token
+ * @param userId the id of the user the token was issued for, if present
+ * @param role the role of the user the token was issued for, if present
+ * @param issuedAt the time the token was issued
+ * @param expiration the time the token expires
+ */
+public record VerifiedToken(
+        String username,
+        Integer userId,
+        Role role,
+        Instant issuedAt,
+        Instant expiration
+) {
+
+    /**
+     * Checks whether the token carries the claims needed to build the principal without
+     * loading the user from the database.
+     *
+     * @return true if both the user id and role claims are present, otherwise false
+     */
+    public boolean hasIdentityClaims() {
+        return userId != null && role != null;
+    }
+}
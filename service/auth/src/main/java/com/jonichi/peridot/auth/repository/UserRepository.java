@@ -1,18 +1,23 @@
 package com.jonichi.peridot.auth.repository;
 
 import com.jonichi.peridot.auth.model.User;
+import jakarta.transaction.Transactional;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for performing database operations on {@link User}.
  *
  * <p>The {@code UserRepository} extends Spring Data JPA's {@link JpaRepository},
- * providing CRUD operations and custom query methods for the {@link User}.</p>
+ * providing CRUD operations and custom query methods for the {@link User}. Operations that need
+ * native SQL are provided by the {@link UserRepositoryCustom} fragment.</p>
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
 
     /**
      * Finds a user by their username.
@@ -24,4 +29,26 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * @return an {@link Optional} containing the {@link User} if found, or empty if not
      */
     Optional<User> findByUsername(String username);
+
+    /**
+     * Replaces the password hash of a user.
+     *
+     * <p>This method is used to store a rehashed password after a successful login when the
+     * stored hash no longer matches the configured hashing strength.</p>
+     *
+     * @param username the username of the user
+     * @param password the new password hash
+     * @return the number of updated users
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE User u
+            SET u.password = :password, u.updatedDate = CURRENT_TIMESTAMP
+            WHERE u.username = :username
+            """)
+    Integer updatePassword(
+            @Param("username") String username,
+            @Param("password") String password
+    );
 }
@@ -0,0 +1,25 @@
+package com.jonichi.peridot.auth.repository;
+
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.UserInsertResult;
+import jakarta.transaction.Transactional;
+
+/**
+ * Custom repository fragment for {@link User} operations that are not expressible as
+ * derived or JPQL queries.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserts a new user unless its username or email is already taken.
+     *
+     * <p>The insert and the detection of the conflicting unique key happen in a single
+     * statement, so a registration costs one round trip to the database and is not subject
+     * to the race between checking for an existing user and saving the new one.</p>
+     *
+     * @param user the user to insert; its id is ignored and taken from the id generator
+     * @return the generated id, or which unique key collided if nothing was inserted
+     */
+    @Transactional
+    UserInsertResult insertIfAbsent(User user);
+}
@@ -0,0 +1,55 @@
+package com.jonichi.peridot.auth.repository;
+
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.UserInsertResult;
+import com.jonichi.peridot.common.util.EntityIdUtil;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+/**
+ * {@link JdbcClient} based implementation of {@link UserRepositoryCustom}.
+ *
+ * <p>The insert uses {@code ON CONFLICT DO NOTHING} on the {@code _user} table and reports in
+ * the same statement whether the username or the email is already in use, which covers both
+ * the {@code user_username_unique} and the {@code user_email_unique} constraints.</p>
+ *
+ * <p>The id is taken from the id generator of {@link User}, see {@link EntityIdUtil}. When
+ * nothing is inserted, the id is left unused.</p>
+ */
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String INSERT_IF_ABSENT = """
+            WITH ins AS (
+                -- The id comes from the pooled generator of the entity, since _user_sequence
+                -- is incremented by its allocation size and nextval would use up a pool.
+                INSERT INTO _user (id, username, email, password, role)
+                VALUES (:id, :username, :email, :password, :role)
+                ON CONFLICT DO NOTHING
+                RETURNING id
+            )
+            SELECT (SELECT id FROM ins) AS id,
+                   EXISTS (SELECT 1 FROM _user WHERE username = :username) AS username_taken,
+                   EXISTS (SELECT 1 FROM _user WHERE email = :email) AS email_taken
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final EntityManager entityManager;
+
+    @Override
+    public UserInsertResult insertIfAbsent(User user) {
+        return jdbcClient.sql(INSERT_IF_ABSENT)
+                .param("id", EntityIdUtil.nextId(entityManager, User.class))
+                .param("username", user.getUsername())
+                .param("email", user.getEmail())
+                .param("password", user.getPassword())
+                .param("role", user.getRole().name())
+                .query((rs, rowNum) -> new UserInsertResult(
+                        rs.getObject("id", Integer.class),
+                        rs.getBoolean("username_taken"),
+                        rs.getBoolean("email_taken")
+                ))
+                .single();
+    }
+}
@@ -35,4 +35,12 @@ public interface AuthService {
      * @return an {@link AuthTokenDTO} containing the authentication token and user details
      */
     AuthTokenDTO authenticate(String username, String password);
+
+    /**
+     * Logs the currently authenticated user out of every session.
+     *
+     * <p>This method revokes every token issued to the user up to now, so the user has to
+     * authenticate again to obtain a new token.</p>
+     */
+    void logout();
 }
@@ -1,6 +1,7 @@
 package com.jonichi.peridot.auth.service;
 
 import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.VerifiedToken;
 import org.springframework.security.core.userdetails.UserDetails;
 
 /**
@@ -31,6 +32,17 @@ public interface JwtService {
      */
     String extractUsername(String token);
 
+    /**
+     * Parses the JWT token and verifies its signature.
+     *
+     * <p>The token is parsed exactly once and the resulting claims are returned as an immutable
+     * {@link VerifiedToken} that can be shared by the rest of the request.</p>
+     *
+     * @param token the JWT token
+     * @return the verified claims of the token
+     */
+    VerifiedToken verifyToken(String token);
+
     /**
      * Validates the JWT token by checking the username and expiration.
      *
@@ -39,4 +51,13 @@ public interface JwtService {
      * @return true if the token is valid, otherwise false
      */
     boolean isTokenValid(String token, UserDetails userDetails);
+
+    /**
+     * Validates an already verified token by checking the username and expiration.
+     *
+     * @param token the verified claims of the JWT token
+     * @param userDetails the user details to compare against the token
+     * @return true if the token is valid, otherwise false
+     */
+    boolean isTokenValid(VerifiedToken token, UserDetails userDetails);
 }
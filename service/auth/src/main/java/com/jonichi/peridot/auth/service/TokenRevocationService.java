@@ -0,0 +1,31 @@
+package com.jonichi.peridot.auth.service;
+
+import java.time.Instant;
+
+/**
+ * Interface for revoking the JWT tokens of a user.
+ *
+ * <p>Revocation is expressed as a per-user "tokens valid after" instant: every token of the
+ * user that was issued before that instant is rejected, while tokens issued afterwards remain
+ * valid. This lets requests be authenticated from the token alone while still supporting
+ * forced logouts.</p>
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Revokes every token of the given user that was issued before the given instant.
+     *
+     * @param userId the id of the user whose tokens are revoked
+     * @param validAfter the instant before which issued tokens are no longer valid
+     */
+    void revokeTokensIssuedBefore(Integer userId, Instant validAfter);
+
+    /**
+     * Checks whether a token of the given user has been revoked.
+     *
+     * @param userId the id of the user the token was issued for
+     * @param issuedAt the time the token was issued
+     * @return true if the token was issued before the user's revocation instant, otherwise false
+     */
+    boolean isRevoked(Integer userId, Instant issuedAt);
+}
@@ -0,0 +1,23 @@
+package com.jonichi.peridot.auth.service;
+
+import com.jonichi.peridot.auth.model.VerifiedToken;
+import java.util.function.Function;
+
+/**
+ * Interface for caching the verified claims of JWT tokens.
+ *
+ * <p>Clients usually send the same token for many requests, so the result of verifying a token
+ * can be reused until the token expires instead of checking its signature and parsing its
+ * claims again on every request.</p>
+ */
+public interface VerifiedTokenCache {
+
+    /**
+     * Returns the verified claims of the given token, verifying it only if it is not cached.
+     *
+     * @param token the JWT token
+     * @param verifier the function that verifies the token when it is not cached
+     * @return the verified claims of the token
+     */
+    VerifiedToken get(String token, Function<String, VerifiedToken> verifier);
+}
@@ -1,5 +1,6 @@
 package com.jonichi.peridot.auth.service.impl;
 
+import com.jonichi.peridot.auth.model.AuthenticatedUser;
 import com.jonichi.peridot.auth.repository.UserRepository;
 import com.jonichi.peridot.auth.service.AuthContextService;
 import lombok.RequiredArgsConstructor;
@@ -11,8 +12,9 @@ import org.springframework.stereotype.Service;
  * Implementation of the {@link AuthContextService} interface for fetching user details.
  *
  * <p>This class provides the actual logic for retrieving the details of the currently
- * authenticated user from the security context. It uses the {@link UserRepository} to
- * fetch the user based on the authenticated username.</p>
+ * authenticated user from the security context. The id is read directly from an
+ * {@link AuthenticatedUser} principal; for any other principal it falls back to the
+ * {@link UserRepository} to fetch the user based on the authenticated username.</p>
  */
 @Service
 @RequiredArgsConstructor
@@ -24,6 +26,10 @@ public class AuthContextServiceImpl implements AuthContextService {
     public Integer getUserId() {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.id();
+        }
+
         String username = ((UserDetails) principal).getUsername();
 
         return userRepository
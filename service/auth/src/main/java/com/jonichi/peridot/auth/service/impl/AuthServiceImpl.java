@@ -3,17 +3,20 @@ package com.jonichi.peridot.auth.service.impl;
 import com.jonichi.peridot.auth.dto.AuthTokenDTO;
 import com.jonichi.peridot.auth.model.Role;
 import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.UserInsertResult;
 import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.auth.service.AuthContextService;
 import com.jonichi.peridot.auth.service.AuthService;
 import com.jonichi.peridot.auth.service.JwtService;
+import com.jonichi.peridot.auth.service.TokenRevocationService;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
 import com.jonichi.peridot.common.util.TransactionalHandler;
+import java.time.Instant;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -22,60 +25,93 @@ import org.springframework.stereotype.Service;
  *
  * <p>The {@code AuthServiceImpl} class provides the logic for user registration and
  * authentication. It interacts with the necessary ports for saving users, encoding passwords,
- * authenticating users, and generating JWT tokens for authenticated users.</p>
+ * authenticating users, and generating JWT tokens for authenticated users. Logging out revokes
+ * the tokens of the user through the {@link TokenRevocationService}.</p>
  */
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
-    private static final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticateManager;
     private final TransactionalHandler transactionalHandler;
+    private final AuthContextService authContextService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public AuthTokenDTO register(String username, String email, String password) {
-        logger.info("Start - Service - register");
-
-        if (userRepository.findByUsername(username).isPresent()) {
-            throw new PeridotDuplicateException("Username already exists");
-        }
-
         String encodedPassword =  passwordEncoder.encode(password);
-        User userDetails = User.builder()
+        User user = User.builder()
                 .username(username)
                 .email(email)
                 .password(encodedPassword)
                 .role(Role.USER_ROLE_ACCOUNT)
                 .build();
 
-        Supplier<User> supplier = () -> userRepository.save(userDetails);
+        Supplier<UserInsertResult> supplier = () -> insertUser(user);
+
+        UserInsertResult result = transactionalHandler.runInTransactionSupplier(
+                "register",
+                supplier
+        );
+
+        if (result.usernameTaken()) {
+            throw new PeridotDuplicateException("Username already exists");
+        }
+        if (result.emailTaken()) {
+            throw new PeridotDuplicateException("Email already exists");
+        }
+        if (!result.isInserted()) {
+            throw new PeridotDuplicateException("Username or email already exists");
+        }
 
-        User user = transactionalHandler.runInTransactionSupplier(supplier);
+        user.setId(result.id());
 
-        logger.info("End - Service - register");
         return AuthTokenDTO.builder()
                 .userId(user.getId())
                 .accessToken(jwtService.generateToken(user))
                 .build();
     }
 
+    /**
+     * Inserts the user, retrying once when the insert lost a race it could not attribute.
+     *
+     * <p>If a concurrent registration for the same username or email commits while the insert
+     * is waiting on it, the statement inserts nothing but cannot see the new row. Running the
+     * statement again takes a fresh snapshot that either reports the conflict or inserts the
+     * user if the concurrent registration rolled back.</p>
+     */
+    private UserInsertResult insertUser(User user) {
+        UserInsertResult result = userRepository.insertIfAbsent(user);
+        if (result.isInserted() || result.hasConflict()) {
+            return result;
+        }
+
+        return userRepository.insertIfAbsent(user);
+    }
+
     @Override
     public AuthTokenDTO authenticate(String username, String password) {
-        logger.info("Start - Service - authenticate");
-
-        authenticateManager.authenticate(
+        Authentication authentication = authenticateManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         username,
                         password
                 )
         );
 
-        User user = userRepository.findByUsername(username).orElseThrow();
+        // The principal is the user loaded by the authentication, so it is not queried again.
+        User user = (User) authentication.getPrincipal();
 
-        logger.info("End - Service - authenticate");
         return new AuthTokenDTO(user.getId(), jwtService.generateToken(user));
     }
+
+    @Override
+    public void logout() {
+        tokenRevocationService.revokeTokensIssuedBefore(
+                authContextService.getUserId(),
+                Instant.now()
+        );
+    }
 }
@@ -1,12 +1,18 @@
 package com.jonichi.peridot.auth.service.impl;
 
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.VerifiedToken;
 import com.jonichi.peridot.auth.service.JwtService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,17 +25,43 @@ import org.springframework.stereotype.Service;
 /**
  * Service for handling JWT operations such as generating, validating, and extracting claims
  * from JWT tokens.
+ *
+ * <p>The signing key and the JWT parser are built once when the service is initialized and
+ * reused for every token, since both are immutable and thread-safe.</p>
+ *
+ * <p>Tokens issued for a {@link User} also carry the user id and role as signed claims so that
+ * requests can be authenticated from the token alone.</p>
  */
 @Service
 @RequiredArgsConstructor
 public class JwtServiceImpl implements JwtService {
 
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
     @Value("${jwt.secret}")
     String secretKey;
 
     @Value("${jwt.token-expiration}")
     Integer tokenExpiration;
 
+    private Key signInKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Decodes the secret key and builds the signing key and JWT parser.
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKey(signInKey)
+                .setAllowedClockSkewSeconds(5)
+                .build();
+    }
+
     /**
      * Generates a JWT token with custom claims and user details.
      *
@@ -47,29 +79,28 @@ public class JwtServiceImpl implements JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + tokenExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
-     * Generates a JWT token for the provided user details with no extra claims.
+     * Generates a JWT token for the provided user details.
+     *
+     * <p>If the user details are a {@link User}, the user id and role are added as claims.</p>
      *
      * @param userDetails the user details for the token subject
      * @return a JWT token as a String
      */
     @Override
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
-    }
+        Map<String, Object> claims = new HashMap<>();
 
-    /**
-     * Retrieves the signing key used for signing the JWT token.
-     *
-     * @return the signing key
-     */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        if (userDetails instanceof User user && user.getId() != null && user.getRole() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_CLAIM, user.getRole().name());
+        }
+
+        return generateToken(claims, userDetails);
     }
 
     /**
@@ -83,6 +114,29 @@ public class JwtServiceImpl implements JwtService {
         return extractClaim(token, Claims::getSubject);
     }
 
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        final Claims claims = extractAllClaims(token);
+        final String role = claims.get(ROLE_CLAIM, String.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get(USER_ID_CLAIM, Integer.class),
+                role != null ? Role.valueOf(role) : null,
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration())
+        );
+    }
+
+    /**
+     * Converts a date claim of the JWT token to an {@link Instant}.
+     *
+     * @param date the date claim, or {@code null} if the token does not carry it
+     * @return the instant of the claim, or {@code null} if the token does not carry it
+     */
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+
     /**
      * Extracts a specific claim from the JWT token.
      *
@@ -103,11 +157,7 @@ public class JwtServiceImpl implements JwtService {
      * @return the claims from the token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .setAllowedClockSkewSeconds(5)
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -141,8 +191,20 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(verifyToken(token), userDetails);
+    }
+
+    /**
+     * Validates an already verified token by checking the username and expiration.
+     *
+     * @param token the verified claims of the JWT token
+     * @param userDetails the user details to compare against the token
+     * @return true if the token is valid, otherwise false
+     */
+    @Override
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.username().equals(userDetails.getUsername())
+                && !token.expiration().isBefore(Instant.now());
     }
 
 }
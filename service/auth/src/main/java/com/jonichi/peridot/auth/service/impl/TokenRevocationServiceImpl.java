@@ -0,0 +1,49 @@
+package com.jonichi.peridot.auth.service.impl;
+
+import com.jonichi.peridot.auth.service.TokenRevocationService;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory implementation of the {@link TokenRevocationService} interface.
+ *
+ * <p>The "tokens valid after" instant of each user is kept in a {@link ConcurrentHashMap}, so
+ * the check performed on every authenticated request never touches the database. Only users
+ * whose tokens were revoked have an entry.</p>
+ *
+ * <p>The instants are kept by the instance that handled the logout and are lost on restart, so
+ * this assumes a single instance. Running several instances requires sharing the instants, for
+ * example through the database or a shared cache.</p>
+ *
+ * <p>Since the issued-at claim of a JWT has a precision of one second, a token issued in the
+ * same second as the revocation is also treated as revoked.</p>
+ */
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final Map<Integer, Instant> tokensValidAfter = new ConcurrentHashMap<>();
+
+    @Override
+    public void revokeTokensIssuedBefore(Integer userId, Instant validAfter) {
+        tokensValidAfter.merge(userId, validAfter, (current, next) ->
+                next.isAfter(current) ? next : current
+        );
+    }
+
+    @Override
+    public boolean isRevoked(Integer userId, Instant issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+
+        Instant validAfter = tokensValidAfter.get(userId);
+
+        if (validAfter == null) {
+            return false;
+        }
+
+        return issuedAt == null || !issuedAt.isAfter(validAfter);
+    }
+}
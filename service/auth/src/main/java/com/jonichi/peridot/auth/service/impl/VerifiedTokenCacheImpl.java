@@ -0,0 +1,122 @@
+package com.jonichi.peridot.auth.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jonichi.peridot.auth.model.VerifiedToken;
+import com.jonichi.peridot.auth.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caffeine-backed implementation of the {@link VerifiedTokenCache} interface.
+ *
+ * <p>Entries are keyed by the SHA-256 hash of the token, so the tokens themselves are never
+ * kept in memory. Each entry expires no later than the expiration of its token, and the cache
+ * is bounded by {@code jwt.cache.maximum-size} using Caffeine's W-TinyLFU eviction. Hit, miss
+ * and eviction counts are published to the {@link MeterRegistry} when one is available.</p>
+ *
+ * <p>When {@code jwt.cache.enabled} is false, every token is verified.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class VerifiedTokenCacheImpl implements VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified-tokens";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${jwt.cache.enabled:false}")
+    boolean enabled;
+
+    @Value("${jwt.cache.maximum-size:10000}")
+    long maximumSize;
+
+    private Cache<String, VerifiedToken> cache;
+
+    /**
+     * Builds the cache and binds its metrics when the cache is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        meterRegistryProvider.ifAvailable(registry ->
+                CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME)
+        );
+    }
+
+    @Override
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        if (cache == null) {
+            return verifier.apply(token);
+        }
+
+        return cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Expires each entry when its token expires; reads and updates never extend it.
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.expiration() == null) {
+                return 0;
+            }
+
+            Duration remaining = Duration.between(Instant.now(), value.expiration());
+            return remaining.isNegative() ? 0 : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                String key,
+                VerifiedToken value,
+                long currentTime,
+                long currentDuration
+        ) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                String key,
+                VerifiedToken value,
+                long currentTime,
+                long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.jonichi.peridot.auth.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.ServletException;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class AccessLogFilterTest {
+
+    private Logger accessLogger;
+    private ListAppender<ILoggingEvent> appender;
+    private AccessLogFilter accessLogFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        accessLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER_NAME);
+        appender = new ListAppender<>();
+        appender.start();
+        accessLogger.addAppender(appender);
+
+        accessLogFilter = new AccessLogFilter();
+        request = new MockHttpServletRequest("POST", "/api/budgets");
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+    }
+
+    private Map<String, Object> keyValues(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .filter(pair -> pair.value != null)
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+
+    @Test
+    public void doFilter_withSuccess_shouldLogOneStructuredEvent() throws Exception {
+        // given
+        accessLogFilter.sampleRate = 1.0;
+        request.setAttribute(AccessLogFilter.USER_ID_ATTRIBUTE, 7);
+        response.setStatus(201);
+
+        // when
+        accessLogFilter.doFilter(request, response, new MockFilterChain());
+
+        // then
+        assertThat(appender.list.size()).isEqualTo(1);
+        ILoggingEvent event = appender.list.getFirst();
+        Map<String, Object> keyValues = keyValues(event);
+        assertThat(event.getLevel()).isEqualTo(Level.INFO);
+        assertThat(keyValues.get("method")).isEqualTo("POST");
+        assertThat(keyValues.get("path")).isEqualTo("/api/budgets");
+        assertThat(keyValues.get("status")).isEqualTo(201);
+        assertThat(keyValues.get("user_id")).isEqualTo(7);
+        assertThat(keyValues.get("outcome")).isEqualTo(AccessLogFilter.OUTCOME_SUCCESS);
+        assertThat(keyValues.containsKey("duration_ms")).isTrue();
+    }
+
+    @Test
+    public void doFilter_withSampledOutSuccess_shouldNotLog() throws Exception {
+        // given
+        accessLogFilter.sampleRate = 0.0;
+        response.setStatus(404);
+
+        // when
+        accessLogFilter.doFilter(request, response, new MockFilterChain());
+
+        // then
+        assertThat(appender.list.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void doFilter_withServerError_shouldNeverBeSampledAway() throws Exception {
+        // given
+        accessLogFilter.sampleRate = 0.0;
+        response.setStatus(503);
+
+        // when
+        accessLogFilter.doFilter(request, response, new MockFilterChain());
+
+        // then
+        assertThat(appender.list.size()).isEqualTo(1);
+        ILoggingEvent event = appender.list.getFirst();
+        assertThat(event.getLevel()).isEqualTo(Level.ERROR);
+        assertThat(keyValues(event).get("outcome"))
+                .isEqualTo(AccessLogFilter.OUTCOME_SERVER_ERROR);
+    }
+
+    @Test
+    public void doFilter_withException_shouldLogServerErrorAndRethrow() throws Exception {
+        // given
+        accessLogFilter.sampleRate = 0.0;
+
+        // when
+        assertThatThrownBy(() -> accessLogFilter.doFilter(request, response, (req, res) -> {
+            throw new ServletException("Handler failed");
+        })).isInstanceOf(ServletException.class);
+
+        // then
+        assertThat(appender.list.size()).isEqualTo(1);
+        assertThat(keyValues(appender.list.getFirst()).get("status")).isEqualTo(500);
+    }
+}
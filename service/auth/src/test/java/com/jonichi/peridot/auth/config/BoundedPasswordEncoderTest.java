@@ -0,0 +1,135 @@
+package com.jonichi.peridot.auth.config;
+
+import com.jonichi.peridot.common.exception.PeridotServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class BoundedPasswordEncoderTest {
+
+    private MeterRegistry meterRegistry;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        boundedPasswordEncoder.close();
+    }
+
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "encoded-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+
+    @Test
+    public void encodeAndMatches_shouldDelegateAndRecordLatency() throws Exception {
+        // given
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                blockingEncoder(), 1, 1, 5000, meterRegistry
+        );
+
+        // when
+        String encoded = boundedPasswordEncoder.encode("password");
+        boolean matches = boundedPasswordEncoder.matches("password", encoded);
+
+        // then
+        assertThat(encoded).isEqualTo("encoded-password");
+        assertThat(matches).isTrue();
+        assertThat(meterRegistry.get("auth.password.hash")
+                .tag("operation", "encode")
+                .timer()
+                .count()).isEqualTo(1L);
+        assertThat(meterRegistry.get("auth.password.hash")
+                .tag("operation", "matches")
+                .timer()
+                .count()).isEqualTo(1L);
+    }
+
+    @Test
+    public void encode_withSaturatedLane_shouldRejectImmediately() throws Exception {
+        // given
+        release = new CountDownLatch(1);
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                blockingEncoder(), 1, 1, 5000, meterRegistry
+        );
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() ->
+                boundedPasswordEncoder.encode("first"));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() ->
+                boundedPasswordEncoder.encode("second"));
+
+        while (meterRegistry.get("auth.password.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // when
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("third"))
+                .isInstanceOf(PeridotServiceUnavailableException.class);
+        release.countDown();
+
+        // then
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("encoded-first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("encoded-second");
+        assertThat(meterRegistry.get("auth.password.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void encode_whenHashTakesTooLong_shouldReject() throws Exception {
+        // given
+        release = new CountDownLatch(1);
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                blockingEncoder(), 1, 1, 50, meterRegistry
+        );
+
+        // then
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("password"))
+                .isInstanceOf(PeridotServiceUnavailableException.class);
+        assertThat(meterRegistry.get("auth.password.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void upgradeEncoding_shouldDelegate() throws Exception {
+        // given
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                blockingEncoder(), 1, 1, 5000, meterRegistry
+        );
+
+        // then
+        assertThat(boundedPasswordEncoder.upgradeEncoding("encoded")).isFalse();
+    }
+}
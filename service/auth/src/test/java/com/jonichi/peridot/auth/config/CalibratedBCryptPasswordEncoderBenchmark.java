@@ -0,0 +1,62 @@
+package com.jonichi.peridot.auth.config;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reports the achieved password hashes per second on a single core.
+ *
+ * <p>The encoder uses the strength picked by the startup calibration for each target time, so
+ * the reported throughput shows how close the calibration gets to the target on this node: a
+ * target of 100 ms should give about 10 hashes per second. The calibrated strength is
+ * reported next to the throughput as the {@code calibratedStrength} counter.</p>
+ *
+ * <p>Run with {@code ./run bench service/auth}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(1)
+@Fork(1)
+public class CalibratedBCryptPasswordEncoderBenchmark {
+
+    @Param({"50", "100", "250"})
+    long targetMillis;
+
+    private CalibratedBCryptPasswordEncoder calibratedEncoder;
+
+    @Setup
+    public void setUp() {
+        calibratedEncoder = CalibratedBCryptPasswordEncoder.calibrate(targetMillis);
+    }
+
+    @Benchmark
+    public String calibrated(Calibration calibration) {
+        calibration.calibratedStrength = calibratedEncoder.getStrength();
+        return calibratedEncoder.encode("benchmark-password");
+    }
+
+    /**
+     * Reports the strength picked by the calibration as a counter of the benchmark results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Calibration {
+
+        public long calibratedStrength;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jonichi.peridot.auth.config;
+
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class CalibratedBCryptPasswordEncoderTest {
+
+    @Test
+    public void calibrateStrength_shouldStayWithinBounds() throws Exception {
+        // when
+        int fast = CalibratedBCryptPasswordEncoder.calibrateStrength(0);
+        int target = CalibratedBCryptPasswordEncoder.calibrateStrength(100);
+
+        // then
+        assertThat(fast).isEqualTo(CalibratedBCryptPasswordEncoder.MIN_CALIBRATED_STRENGTH);
+        assertThat(target).isBetween(
+                CalibratedBCryptPasswordEncoder.MIN_CALIBRATED_STRENGTH,
+                CalibratedBCryptPasswordEncoder.MAX_STRENGTH
+        );
+    }
+
+    @Test
+    public void strengthOf_shouldReadStrengthOfHash() throws Exception {
+        // given
+        String encoded = new BCryptPasswordEncoder(5).encode("secret");
+
+        // then
+        assertThat(CalibratedBCryptPasswordEncoder.strengthOf(encoded)).isEqualTo(5);
+        assertThat(CalibratedBCryptPasswordEncoder.strengthOf("plain")).isEqualTo(-1);
+        assertThat(CalibratedBCryptPasswordEncoder.strengthOf(null)).isEqualTo(-1);
+    }
+
+    @Test
+    public void upgradeEncoding_shouldOnlyUpgradeWeakerStrength() throws Exception {
+        // given
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        // then
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")))
+                .isFalse();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+        assertThat(encoder.upgradeEncoding("")).isFalse();
+    }
+
+    @Test
+    public void authenticate_withOutdatedStrength_shouldRehashPassword() throws Exception {
+        // given
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+        User user = User.builder()
+                .id(1)
+                .username("test")
+                .email("test@mail.com")
+                .password(new BCryptPasswordEncoder(4).encode("secret"))
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+        AtomicReference<String> storedPassword = new AtomicReference<>();
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(username -> user);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService((userDetails, newPassword) -> {
+            storedPassword.set(newPassword);
+            return userDetails;
+        });
+
+        // when
+        provider.authenticate(new UsernamePasswordAuthenticationToken("test", "secret"));
+
+        // then
+        assertThat(storedPassword.get()).isNotNull();
+        assertThat(CalibratedBCryptPasswordEncoder.strengthOf(storedPassword.get())).isEqualTo(5);
+        assertThat(encoder.matches("secret", storedPassword.get())).isTrue();
+    }
+}
@@ -120,4 +120,17 @@ public class AuthControllerTest {
         assertThat(response.getBody().getCode()).isEqualTo(200);
 
     }
+
+    @Test
+    public void logout_shouldCallAuthServiceOnce() throws Exception {
+        // when
+        ResponseEntity<ApiResponse<Void>> response = authController.logout();
+
+        // then
+        verify(authService, times(1)).logout();
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(Objects.requireNonNull(response.getBody()).getMessage())
+                .isEqualTo("User logged out successfully");
+        assertThat(response.getBody().getCode()).isEqualTo(200);
+    }
 }
@@ -8,7 +8,10 @@ import com.jonichi.peridot.auth.dto.RegisterRequestDTO;
 import com.jonichi.peridot.auth.repository.UserRepository;
 import com.jonichi.peridot.auth.service.AuthService;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
@@ -21,8 +24,10 @@ import static org.springframework.restdocs.operation.preprocess.Preprocessors.pr
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
 import org.springframework.security.authentication.BadCredentialsException;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -254,4 +259,52 @@ public class AuthIntegrationTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    public void logout_shouldReturn200OK() throws Exception {
+        // when
+        mockMvc.perform(post("/api/auth/logout")
+                        .with(user("test")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andDo(
+                        document("logout",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+
+        // then
+        verify(authService).logout();
+    }
+
+    @Test
+    public void logout_withoutAuthentication_shouldReturn403Forbidden() throws Exception {
+        // when
+        mockMvc.perform(post("/api/auth/logout"))
+                .andExpect(status().isForbidden());
+
+        // then
+        verify(authService, never()).logout();
+    }
+
+    @Test
+    public void actuatorMetrics_withoutAuthentication_shouldReturn403Forbidden() throws Exception {
+        // when, then
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/transaction.duration"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void actuatorHealth_withoutAuthentication_shouldNotBeForbidden() throws Exception {
+        // when
+        int status = mockMvc.perform(get("/actuator/health"))
+                .andReturn()
+                .getResponse()
+                .getStatus();
+
+        // then
+        assertThat(status).isNotEqualTo(403);
+    }
 }
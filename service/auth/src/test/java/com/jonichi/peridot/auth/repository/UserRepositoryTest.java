@@ -0,0 +1,209 @@
+package com.jonichi.peridot.auth.repository;
+
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.UserInsertResult;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class UserRepositoryTest {
+
+    private static final int CONCURRENT_REGISTRATIONS = 8;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    private static final PostgreSQLContainer<?> POSTGRES_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        POSTGRES_CONTAINER.start();
+        connection = DriverManager.getConnection(
+                POSTGRES_CONTAINER.getJdbcUrl(),
+                POSTGRES_CONTAINER.getUsername(),
+                POSTGRES_CONTAINER.getPassword()
+        );
+
+        applyDatabaseMigrations();
+    }
+
+    private static void applyDatabaseMigrations() throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new liquibase.database.jvm.JdbcConnection(connection));
+        Liquibase liquibase = new Liquibase(
+                "changelog/changelog-root.yml",
+                new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                database
+        );
+        liquibase.update("");
+    }
+
+    @AfterAll
+    static void afterAll() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        POSTGRES_CONTAINER.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRES_CONTAINER::getPassword);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcClient.sql("DELETE FROM _user WHERE username LIKE 'racer%'").update();
+    }
+
+    private User createTestUser(String username, String email) {
+        return User.builder()
+                .username(username)
+                .email(email)
+                .password("encodedPassword")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+    }
+
+    @Test
+    public void insertIfAbsent_shouldInsertTheUser() throws Exception {
+        // given
+        User user = createTestUser("test", "test@mail.com");
+
+        // when
+        UserInsertResult result = userRepository.insertIfAbsent(user);
+        User savedUser = userRepository.findByUsername("test").orElseThrow();
+
+        // then
+        assertThat(result.isInserted()).isTrue();
+        assertThat(result.hasConflict()).isFalse();
+        assertThat(savedUser.getId()).isEqualTo(result.id());
+        assertThat(savedUser.getCreatedDate()).isNotNull();
+        assertThat(savedUser.getRole()).isEqualTo(Role.USER_ROLE_ACCOUNT);
+    }
+
+    @Test
+    public void insertIfAbsent_shouldTakeConsecutiveIdsFromThePool() throws Exception {
+        // given
+        User first = createTestUser("first", "first@mail.com");
+        User second = createTestUser("second", "second@mail.com");
+
+        // when
+        UserInsertResult firstResult = userRepository.insertIfAbsent(first);
+        UserInsertResult secondResult = userRepository.insertIfAbsent(second);
+
+        // then
+        assertThat(secondResult.id()).isEqualTo(firstResult.id() + 1);
+    }
+
+    @Test
+    public void insertIfAbsent_withExistingUsername_shouldReportUsernameConflict() throws Exception {
+        // given
+        User user = createTestUser("jon", "another@mail.com");
+
+        // when
+        UserInsertResult result = userRepository.insertIfAbsent(user);
+
+        // then
+        assertThat(result.isInserted()).isFalse();
+        assertThat(result.usernameTaken()).isTrue();
+        assertThat(result.emailTaken()).isFalse();
+    }
+
+    @Test
+    public void insertIfAbsent_withExistingEmail_shouldReportEmailConflict() throws Exception {
+        // given
+        User user = createTestUser("another", "jon@mail.com");
+
+        // when
+        UserInsertResult result = userRepository.insertIfAbsent(user);
+
+        // then
+        assertThat(result.isInserted()).isFalse();
+        assertThat(result.usernameTaken()).isFalse();
+        assertThat(result.emailTaken()).isTrue();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void insertIfAbsent_withConcurrentDuplicates_shouldInsertExactlyOneUser()
+            throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REGISTRATIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserInsertResult>> futures = new ArrayList<>();
+
+        for (int i = 0; i < CONCURRENT_REGISTRATIONS; i++) {
+            User user = createTestUser("racer", "racer" + i + "@mail.com");
+            Callable<UserInsertResult> registration = () -> {
+                start.await();
+                return userRepository.insertIfAbsent(user);
+            };
+            futures.add(executor.submit(registration));
+        }
+
+        // when
+        start.countDown();
+        int inserted = 0;
+        for (Future<UserInsertResult> future : futures) {
+            UserInsertResult result = future.get();
+            if (result.isInserted()) {
+                inserted++;
+            } else {
+                assertThat(result.emailTaken()).isFalse();
+            }
+        }
+        executor.shutdown();
+
+        Long count = jdbcClient.sql("SELECT COUNT(*) FROM _user WHERE username = 'racer'")
+                .query(Long.class)
+                .single();
+
+        // then
+        assertThat(inserted).isEqualTo(1);
+        assertThat(count).isEqualTo(1L);
+    }
+
+}
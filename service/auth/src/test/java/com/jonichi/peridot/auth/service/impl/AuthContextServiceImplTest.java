@@ -1,5 +1,6 @@
 package com.jonichi.peridot.auth.service.impl;
 
+import com.jonichi.peridot.auth.model.AuthenticatedUser;
 import com.jonichi.peridot.auth.model.Role;
 import com.jonichi.peridot.auth.model.User;
 import com.jonichi.peridot.auth.repository.UserRepository;
@@ -10,6 +11,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -67,4 +70,23 @@ public class AuthContextServiceImplTest {
         verify(userRepository, times(1)).findByUsername("test");
         assertThat(userId).isEqualTo(existingUser.getId());
     }
+
+    @Test
+    public void getUserId_withAuthenticatedUser_shouldNotQueryRepository() throws Exception {
+        // given
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser(
+                2,
+                "test",
+                Role.USER_ROLE_ACCOUNT
+        );
+
+        // when
+        when(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .thenReturn(authenticatedUser);
+        Integer userId = userUtil.getUserId();
+
+        // then
+        verify(userRepository, never()).findByUsername(anyString());
+        assertThat(userId).isEqualTo(2);
+    }
 }
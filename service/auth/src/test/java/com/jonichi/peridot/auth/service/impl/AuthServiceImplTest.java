@@ -3,11 +3,15 @@ package com.jonichi.peridot.auth.service.impl;
 import com.jonichi.peridot.auth.dto.AuthTokenDTO;
 import com.jonichi.peridot.auth.model.Role;
 import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.UserInsertResult;
 import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.auth.service.AuthContextService;
 import com.jonichi.peridot.auth.service.JwtService;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
 import com.jonichi.peridot.common.util.TransactionalHandler;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.function.Supplier;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatNoException;
@@ -15,8 +19,12 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +48,10 @@ public class AuthServiceImplTest {
     private AuthenticationManager authenticateManager;
     @Mock
     private TransactionalHandler transactionalHandler;
+    @Mock
+    private AuthContextService authContextService;
+    @Spy
+    private TokenRevocationServiceImpl tokenRevocationService;
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -49,22 +61,17 @@ public class AuthServiceImplTest {
         String username = "test";
         String email = "test@mail.com";
         String password = "secret";
-        String encodedPassword = "encodedPassword";
 
-        User user = User.builder()
-                .id(1)
-                .username(username)
-                .email(email)
-                .password(encodedPassword)
-                .role(Role.USER_ROLE_ACCOUNT)
-                .build();
+        UserInsertResult result = new UserInsertResult(1, false, false);
 
         // when
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class))).thenReturn(user);
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenReturn(result);
         authService.register(username, email, password);
 
         // then
-        verify(transactionalHandler, times(1)).runInTransactionSupplier(any(Supplier.class));
+        verify(transactionalHandler, times(1))
+                .runInTransactionSupplier(eq("register"), any(Supplier.class));
     }
 
     @Test
@@ -91,14 +98,10 @@ public class AuthServiceImplTest {
                 .build();
 
         // when
-        when(userRepository.save(request)).thenReturn(user);
+        when(userRepository.insertIfAbsent(request)).thenReturn(new UserInsertResult(2, false, false));
         when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
         when(jwtService.generateToken(user)).thenReturn("jwtToken");
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
-                .thenAnswer(invocation -> {
-                    Supplier<User> supplier = invocation.getArgument(0);
-                    return supplier.get();
-                });
+        mockTransactionalHandler();
         AuthTokenDTO authTokenDTO = authService.register(username, email, password);
 
         // then
@@ -109,42 +112,23 @@ public class AuthServiceImplTest {
     }
 
     @Test
-    public void register_shouldCheckForExistingUser() throws Exception {
+    public void register_shouldInsertUserInSingleStatement() throws Exception {
         // given
         String username = "test";
         String email = "test@mail.com";
         String password = "secret";
-        String encodedPassword = "encodedPassword";
-
-        User request = User.builder()
-                .username(username)
-                .email(email)
-                .password(encodedPassword)
-                .role(Role.USER_ROLE_ACCOUNT)
-                .build();
-
-        User user = User.builder()
-                .id(2)
-                .username(username)
-                .email(email)
-                .password(encodedPassword)
-                .role(Role.USER_ROLE_ACCOUNT)
-                .build();
 
         // when
-        when(userRepository.save(request)).thenReturn(user);
-        when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
-                .thenAnswer(invocation -> {
-                    Supplier<User> supplier = invocation.getArgument(0);
-                    return supplier.get();
-                });
+        when(userRepository.insertIfAbsent(any(User.class)))
+                .thenReturn(new UserInsertResult(2, false, false));
+        mockTransactionalHandler();
 
         // then
         assertThatNoException().isThrownBy(() ->
                 authService.register(username, email, password));
-        verify(userRepository, times(1)).findByUsername(username);
-
+        verify(userRepository, times(1)).insertIfAbsent(any(User.class));
+        verify(userRepository, never()).findByUsername(username);
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
@@ -153,24 +137,74 @@ public class AuthServiceImplTest {
         String username = "test";
         String email = "test@mail.com";
         String password = "secret";
-        String encodedPassword = "encodedPassword";
 
-        User user = User.builder()
-                .id(2)
-                .username(username)
-                .email(email)
-                .password(encodedPassword)
-                .role(Role.USER_ROLE_ACCOUNT)
-                .build();
+        // when
+        when(userRepository.insertIfAbsent(any(User.class)))
+                .thenReturn(new UserInsertResult(null, true, false));
+        mockTransactionalHandler();
+
+        // then
+        assertThatThrownBy(() -> authService.register(username, email, password))
+                .isInstanceOf(PeridotDuplicateException.class)
+                .hasMessage("Username already exists");
+    }
+
+    @Test
+    public void register_withDuplicateEmail_shouldThrowPeridotDuplicateException() throws Exception {
+        // given
+        String username = "test";
+        String email = "test@mail.com";
+        String password = "secret";
 
         // when
-        when(userRepository.findByUsername(username))
-                .thenReturn(Optional.of(user));
+        when(userRepository.insertIfAbsent(any(User.class)))
+                .thenReturn(new UserInsertResult(null, false, true));
+        mockTransactionalHandler();
+
+        // then
+        assertThatThrownBy(() -> authService.register(username, email, password))
+                .isInstanceOf(PeridotDuplicateException.class)
+                .hasMessage("Email already exists");
+    }
+
+    @Test
+    public void register_withUnattributedConflict_shouldRetryOnce() throws Exception {
+        // given
+        String username = "test";
+        String email = "test@mail.com";
+        String password = "secret";
+
+        // when
+        when(userRepository.insertIfAbsent(any(User.class)))
+                .thenReturn(new UserInsertResult(null, false, false))
+                .thenReturn(new UserInsertResult(null, true, false));
+        mockTransactionalHandler();
 
         // then
         assertThatThrownBy(() -> authService.register(username, email, password))
                 .isInstanceOf(PeridotDuplicateException.class)
                 .hasMessage("Username already exists");
+        verify(userRepository, times(2)).insertIfAbsent(any(User.class));
+    }
+
+    @Test
+    public void register_withUnresolvedConflict_shouldThrowPeridotDuplicateException()
+            throws Exception {
+        // given
+        String username = "test";
+        String email = "test@mail.com";
+        String password = "secret";
+
+        // when
+        when(userRepository.insertIfAbsent(any(User.class)))
+                .thenReturn(new UserInsertResult(null, false, false));
+        mockTransactionalHandler();
+
+        // then
+        assertThatThrownBy(() -> authService.register(username, email, password))
+                .isInstanceOf(PeridotDuplicateException.class)
+                .hasMessage("Username or email already exists");
+        verify(userRepository, times(2)).insertIfAbsent(any(User.class));
     }
 
     @Test
@@ -190,7 +224,8 @@ public class AuthServiceImplTest {
                 .build();
 
         // when
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(authenticateManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(user, null, List.of()));
         when(jwtService.generateToken(user)).thenReturn("jwtToken");
         AuthTokenDTO authTokenDTO = new AuthTokenDTO(2, "jwtToken");
 
@@ -198,6 +233,32 @@ public class AuthServiceImplTest {
         assertThat(authService.authenticate(username, password)).isEqualTo(authTokenDTO);
         verify(authenticateManager, times(1))
                 .authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(userRepository, never()).findByUsername(username);
+    }
+
+    @Test
+    public void logout_shouldRevokeTokensOfAuthenticatedUser() throws Exception {
+        // given
+        Instant issuedBeforeLogout = Instant.now().minus(Duration.ofMinutes(1));
+        Instant issuedAfterLogout = Instant.now().plus(Duration.ofMinutes(1));
+
+        // when
+        when(authContextService.getUserId()).thenReturn(1);
+        authService.logout();
+
+        // then
+        verify(tokenRevocationService, times(1)).revokeTokensIssuedBefore(eq(1), any(Instant.class));
+        assertThat(tokenRevocationService.isRevoked(1, issuedBeforeLogout)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(1, issuedAfterLogout)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(2, issuedBeforeLogout)).isFalse();
+    }
+
+    private void mockTransactionalHandler() {
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<UserInsertResult> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
     }
 
 }
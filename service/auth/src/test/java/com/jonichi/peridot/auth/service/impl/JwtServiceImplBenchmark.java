@@ -0,0 +1,105 @@
+package com.jonichi.peridot.auth.service.impl;
+
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * Compares the per-request cost of verifying a bearer token.
+ *
+ * <p>{@code legacyPipeline} reproduces the previous behavior of the authentication filter: the
+ * key is decoded and a parser is built for every call, and the token is parsed three times.
+ * {@code singleParsePipeline} uses the cached parser and parses the token once, and
+ * {@code cachedPipeline} reuses the verified claims from the {@link VerifiedTokenCacheImpl}.</p>
+ *
+ * <p>Run with {@code ./run bench service/auth}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceImplBenchmark {
+
+    private static final String SECRET_KEY = "r+uZcNlc4WPU5ilIFqkJTLVcEtPb3" +
+            "hs7HY3gF0Ix4lo9zkr8RCgJ5c1UqQavbvfY" +
+            "TfobHix3dK3mhIlh3ayHJg==";
+
+    private JwtServiceImpl jwtServiceImpl;
+    private VerifiedTokenCacheImpl verifiedTokenCacheImpl;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtServiceImpl = new JwtServiceImpl();
+        jwtServiceImpl.secretKey = SECRET_KEY;
+        jwtServiceImpl.tokenExpiration = 1000 * 60 * 60;
+        jwtServiceImpl.init();
+
+        verifiedTokenCacheImpl = new VerifiedTokenCacheImpl(
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)
+        );
+        verifiedTokenCacheImpl.enabled = true;
+        verifiedTokenCacheImpl.maximumSize = 10_000;
+        verifiedTokenCacheImpl.init();
+
+        user = User.builder()
+                .id(1)
+                .username("test")
+                .email("test@mail.com")
+                .password("secret")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+        token = jwtServiceImpl.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyPipeline() {
+        String username = legacyParse(token).getSubject();
+        return username.equals(user.getUsername())
+                && legacyParse(token).getSubject().equals(user.getUsername())
+                && !legacyParse(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParsePipeline() {
+        VerifiedToken verifiedToken = jwtServiceImpl.verifyToken(token);
+        return jwtServiceImpl.isTokenValid(verifiedToken, user);
+    }
+
+    @Benchmark
+    public boolean cachedPipeline() {
+        VerifiedToken verifiedToken = verifiedTokenCacheImpl.get(token, jwtServiceImpl::verifyToken);
+        return jwtServiceImpl.isTokenValid(verifiedToken, user);
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts
+                .parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .setAllowedClockSkewSeconds(5)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -2,6 +2,7 @@ package com.jonichi.peridot.auth.service.impl;
 
 import com.jonichi.peridot.auth.model.Role;
 import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.model.VerifiedToken;
 import java.util.HashMap;
 import java.util.Map;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -24,6 +25,7 @@ public class JwtServiceImplTest {
 
         // 1 minute test token expiration
         jwtServiceImpl.tokenExpiration = 1000 * 60;
+        jwtServiceImpl.init();
     }
 
     @Test
@@ -118,4 +120,85 @@ public class JwtServiceImplTest {
 
     }
 
+    @Test
+    public void verifyToken_shouldReturnVerifiedClaims() throws Exception {
+        // given
+        User user = User.builder()
+                .id(1)
+                .username("test")
+                .email("test@mail.com")
+                .password("secret")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+
+        String token = jwtServiceImpl.generateToken(user);
+
+        // when
+        VerifiedToken verifiedToken = jwtServiceImpl.verifyToken(token);
+
+        // then
+        assertThat(verifiedToken.username()).isEqualTo("test");
+        assertThat(verifiedToken.userId()).isEqualTo(1);
+        assertThat(verifiedToken.role()).isEqualTo(Role.USER_ROLE_ACCOUNT);
+        assertThat(verifiedToken.hasIdentityClaims()).isTrue();
+        assertThat(verifiedToken.issuedAt()).isNotNull();
+        assertThat(verifiedToken.expiration()).isAfter(verifiedToken.issuedAt());
+    }
+
+    @Test
+    public void isTokenValid_withVerifiedToken() throws Exception {
+        // given
+        User user = User.builder()
+                .id(1)
+                .username("test")
+                .email("test@mail.com")
+                .password("secret")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+
+        User user2 = User.builder()
+                .id(2)
+                .username("test2")
+                .email("test2@mail.com")
+                .password("secret")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build();
+
+        VerifiedToken verifiedToken = jwtServiceImpl.verifyToken(
+                jwtServiceImpl.generateToken(user)
+        );
+
+        // then
+        assertThat(jwtServiceImpl.isTokenValid(verifiedToken, user)).isTrue();
+        assertThat(jwtServiceImpl.isTokenValid(verifiedToken, user2)).isFalse();
+
+        jwtServiceImpl.tokenExpiration = 0; // update expiration time
+        VerifiedToken expiredToken = jwtServiceImpl.verifyToken(
+                jwtServiceImpl.generateToken(user)
+        );
+
+        assertThat(jwtServiceImpl.isTokenValid(expiredToken, user)).isFalse();
+    }
+
+    @Test
+    public void verifyToken_withoutIdentityClaims() throws Exception {
+        // given
+        User user = User.builder()
+                .username("test")
+                .email("test@mail.com")
+                .password("secret")
+                .build();
+
+        String token = jwtServiceImpl.generateToken(user);
+
+        // when
+        VerifiedToken verifiedToken = jwtServiceImpl.verifyToken(token);
+
+        // then
+        assertThat(verifiedToken.username()).isEqualTo("test");
+        assertThat(verifiedToken.userId()).isNull();
+        assertThat(verifiedToken.role()).isNull();
+        assertThat(verifiedToken.hasIdentityClaims()).isFalse();
+    }
+
 }
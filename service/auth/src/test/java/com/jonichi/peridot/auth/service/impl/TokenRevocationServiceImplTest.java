@@ -0,0 +1,61 @@
+package com.jonichi.peridot.auth.service.impl;
+
+import java.time.Instant;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class TokenRevocationServiceImplTest {
+
+    private TokenRevocationServiceImpl tokenRevocationServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationServiceImpl = new TokenRevocationServiceImpl();
+    }
+
+    @Test
+    public void isRevoked_withoutRevocation_shouldReturnFalse() throws Exception {
+        // given
+        Instant issuedAt = Instant.now();
+
+        // then
+        assertThat(tokenRevocationServiceImpl.isRevoked(1, issuedAt)).isFalse();
+        assertThat(tokenRevocationServiceImpl.isRevoked(null, issuedAt)).isFalse();
+    }
+
+    @Test
+    public void isRevoked_shouldRejectTokensIssuedBeforeRevocation() throws Exception {
+        // given
+        Instant now = Instant.parse("2025-01-01T10:00:00.500Z");
+
+        // when
+        tokenRevocationServiceImpl.revokeTokensIssuedBefore(1, now);
+
+        // then
+        assertThat(tokenRevocationServiceImpl
+                .isRevoked(1, now.minusSeconds(60))).isTrue();
+        assertThat(tokenRevocationServiceImpl
+                .isRevoked(1, Instant.parse("2025-01-01T10:00:00Z"))).isTrue();
+        assertThat(tokenRevocationServiceImpl
+                .isRevoked(1, now.plusSeconds(1))).isFalse();
+        assertThat(tokenRevocationServiceImpl
+                .isRevoked(2, now.minusSeconds(60))).isFalse();
+    }
+
+    @Test
+    public void revokeTokensIssuedBefore_shouldKeepLatestInstant() throws Exception {
+        // given
+        Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+        // when
+        tokenRevocationServiceImpl.revokeTokensIssuedBefore(1, now);
+        tokenRevocationServiceImpl.revokeTokensIssuedBefore(1, now.minusSeconds(3600));
+
+        // then
+        assertThat(tokenRevocationServiceImpl
+                .isRevoked(1, now.minusSeconds(60))).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jonichi.peridot.auth.service.impl;
+
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class VerifiedTokenCacheImplTest {
+
+    private MeterRegistry meterRegistry;
+    private VerifiedTokenCacheImpl verifiedTokenCacheImpl;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCacheImpl = new VerifiedTokenCacheImpl(
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class)
+        );
+        verifiedTokenCacheImpl.enabled = true;
+        verifiedTokenCacheImpl.maximumSize = 100;
+        verifications = new AtomicInteger();
+    }
+
+    private Function<String, VerifiedToken> verifier(long expiresInMillis) {
+        return token -> {
+            verifications.incrementAndGet();
+            return new VerifiedToken(
+                    token,
+                    1,
+                    Role.USER_ROLE_ACCOUNT,
+                    Instant.now(),
+                    Instant.now().plusMillis(expiresInMillis)
+            );
+        };
+    }
+
+    @Test
+    public void get_shouldVerifyTokenOnce() throws Exception {
+        // given
+        verifiedTokenCacheImpl.init();
+
+        // when
+        VerifiedToken first = verifiedTokenCacheImpl.get("token", verifier(60_000));
+        VerifiedToken second = verifiedTokenCacheImpl.get("token", verifier(60_000));
+        verifiedTokenCacheImpl.get("other", verifier(60_000));
+
+        // then
+        assertThat(second).isEqualTo(first);
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_withExpiredToken_shouldNotReuseEntry() throws Exception {
+        // given
+        verifiedTokenCacheImpl.init();
+
+        // when
+        verifiedTokenCacheImpl.get("token", verifier(-1_000));
+        verifiedTokenCacheImpl.get("token", verifier(-1_000));
+
+        // then
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_withDisabledCache_shouldAlwaysVerify() throws Exception {
+        // given
+        verifiedTokenCacheImpl.enabled = false;
+        verifiedTokenCacheImpl.init();
+
+        // when
+        verifiedTokenCacheImpl.get("token", verifier(60_000));
+        verifiedTokenCacheImpl.get("token", verifier(60_000));
+
+        // then
+        assertThat(verifications.get()).isEqualTo(2);
+        assertThat(meterRegistry.find("cache.gets").meters().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void get_shouldRecordHitsAndMisses() throws Exception {
+        // given
+        verifiedTokenCacheImpl.init();
+
+        // when
+        verifiedTokenCacheImpl.get("token", verifier(60_000));
+        verifiedTokenCacheImpl.get("token", verifier(60_000));
+
+        // then
+        double hits = meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedTokenCacheImpl.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+        double misses = meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedTokenCacheImpl.CACHE_NAME)
+                .tag("result", "miss")
+                .functionCounter()
+                .count();
+
+        assertThat(hits).isEqualTo(1.0);
+        assertThat(misses).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.jonichi.peridot.budget.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables the scheduled tasks of the budget service.
+ *
+ * <p>The only scheduled task is the verification of the allocated totals of the budgets,
+ * see {@link com.jonichi.peridot.budget.service.BudgetAllocationVerifier}.</p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -7,6 +7,7 @@ import com.jonichi.peridot.budget.service.BudgetService;
 import com.jonichi.peridot.common.dto.ApiResponse;
 import com.jonichi.peridot.common.dto.SuccessResponse;
 import com.jonichi.peridot.common.util.DateUtil;
+import com.jonichi.peridot.common.util.EntityTagUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * REST controller for managing budgets.
@@ -49,7 +51,6 @@ public class BudgetController {
     public ResponseEntity<ApiResponse<BudgetResponseDTO>> createBudget(
             @RequestBody @Valid CreateUpdateBudgetDTO createUpdateBudgetDTO
     ) {
-        logger.info("Start - Controller - createBudget");
         logger.debug(
                 "Request: amount={}",
                 createUpdateBudgetDTO.amount()
@@ -66,7 +67,6 @@ public class BudgetController {
                 .data(budgetResponseDTO)
                 .build();
 
-        logger.info("End - Controller - createBudget");
         return ResponseEntity.status(status).body(response);
     }
 
@@ -77,12 +77,16 @@ public class BudgetController {
      * {@link BudgetDataDTO}. The current period is determined based on the system date, and the
      * budget is fetched using the {@link BudgetService} service layer.</p>
      *
+     * <p>The response has a strong ETag derived from the version of the budget. When the
+     * request has an {@code If-None-Match} header matching it, a 304 (Not Modified) response
+     * without body is returned instead.</p>
+     *
+     * @param webRequest the current request, used to evaluate its {@code If-None-Match} header.
      * @return a {@link ResponseEntity} containing the status and the current budget data wrapped
-     *     in an {@link ApiResponse} object.
+     *     in an {@link ApiResponse} object, or {@code null} when the budget was not modified.
      */
     @GetMapping("/current")
-    public ResponseEntity<ApiResponse<BudgetDataDTO>> getCurrentBudget() {
-        logger.info("Start - Controller - getCurrentBudget");
+    public ResponseEntity<ApiResponse<BudgetDataDTO>> getCurrentBudget(WebRequest webRequest) {
         logger.debug(
                 "Current period = {}",
                 DateUtil.getCurrentPeriod()
@@ -90,6 +94,14 @@ public class BudgetController {
 
         BudgetDataDTO budgetDataDTO = budgetService.getCurrentBudget();
 
+        String entityTag = EntityTagUtil.fromVersion(
+                budgetDataDTO.budgetId(),
+                budgetDataDTO.version()
+        );
+        if (webRequest.checkNotModified(entityTag)) {
+            return null;
+        }
+
         HttpStatus status = HttpStatus.OK;
         ApiResponse<BudgetDataDTO> response = SuccessResponse.<BudgetDataDTO>builder()
                 .code(status.value())
@@ -98,8 +110,7 @@ public class BudgetController {
                 .build();
 
 
-        logger.info("End - Controller - getCurrentBudget");
-        return ResponseEntity.status(status).body(response);
+        return ResponseEntity.status(status).eTag(entityTag).body(response);
     }
 
     /**
@@ -116,7 +127,6 @@ public class BudgetController {
     public ResponseEntity<ApiResponse<BudgetResponseDTO>> updateCurrentBudget(
             @RequestBody @Valid CreateUpdateBudgetDTO createUpdateBudgetDTO
     ) {
-        logger.info("Start - Controller - updateCurrentBudget");
         logger.debug(
                 "Request: new amount={}",
                 createUpdateBudgetDTO.amount()
@@ -133,7 +143,6 @@ public class BudgetController {
                 .data(budgetResponseDTO)
                 .build();
 
-        logger.info("End - Controller - updateCurrentBudget");
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
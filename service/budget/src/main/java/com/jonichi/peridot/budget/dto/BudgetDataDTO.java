@@ -1,5 +1,6 @@
 package com.jonichi.peridot.budget.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.jonichi.peridot.budget.model.BudgetStatus;
 import java.math.BigDecimal;
@@ -9,18 +10,25 @@ import lombok.Builder;
 /**
  * Data transfer object (DTO) representing budget data for a specific period.
  *
- * <p>This DTO is used to transfer budget information, including the budget period, amount, and
- * status.</p>
+ * <p>This DTO is used to transfer budget information, including the budget period, amount,
+ * allocated total, and status. The budget id and version are not serialized; they identify
+ * the state of the budget for conditional requests.</p>
  *
  * @param period the budget period, represented as a {@link LocalDate}
  * @param amount the amount allocated for the budget, represented as a {@link BigDecimal}
+ * @param allocatedTotal the total amount allocated to the envelopes of the budget
  * @param status the current status of the budget, represented as a {@link BudgetStatus}
+ * @param budgetId the id of the budget
+ * @param version the version of the budget
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Builder
 public record BudgetDataDTO(
         LocalDate period,
         BigDecimal amount,
-        BudgetStatus status
+        BigDecimal allocatedTotal,
+        BudgetStatus status,
+        @JsonIgnore Integer budgetId,
+        @JsonIgnore Long version
 ) {
 }
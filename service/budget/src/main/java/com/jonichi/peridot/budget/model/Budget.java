@@ -11,6 +11,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,6 +27,15 @@ import org.hibernate.annotations.CreationTimestamp;
  * <p>The {@code Budget} entity stores information about a user's budget,
  * including its amount, status, and associated metadata.</p>
  *
+ * <p>The allocated total is the sum of the amounts of the budget envelopes of the budget. It
+ * is only written by the queries of {@code BudgetRepository}, which add the change of each
+ * allocation to it, so it is never updated from the entity.</p>
+ *
+ * <p>The version is incremented by every write to the budget or to its envelopes. It
+ * identifies the state of the budget and its envelopes for conditional requests, and is the
+ * optimistic lock of the entity: the queries that write the budget increment it as well, so
+ * an entity read before one of them can no longer be written.</p>
+ *
  */
 @Data
 @Builder
@@ -42,7 +52,7 @@ public class Budget {
     @SequenceGenerator(
             name = "budget_sequence",
             sequenceName = "budget_sequence",
-            allocationSize = 1
+            allocationSize = 50
     )
     private Integer id;
 
@@ -52,6 +62,14 @@ public class Budget {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    @Builder.Default
+    @Column(name = "allocated_total", nullable = false, updatable = false)
+    private BigDecimal allocatedTotal = BigDecimal.ZERO;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @JsonFormat(pattern = "yyyy-MM-dd")
     @Column(nullable = false, updatable = false)
     private LocalDate period;
@@ -0,0 +1,41 @@
+package com.jonichi.peridot.budget.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of the parts of a {@link Budget} that are read on most requests.
+ *
+ * @param budgetId the id of the budget
+ * @param period the period of the budget
+ * @param amount the amount of the budget
+ * @param allocatedTotal the total amount allocated to the envelopes of the budget
+ * @param status the status of the budget
+ * @param version the version of the budget
+ */
+public record CurrentBudget(
+        Integer budgetId,
+        LocalDate period,
+        BigDecimal amount,
+        BigDecimal allocatedTotal,
+        BudgetStatus status,
+        Long version
+) {
+
+    /**
+     * Creates a snapshot of the given budget.
+     *
+     * @param budget the budget
+     * @return the snapshot of the budget
+     */
+    public static CurrentBudget from(Budget budget) {
+        return new CurrentBudget(
+                budget.getId(),
+                budget.getPeriod(),
+                budget.getAmount(),
+                budget.getAllocatedTotal(),
+                budget.getStatus(),
+                budget.getVersion()
+        );
+    }
+}
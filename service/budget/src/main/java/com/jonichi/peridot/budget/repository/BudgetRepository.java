@@ -1,7 +1,6 @@
 package com.jonichi.peridot.budget.repository;
 
 import com.jonichi.peridot.budget.model.Budget;
-import com.jonichi.peridot.budget.model.BudgetStatus;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,11 +16,12 @@ import org.springframework.stereotype.Repository;
  *
  * <p>This interface extends {@link JpaRepository}, providing built-in methods
  * for standard CRUD operations on the {@code Budget} entity, such as saving, finding,
- * updating, and deleting records.</p>
+ * updating, and deleting records. Modifying queries that return the affected row are provided
+ * by the {@link BudgetRepositoryCustom} fragment.</p>
  *
  */
 @Repository
-public interface BudgetRepository extends JpaRepository<Budget, Integer> {
+public interface BudgetRepository extends JpaRepository<Budget, Integer>, BudgetRepositoryCustom {
 
     /**
      * Retrieves the current budget for a given user and period.
@@ -47,50 +47,57 @@ public interface BudgetRepository extends JpaRepository<Budget, Integer> {
     );
 
     /**
-     * Updates the budget amount for a specific user and period.
+     * Adds an amount to the allocated total of a budget and updates its status.
      *
-     * <p>This method executes a JPQL query to update the `amount` and `updatedDate` fields
-     * of the `Budget` entity for the given `userId` and `period`.
+     * <p>The status is derived from the new allocated total in the same statement:
+     * {@code BUDGET_STATUS_COMPLETE} when it equals the budget amount,
+     * {@code BUDGET_STATUS_INVALID} when it exceeds the amount, and
+     * {@code BUDGET_STATUS_INCOMPLETE} otherwise. The update takes a lock on the budget row,
+     * so concurrent allocations to the same budget are applied one after the other. The version
+     * of the budget is incremented even when the delta is zero, because the envelopes of the
+     * budget were still written.</p>
      *
-     * @param userId the ID of the user whose budget needs to be updated.
-     * @param period the period (e.g., month or specific date) for which the budget is being
-     *     updated.
-     * @param amount the new budget amount to set.
+     * @param budgetId the unique identifier of the budget to update.
+     * @param delta the amount to add to the allocated total, negative to subtract.
+     * @return the number of rows affected by the update operation.
      */
     @Transactional
     @Modifying
-    @Query("""
-            UPDATE Budget b
-            SET b.amount = :amount, b.updatedDate = CURRENT_TIMESTAMP
-            WHERE b.userId = :userId
-                AND b.period = :period
-            """)
-    void updateCurrentBudget(
-            @Param("userId") Integer userId,
-            @Param("period") LocalDate period,
-            @Param("amount") BigDecimal amount
+    @Query(
+            nativeQuery = true,
+            value = """
+            UPDATE budget
+            SET
+                allocated_total = allocated_total + :delta,
+                status = CASE
+                    WHEN allocated_total + :delta = amount THEN 'BUDGET_STATUS_COMPLETE'
+                    WHEN allocated_total + :delta > amount THEN 'BUDGET_STATUS_INVALID'
+                    ELSE 'BUDGET_STATUS_INCOMPLETE'
+                END,
+                version = version + 1,
+                updated_date = CURRENT_TIMESTAMP
+            WHERE id = :budgetId
+            """
+    )
+    Integer updateAllocatedTotal(
+            @Param("budgetId") Integer budgetId,
+            @Param("delta") BigDecimal delta
     );
 
     /**
-     * Updates the status of a budget.
+     * Retrieves the version of a budget.
      *
-     * <p>This method modifies the status of a budget in the database, updating the
-     * {@code status} field and setting the {@code updatedDate} to the current timestamp.</p>
+     * <p>The version is incremented by every write to the budget or to its envelopes, so it
+     * identifies the state of both without reading them.</p>
      *
-     * @param budgetId the unique identifier of the budget to update.
-     * @param status the new status to set for the budget.
+     * @param budgetId the unique identifier of the budget.
+     * @return an {@link Optional} containing the version of the budget, or an empty
+     *     {@link Optional} if the budget does not exist.
      */
-    @Transactional
-    @Modifying
-    @Query(
-            """
-            UPDATE Budget b
-            SET b.status = :status, b.updatedDate = CURRENT_TIMESTAMP
+    @Query("""
+            SELECT b.version
+            FROM Budget b
             WHERE b.id = :budgetId
-            """
-    )
-    void updateBudgetStatus(
-            @Param("budgetId") Integer budgetId,
-            @Param("status") BudgetStatus status
-    );
+            """)
+    Optional<Long> findVersionById(@Param("budgetId") Integer budgetId);
 }
@@ -0,0 +1,80 @@
+package com.jonichi.peridot.budget.repository;
+
+import com.jonichi.peridot.budget.model.Budget;
+import com.jonichi.peridot.budget.model.CurrentBudget;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for {@link Budget} operations that are not expressible as
+ * derived or JPQL queries.
+ *
+ * <p>The modifying queries of this fragment return the rows they affected, so that a write
+ * and the read of its result are a single atomic round trip.</p>
+ */
+public interface BudgetRepositoryCustom {
+
+    /**
+     * Updates the budget amount for a specific user and period and returns the updated budget.
+     *
+     * <p>The status of the budget is derived again from its allocated total and the new
+     * amount.</p>
+     *
+     * @param userId the ID of the user whose budget needs to be updated
+     * @param period the period of the budget to update
+     * @param amount the new budget amount to set
+     * @return an {@link Optional} containing the updated budget, or an empty {@link Optional}
+     *     if the user has no budget for the period
+     */
+    Optional<CurrentBudget> updateCurrentBudget(
+            Integer userId,
+            LocalDate period,
+            BigDecimal amount
+    );
+
+    /**
+     * Returns the ids of the budgets whose allocated total differs from the sum of the amounts
+     * of their budget envelopes.
+     *
+     * <p>The result may include budgets whose envelopes are being written by a transaction
+     * that has not committed yet. Use {@link #repairAllocatedTotal(Integer)} to check and
+     * repair each of them.</p>
+     *
+     * <p>Every budget envelope is summed, so the cost of this query grows with the total number
+     * of budget envelopes.</p>
+     *
+     * @return the ids of the budgets whose allocated total has drifted
+     */
+    List<Integer> findDriftedBudgetIds();
+
+    /**
+     * Returns the ids of the budgets updated since the given instant whose allocated total
+     * differs from the sum of the amounts of their budget envelopes.
+     *
+     * <p>Every write of an allocation through the service updates the budget in the same
+     * statement, so this finds the drift it causes while only summing the budget envelopes of
+     * the recently updated budgets. Writes that bypass the service are only found by
+     * {@link #findDriftedBudgetIds()}.</p>
+     *
+     * @param changedSince the instant since which the budgets were updated
+     * @return the ids of the updated budgets whose allocated total has drifted
+     */
+    List<Integer> findDriftedBudgetIds(Instant changedSince);
+
+    /**
+     * Sets the allocated total of a budget to the sum of the amounts of its budget envelopes
+     * if they differ, and derives its status again.
+     *
+     * <p>The budget row is locked before the envelopes are summed, so that an allocation
+     * committed concurrently is either included in the sum or applied on top of the repaired
+     * total. Must be called inside a transaction.</p>
+     *
+     * @param budgetId the id of the budget to repair
+     * @return an {@link Optional} containing the allocated total the budget had before the
+     *     repair, or an empty {@link Optional} if the budget had not drifted
+     */
+    Optional<BigDecimal> repairAllocatedTotal(Integer budgetId);
+}
@@ -0,0 +1,146 @@
+package com.jonichi.peridot.budget.repository;
+
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.model.CurrentBudget;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+/**
+ * {@link JdbcClient} based implementation of {@link BudgetRepositoryCustom}.
+ *
+ * <p>Updates use {@code UPDATE ... RETURNING} so that the affected row is read by the same
+ * statement that modifies it. The status of a budget is always derived from its
+ * {@code allocated_total} column rather than from its budget envelopes, and every update
+ * increments its {@code version}.</p>
+ */
+@RequiredArgsConstructor
+public class BudgetRepositoryCustomImpl implements BudgetRepositoryCustom {
+
+    private static final String UPDATE_CURRENT_BUDGET = """
+            UPDATE budget
+            SET
+                amount = :amount,
+                status = CASE
+                    WHEN allocated_total = :amount THEN 'BUDGET_STATUS_COMPLETE'
+                    WHEN allocated_total > :amount THEN 'BUDGET_STATUS_INVALID'
+                    ELSE 'BUDGET_STATUS_INCOMPLETE'
+                END,
+                version = version + 1,
+                updated_date = CURRENT_TIMESTAMP
+            WHERE user_id = :userId
+                AND period = :period
+            RETURNING id, period, amount, allocated_total, status, version
+            """;
+
+    private static final String FIND_DRIFTED_BUDGET_IDS = """
+            SELECT b.id
+            FROM budget b
+            LEFT JOIN budget_envelope be ON be.budget_id = b.id
+            GROUP BY b.id
+            HAVING b.allocated_total <> COALESCE(SUM(be.amount), 0)
+            """;
+
+    private static final String FIND_CHANGED_DRIFTED_BUDGET_IDS = """
+            SELECT b.id
+            FROM budget b
+            LEFT JOIN budget_envelope be ON be.budget_id = b.id
+            WHERE b.updated_date >= :changedSince
+            GROUP BY b.id
+            HAVING b.allocated_total <> COALESCE(SUM(be.amount), 0)
+            """;
+
+    private static final String LOCK_BUDGET = """
+            SELECT id
+            FROM budget
+            WHERE id = :budgetId
+            FOR UPDATE
+            """;
+
+    private static final String REPAIR_ALLOCATED_TOTAL = """
+            UPDATE budget
+            SET
+                allocated_total = allocated.total,
+                status = CASE
+                    WHEN allocated.total = budget.amount THEN 'BUDGET_STATUS_COMPLETE'
+                    WHEN allocated.total > budget.amount THEN 'BUDGET_STATUS_INVALID'
+                    ELSE 'BUDGET_STATUS_INCOMPLETE'
+                END,
+                version = budget.version + 1,
+                updated_date = CURRENT_TIMESTAMP
+            FROM (
+                SELECT COALESCE(SUM(be.amount), 0) AS total
+                FROM budget_envelope be
+                WHERE be.budget_id = :budgetId
+            ) allocated, (
+                SELECT allocated_total
+                FROM budget
+                WHERE id = :budgetId
+            ) previous
+            WHERE budget.id = :budgetId
+                AND budget.allocated_total <> allocated.total
+            RETURNING previous.allocated_total
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    @Override
+    public Optional<CurrentBudget> updateCurrentBudget(
+            Integer userId,
+            LocalDate period,
+            BigDecimal amount
+    ) {
+        return jdbcClient.sql(UPDATE_CURRENT_BUDGET)
+                .param("userId", userId)
+                .param("period", period)
+                .param("amount", amount)
+                .query(BudgetRepositoryCustomImpl::mapCurrentBudget)
+                .optional();
+    }
+
+    @Override
+    public List<Integer> findDriftedBudgetIds() {
+        return jdbcClient.sql(FIND_DRIFTED_BUDGET_IDS)
+                .query(Integer.class)
+                .list();
+    }
+
+    @Override
+    public List<Integer> findDriftedBudgetIds(Instant changedSince) {
+        return jdbcClient.sql(FIND_CHANGED_DRIFTED_BUDGET_IDS)
+                .param("changedSince", changedSince.atOffset(ZoneOffset.UTC))
+                .query(Integer.class)
+                .list();
+    }
+
+    @Override
+    public Optional<BigDecimal> repairAllocatedTotal(Integer budgetId) {
+        jdbcClient.sql(LOCK_BUDGET)
+                .param("budgetId", budgetId)
+                .query(Integer.class)
+                .optional();
+
+        return jdbcClient.sql(REPAIR_ALLOCATED_TOTAL)
+                .param("budgetId", budgetId)
+                .query(BigDecimal.class)
+                .optional();
+    }
+
+    private static CurrentBudget mapCurrentBudget(ResultSet rs, int rowNum) throws SQLException {
+        return new CurrentBudget(
+                rs.getInt("id"),
+                rs.getObject("period", LocalDate.class),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("allocated_total"),
+                BudgetStatus.valueOf(rs.getString("status")),
+                rs.getLong("version")
+        );
+    }
+}
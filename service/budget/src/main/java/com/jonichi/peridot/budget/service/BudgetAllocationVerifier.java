@@ -0,0 +1,23 @@
+package com.jonichi.peridot.budget.service;
+
+/**
+ * Interface for verifying the allocated totals of the budgets.
+ *
+ * <p>The allocated total of a budget is maintained by adding the change of every allocation
+ * to it instead of summing the budget envelopes on every write. A write that bypasses the
+ * service, such as a manual fix in the database, makes it drift from the sum of the budget
+ * envelopes. The verifier detects such budgets and repairs them.</p>
+ */
+public interface BudgetAllocationVerifier {
+
+    /**
+     * Repairs every budget whose allocated total differs from the sum of the amounts of its
+     * budget envelopes.
+     *
+     * <p>Implementations may only check the budgets updated since the previous verification,
+     * as long as every budget is checked periodically.</p>
+     *
+     * @return the number of budgets that were repaired
+     */
+    int verifyAllocatedTotals();
+}
@@ -2,6 +2,7 @@ package com.jonichi.peridot.budget.service;
 
 import com.jonichi.peridot.common.dto.UserBudgetDTO;
 import java.math.BigDecimal;
+import java.util.Optional;
 
 /**
  * Service interface for managing the context of a user's budget.
@@ -22,13 +23,35 @@ public interface BudgetContextService {
     UserBudgetDTO getCurrentUserBudgetId();
 
     /**
-     * Updates the total expenses of a budget.
+     * Adds an amount to the total allocated to the envelopes of a budget and updates its status.
      *
-     * <p>This method updates the total expenses for a specific budget identified
-     * by its unique ID.</p>
+     * <p>Callers pass the change they made to the envelopes of the budget: the amount of a new
+     * envelope, or the difference between the new and previous amount of an updated one. The
+     * status is derived from the new allocated total by the same statement.</p>
      *
      * @param budgetId the unique identifier of the budget to update.
-     * @param totalExpenses the new total expenses to set for the budget.
+     * @param delta the change of the allocated total, negative if it decreased.
      */
-    void updateBudgetStatus(Integer budgetId, BigDecimal totalExpenses);
+    void updateAllocatedTotal(Integer budgetId, BigDecimal delta);
+
+    /**
+     * Discards the cached state of a budget that was written without
+     * {@link #updateAllocatedTotal(Integer, BigDecimal)}, such as by a statement that also
+     * writes its envelopes.
+     *
+     * @param budgetId the unique identifier of the budget that was written.
+     */
+    void invalidateBudget(Integer budgetId);
+
+    /**
+     * Retrieves the version of a budget.
+     *
+     * <p>The version is incremented by every write to the budget or to its envelopes, so an
+     * unchanged version means that neither changed.</p>
+     *
+     * @param budgetId the unique identifier of the budget.
+     * @return an {@link Optional} containing the version of the budget, or an empty
+     *     {@link Optional} if the budget does not exist.
+     */
+    Optional<Long> getBudgetVersion(Integer budgetId);
 }
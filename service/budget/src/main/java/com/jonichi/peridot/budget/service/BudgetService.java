@@ -33,15 +33,15 @@ public interface BudgetService {
      * including the amount and status of the budget.</p>
      *
      * @return a {@link BudgetDataDTO} containing the current budget's period,
-     *         amount, and status.
+     *         amount, status, and version.
      */
     BudgetDataDTO getCurrentBudget();
 
     /**
      * Updates the current budget amount for the authenticated user.
      *
-     * <p>This method retrieves the current user's ID and period, updates the budget amount
-     * in a transactional context, and fetches the updated budget details to return as a DTO.
+     * <p>This method retrieves the current user's ID and period, and updates the budget amount
+     * in a transactional context with a single statement that also returns the updated budget.
      * If the budget does not exist for the given user and period, an exception is thrown.
      *
      * @param amount the new budget amount to set.
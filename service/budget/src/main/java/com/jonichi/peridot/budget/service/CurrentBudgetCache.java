@@ -0,0 +1,57 @@
+package com.jonichi.peridot.budget.service;
+
+import com.jonichi.peridot.budget.model.CurrentBudget;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Interface for caching the budget of a user for a period.
+ *
+ * <p>Almost every budget and envelope request looks up the budget of the authenticated user
+ * for the current period, while the budget itself rarely changes within a month. The id of
+ * the budget never changes for a user and period, so it is cached separately from the amount
+ * and status, which are invalidated whenever the budget is written.</p>
+ */
+public interface CurrentBudgetCache {
+
+    /**
+     * Returns the budget of the user for the period, loading it only if it is not cached.
+     *
+     * @param userId the id of the user
+     * @param period the period of the budget
+     * @param loader the function that loads the budget when it is not cached
+     * @return the budget, or an empty {@link Optional} if the user has no budget for the period
+     */
+    Optional<CurrentBudget> get(
+            Integer userId,
+            LocalDate period,
+            Supplier<Optional<CurrentBudget>> loader
+    );
+
+    /**
+     * Returns the id of the budget of the user for the period, loading the budget only if the
+     * id is not cached.
+     *
+     * @param userId the id of the user
+     * @param period the period of the budget
+     * @param loader the function that loads the budget when its id is not cached
+     * @return the id of the budget, or an empty {@link Optional} if the user has no budget for
+     *     the period
+     */
+    Optional<Integer> getBudgetId(
+            Integer userId,
+            LocalDate period,
+            Supplier<Optional<CurrentBudget>> loader
+    );
+
+    /**
+     * Invalidates the cached amount and status of a budget.
+     *
+     * <p>When called inside a transaction, the entry is invalidated after the transaction
+     * commits, so that no other request can cache the state from before the commit.</p>
+     *
+     * @param budgetId the id of the budget that was written
+     */
+    void invalidate(Integer budgetId);
+}
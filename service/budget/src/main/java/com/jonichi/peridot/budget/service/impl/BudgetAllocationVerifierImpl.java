@@ -0,0 +1,138 @@
+package com.jonichi.peridot.budget.service.impl;
+
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.budget.service.BudgetAllocationVerifier;
+import com.jonichi.peridot.budget.service.CurrentBudgetCache;
+import com.jonichi.peridot.common.util.TransactionalHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the {@link BudgetAllocationVerifier} interface.
+ *
+ * <p>The drifted budgets are found with a single aggregate query and each of them is then
+ * repaired in its own transaction, which locks the budget before summing its envelopes.
+ * A budget reported only because an allocation was in flight is therefore left unchanged.
+ * Every repair is logged and counted in the {@code budget.allocation.drift} counter when a
+ * {@link MeterRegistry} is available.</p>
+ *
+ * <p>Summing every budget envelope grows with the number of envelopes, so only the first
+ * verification and one verification a day check every budget. The others only check the
+ * budgets updated since the previous verification started, minus a margin covering the
+ * transactions that were in flight and the clock difference with the database.</p>
+ *
+ * <p>The verification runs every {@code budget.allocation.verifier.interval} when
+ * {@code budget.allocation.verifier.enabled} is true.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class BudgetAllocationVerifierImpl implements BudgetAllocationVerifier {
+
+    static final String DRIFT_COUNTER_NAME = "budget.allocation.drift";
+    static final Duration CHANGE_MARGIN = Duration.ofMinutes(5);
+    static final Duration FULL_VERIFICATION_INTERVAL = Duration.ofDays(1);
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(BudgetAllocationVerifierImpl.class);
+    private final BudgetRepository budgetRepository;
+    private final TransactionalHandler transactionalHandler;
+    private final CurrentBudgetCache currentBudgetCache;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${budget.allocation.verifier.enabled:false}")
+    boolean enabled;
+
+    private Counter driftCounter;
+
+    volatile Instant lastVerification;
+    volatile Instant lastFullVerification;
+
+    /**
+     * Registers the drift counter when a {@link MeterRegistry} is available.
+     */
+    @PostConstruct
+    public void init() {
+        meterRegistryProvider.ifAvailable(registry -> driftCounter = Counter
+                .builder(DRIFT_COUNTER_NAME)
+                .description("Budgets whose allocated total was repaired")
+                .register(registry));
+    }
+
+    /**
+     * Runs the verification on the configured interval if the verifier is enabled.
+     */
+    @Scheduled(
+            initialDelayString = "${budget.allocation.verifier.interval:1h}",
+            fixedDelayString = "${budget.allocation.verifier.interval:1h}"
+    )
+    public void scheduledVerification() {
+        if (enabled) {
+            verifyAllocatedTotals();
+        }
+    }
+
+    @Override
+    public int verifyAllocatedTotals() {
+        Instant start = Instant.now();
+        boolean full = lastFullVerification == null
+                || !start.isBefore(lastFullVerification.plus(FULL_VERIFICATION_INTERVAL));
+
+        List<Integer> budgetIds = full
+                ? budgetRepository.findDriftedBudgetIds()
+                : budgetRepository.findDriftedBudgetIds(lastVerification.minus(CHANGE_MARGIN));
+        int repaired = 0;
+
+        for (Integer budgetId : budgetIds) {
+            Optional<BigDecimal> previousTotal = transactionalHandler.runInTransactionSupplier(
+                    "repairAllocatedTotal",
+                    () -> repairAllocatedTotal(budgetId)
+            );
+
+            if (previousTotal.isPresent()) {
+                logger.warn(
+                        "Repaired allocated total of budget {}, was {}",
+                        budgetId,
+                        previousTotal.get()
+                );
+                repaired++;
+            }
+        }
+
+        if (driftCounter != null) {
+            driftCounter.increment(repaired);
+        }
+
+        lastVerification = start;
+        if (full) {
+            lastFullVerification = start;
+        }
+
+        logger.debug(
+                "Verified allocated totals, full={}, drifted={}, repaired={}",
+                full,
+                budgetIds.size(),
+                repaired
+        );
+        return repaired;
+    }
+
+    private Optional<BigDecimal> repairAllocatedTotal(Integer budgetId) {
+        Optional<BigDecimal> previousTotal = budgetRepository.repairAllocatedTotal(budgetId);
+        previousTotal.ifPresent(value -> currentBudgetCache.invalidate(budgetId));
+
+        return previousTotal;
+    }
+}
@@ -5,14 +5,17 @@ import com.jonichi.peridot.budget.dto.BudgetDataDTO;
 import com.jonichi.peridot.budget.dto.BudgetResponseDTO;
 import com.jonichi.peridot.budget.model.Budget;
 import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.model.CurrentBudget;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
 import com.jonichi.peridot.budget.service.BudgetService;
+import com.jonichi.peridot.budget.service.CurrentBudgetCache;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
 import com.jonichi.peridot.common.util.DateUtil;
 import com.jonichi.peridot.common.util.TransactionalHandler;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Optional;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -25,8 +28,9 @@ import org.springframework.stereotype.Service;
  *
  * <p>This service handles the creation of budgets, ensuring that the necessary data
  * is validated and persisted correctly. It relies on {@link BudgetRepository} for persistence,
- * {@link AuthContextService} for fetching user details, and {@link TransactionalHandler} for
- * transactional operations.</p>
+ * {@link AuthContextService} for fetching user details, {@link TransactionalHandler} for
+ * transactional operations, and {@link CurrentBudgetCache} for serving the current budget
+ * without querying the database on every request.</p>
  */
 @Service
 @RequiredArgsConstructor
@@ -36,24 +40,28 @@ public class BudgetServiceImpl implements BudgetService {
     private final BudgetRepository budgetRepository;
     private final AuthContextService authContextService;
     private final TransactionalHandler transactionalHandler;
+    private final CurrentBudgetCache currentBudgetCache;
 
     @Override
     public BudgetResponseDTO createBudget(BigDecimal amount) {
-        logger.info("Start - Service - createBudget");
-
         try {
             Integer userId = authContextService.getUserId();
 
-            Supplier<Budget> supplier = () -> budgetRepository.save(
-                    Budget.builder()
-                            .userId(userId)
-                            .amount(amount)
-                            .period(DateUtil.getCurrentPeriod())
-                            .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
-                            .build()
-            );
+            Supplier<Budget> supplier = () -> {
+                Budget budget = budgetRepository.save(
+                        Budget.builder()
+                                .userId(userId)
+                                .amount(amount)
+                                .period(DateUtil.getCurrentPeriod())
+                                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                                .build()
+                );
+                currentBudgetCache.invalidate(budget.getId());
+
+                return budget;
+            };
 
-            Budget budget = transactionalHandler.runInTransactionSupplier(supplier);
+            Budget budget = transactionalHandler.runInTransactionSupplier("createBudget", supplier);
 
             return BudgetResponseDTO.builder()
                     .budgetId(budget.getId())
@@ -62,52 +70,57 @@ public class BudgetServiceImpl implements BudgetService {
             logger.error("DataIntegrityViolationException: {}", e.getMessage());
 
             throw new PeridotDuplicateException("Budget already exists");
-        } finally {
-            logger.info("End - Service - createBudget");
         }
-
     }
 
     @Override
     public BudgetDataDTO getCurrentBudget() {
-        logger.info("Start - Service - getCurrentBudget");
-
         Integer userId = authContextService.getUserId();
+        LocalDate currentPeriod = DateUtil.getCurrentPeriod();
 
-        Budget budget = budgetRepository
-                .getCurrentBudget(userId, DateUtil.getCurrentPeriod())
+        CurrentBudget budget = currentBudgetCache
+                .get(userId, currentPeriod, () -> loadCurrentBudget(userId, currentPeriod))
                 .orElseThrow(() -> new PeridotNotFoundException("Budget does not exist"));
 
-        logger.info("End - Service - getCurrentBudget");
         return BudgetDataDTO.builder()
-                .period(budget.getPeriod())
-                .amount(budget.getAmount())
-                .status(budget.getStatus())
+                .period(budget.period())
+                .amount(budget.amount())
+                .allocatedTotal(budget.allocatedTotal())
+                .status(budget.status())
+                .budgetId(budget.budgetId())
+                .version(budget.version())
                 .build();
     }
 
     @Override
     public BudgetResponseDTO updateCurrentBudget(BigDecimal amount) {
-        logger.info("Start - Service - updateCurrentBudget");
-
         Integer userId = authContextService.getUserId();
         LocalDate currentPeriod = DateUtil.getCurrentPeriod();
 
-        transactionalHandler.runInTransaction(() -> {
-            budgetRepository.updateCurrentBudget(
+        Supplier<Optional<CurrentBudget>> supplier = () -> {
+            Optional<CurrentBudget> budget = budgetRepository.updateCurrentBudget(
                     userId,
                     currentPeriod,
                     amount
             );
-        });
+            budget.ifPresent(value -> currentBudgetCache.invalidate(value.budgetId()));
+
+            return budget;
+        };
 
-        Budget budget = budgetRepository
-                .getCurrentBudget(userId, currentPeriod)
+        CurrentBudget budget = transactionalHandler
+                .runInTransactionSupplier("updateCurrentBudget", supplier)
                 .orElseThrow(() -> new PeridotNotFoundException("Budget does not exist"));
 
-        logger.info("End - Service - updateCurrentBudget");
         return BudgetResponseDTO.builder()
-                .budgetId(budget.getId())
+                .budgetId(budget.budgetId())
                 .build();
     }
+
+    private Optional<CurrentBudget> loadCurrentBudget(Integer userId, LocalDate period) {
+        return transactionalHandler.runInReadOnlyTransactionSupplier(
+                "getCurrentBudget",
+                () -> budgetRepository.getCurrentBudget(userId, period).map(CurrentBudget::from)
+        );
+    }
 }
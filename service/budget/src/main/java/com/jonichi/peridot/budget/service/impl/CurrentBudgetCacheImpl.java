@@ -0,0 +1,177 @@
+package com.jonichi.peridot.budget.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jonichi.peridot.budget.model.CurrentBudget;
+import com.jonichi.peridot.budget.service.CurrentBudgetCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caffeine-backed implementation of the {@link CurrentBudgetCache} interface.
+ *
+ * <p>Two caches are kept: the budget id per user and period, which is never invalidated
+ * because it cannot change, and the budget itself per budget id. A budget is only cached
+ * through a load of its own entry, so an invalidation that runs while the budget is being
+ * loaded removes the pending entry and its result is not cached. Both caches are bounded by
+ * {@code budget.cache.maximum-size} and entries expire after {@code budget.cache.time-to-live},
+ * which also bounds how long another instance of the application can serve a stale budget.
+ * Hit, miss and eviction counts are published to the {@link MeterRegistry} when one is
+ * available.</p>
+ *
+ * <p>The loads run on the calling thread, inside its transaction, but outside of the cache:
+ * the caches are {@link AsyncCache}s that only hold a pending future while the first caller
+ * loads, and concurrent callers for the same key wait on that future. A load run inside
+ * Caffeine's own computation would hold the monitor of a map bin for the whole query, which
+ * pins a virtual thread to its carrier.</p>
+ *
+ * <p>When {@code budget.cache.enabled} is false, every lookup is loaded.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class CurrentBudgetCacheImpl implements CurrentBudgetCache {
+
+    static final String BUDGET_CACHE_NAME = "budget.current";
+    static final String BUDGET_ID_CACHE_NAME = "budget.current-id";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${budget.cache.enabled:false}")
+    boolean enabled;
+
+    @Value("${budget.cache.maximum-size:10000}")
+    long maximumSize;
+
+    @Value("${budget.cache.time-to-live:10m}")
+    Duration timeToLive;
+
+    private AsyncCache<BudgetKey, Integer> budgetIds;
+    private AsyncCache<Integer, CurrentBudget> budgets;
+
+    /**
+     * Builds the caches and binds their metrics when the cache is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        budgetIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+        budgets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+
+        meterRegistryProvider.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, budgetIds, BUDGET_ID_CACHE_NAME);
+            CaffeineCacheMetrics.monitor(registry, budgets, BUDGET_CACHE_NAME);
+        });
+    }
+
+    @Override
+    public Optional<CurrentBudget> get(
+            Integer userId,
+            LocalDate period,
+            Supplier<Optional<CurrentBudget>> loader
+    ) {
+        if (budgets == null) {
+            return loader.get();
+        }
+
+        BudgetKey budgetKey = new BudgetKey(userId, period);
+        Integer budgetId = budgetIds.synchronous().getIfPresent(budgetKey);
+        if (budgetId == null) {
+            Optional<CurrentBudget> budget = loader.get();
+            budget.ifPresent(value -> budgetIds.synchronous().put(budgetKey, value.budgetId()));
+            return budget;
+        }
+
+        return Optional.ofNullable(load(budgets, budgetId, () -> loader.get().orElse(null)));
+    }
+
+    @Override
+    public Optional<Integer> getBudgetId(
+            Integer userId,
+            LocalDate period,
+            Supplier<Optional<CurrentBudget>> loader
+    ) {
+        if (budgetIds == null) {
+            return loader.get().map(CurrentBudget::budgetId);
+        }
+
+        return Optional.ofNullable(load(
+                budgetIds,
+                new BudgetKey(userId, period),
+                () -> loader.get().map(CurrentBudget::budgetId).orElse(null)
+        ));
+    }
+
+    @Override
+    public void invalidate(Integer budgetId) {
+        if (budgets == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            budgets.synchronous().invalidate(budgetId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                budgets.synchronous().invalidate(budgetId);
+            }
+        });
+    }
+
+    /**
+     * Returns the cached value of the key, or loads it on the calling thread if no other caller
+     * is already loading it. A {@code null} value is returned without being cached, and an
+     * exception thrown by the loader is rethrown to every caller waiting for it.
+     */
+    private static <K, V> V load(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(key, (ignored, executor) -> loading);
+
+        if (cached == loading) {
+            try {
+                loading.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record BudgetKey(Integer userId, LocalDate period) {
+    }
+}
@@ -19,8 +19,12 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles("test")
@@ -75,15 +79,23 @@ public class BudgetControllerTest {
                 .period(currentPeriod)
                 .amount(amount)
                 .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .budgetId(1)
+                .version(3L)
                 .build();
+        ServletWebRequest webRequest = new ServletWebRequest(
+                new MockHttpServletRequest("GET", "/api/budgets/current"),
+                new MockHttpServletResponse()
+        );
 
         // when
         when(budgetService.getCurrentBudget()).thenReturn(budgetDataDTO);
-        ResponseEntity<ApiResponse<BudgetDataDTO>> response = budgetController.getCurrentBudget();
+        ResponseEntity<ApiResponse<BudgetDataDTO>> response = budgetController
+                .getCurrentBudget(webRequest);
 
         // then
         verify(budgetService, times(1)).getCurrentBudget();
         assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1-3\"");
         assertThat(Objects.requireNonNull(response.getBody()).isSuccess()).isTrue();
         assertThat(response.getBody().getData()).isEqualTo(budgetDataDTO);
         assertThat(response.getBody().getCode()).isEqualTo(200);
@@ -92,6 +104,31 @@ public class BudgetControllerTest {
         assertThat(response.getBody().getTimestamp()).isNotNull();
     }
 
+    @Test
+    public void getCurrentBudget_withMatchingETag_shouldReturnNotModified() throws Exception {
+        // given
+        BudgetDataDTO budgetDataDTO = BudgetDataDTO.builder()
+                .period(DateUtil.getCurrentPeriod())
+                .amount(new BigDecimal("1000"))
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .budgetId(1)
+                .version(3L)
+                .build();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/budgets/current");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-3\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        // when
+        when(budgetService.getCurrentBudget()).thenReturn(budgetDataDTO);
+        ResponseEntity<ApiResponse<BudgetDataDTO>> response = budgetController
+                .getCurrentBudget(new ServletWebRequest(request, servletResponse));
+
+        // then
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(304);
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1-3\"");
+    }
+
     @Test
     public void updateCurrentBudget_shouldReturnCorrectResponse() throws Exception {
         // given
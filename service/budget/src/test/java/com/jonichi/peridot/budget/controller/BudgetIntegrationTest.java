@@ -9,6 +9,7 @@ import com.jonichi.peridot.budget.dto.CreateUpdateBudgetDTO;
 import com.jonichi.peridot.budget.model.BudgetStatus;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
 import com.jonichi.peridot.budget.service.BudgetService;
+import com.jonichi.peridot.common.exception.PeridotNotFoundException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import org.junit.jupiter.api.Test;
@@ -18,6 +19,7 @@ import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDoc
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessRequest;
@@ -30,6 +32,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -158,8 +162,11 @@ public class BudgetIntegrationTest {
 
         BudgetDataDTO budgetDataDTO = BudgetDataDTO.builder()
                 .amount(new BigDecimal("5000.00"))
+                .allocatedTotal(new BigDecimal("3500.00"))
                 .period(LocalDate.of(2024, 12, 1))
                 .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .budgetId(1)
+                .version(3L)
                 .build();
 
         when(budgetService.getCurrentBudget()).thenReturn(budgetDataDTO);
@@ -167,6 +174,7 @@ public class BudgetIntegrationTest {
         mockMvc.perform(get("/api/budgets/current"))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
                 .andDo(
                         document("getCurrentBudget",
                                 preprocessRequest(prettyPrint()),
@@ -175,6 +183,35 @@ public class BudgetIntegrationTest {
                 );
     }
 
+    @Test
+    @WithMockUser
+    public void getCurrentBudget_withMatchingETag_shouldReturn304NotModified() throws Exception {
+
+        BudgetDataDTO budgetDataDTO = BudgetDataDTO.builder()
+                .amount(new BigDecimal("5000.00"))
+                .allocatedTotal(new BigDecimal("3500.00"))
+                .period(LocalDate.of(2024, 12, 1))
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .budgetId(1)
+                .version(3L)
+                .build();
+
+        when(budgetService.getCurrentBudget()).thenReturn(budgetDataDTO);
+
+        mockMvc.perform(get("/api/budgets/current")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(content().string(""))
+                .andDo(
+                        document("getCurrentBudgetNotModified",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+    }
+
     @Test
     @WithMockUser
     public void updateCurrentBudget_shouldReturn200Ok() throws Exception {
@@ -201,4 +238,22 @@ public class BudgetIntegrationTest {
                 );
     }
 
+    @Test
+    @WithMockUser
+    public void updateCurrentBudget_withNoBudget_shouldReturn404NotFound() throws Exception {
+        BigDecimal amount = new BigDecimal("5000.00");
+        CreateUpdateBudgetDTO createUpdateBudgetDTO = CreateUpdateBudgetDTO.builder()
+                .amount(amount)
+                .build();
+
+        when(budgetService.updateCurrentBudget(amount))
+                .thenThrow(new PeridotNotFoundException("Budget does not exist"));
+
+        mockMvc.perform(put("/api/budgets/current")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createUpdateBudgetDTO)))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
 }
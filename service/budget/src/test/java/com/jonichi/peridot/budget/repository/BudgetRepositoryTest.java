@@ -2,6 +2,7 @@ package com.jonichi.peridot.budget.repository;
 
 import com.jonichi.peridot.budget.model.Budget;
 import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.model.CurrentBudget;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.io.File;
@@ -9,7 +10,10 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import liquibase.Liquibase;
 import liquibase.database.Database;
@@ -103,9 +107,34 @@ public class BudgetRepositoryTest {
 
     @AfterEach
     public void cleanUp() {
+        entityManager.createNativeQuery("DELETE FROM budget_envelope").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM envelope").executeUpdate();
         budgetRepository.deleteAll();
     }
 
+    private void allocate(Integer budgetId, String name, BigDecimal amount) {
+        entityManager.createNativeQuery("""
+                INSERT INTO envelope (id, user_id, name, status)
+                VALUES (nextval('envelope_sequence'), 1, :name, 'SYSTEM_STATUS_ACTIVE')
+                """)
+                .setParameter("name", name)
+                .executeUpdate();
+        entityManager.createNativeQuery("""
+                INSERT INTO budget_envelope (id, budget_id, envelope_id, amount, status)
+                VALUES (nextval('budget_envelope_sequence'), :budgetId,
+                        currval('envelope_sequence'), :amount, 'ENVELOPE_STATUS_UNDER')
+                """)
+                .setParameter("budgetId", budgetId)
+                .setParameter("amount", amount)
+                .executeUpdate();
+    }
+
+    private Budget reload(Integer budgetId) {
+        entityManager.clear();
+
+        return budgetRepository.findById(budgetId).get();
+    }
+
     @Test
     public void getCurrentBudget_shouldReturnTheCurrentBudget() throws Exception {
         // given
@@ -131,34 +160,211 @@ public class BudgetRepositoryTest {
         assertThat(currentBudget.getCreatedDate()).isNotNull();
         assertThat(currentBudget.getUpdatedDate()).isNull();
 
-        budgetRepository.updateCurrentBudget(userId, currentPeriod, amount);
-        entityManager.flush();
+        Optional<CurrentBudget> updated = budgetRepository.updateCurrentBudget(
+                userId,
+                currentPeriod,
+                amount
+        );
 
         Budget updatedBudget = budgetRepository.getCurrentBudget(userId, currentPeriod).get();
         entityManager.refresh(updatedBudget);
 
         // then
+        assertThat(updated.isPresent()).isTrue();
+        assertThat(updated.get().budgetId()).isEqualTo(currentBudget.getId());
+        assertThat(updated.get().period()).isEqualTo(currentPeriod);
+        assertThat(updated.get().amount()).isEqualTo(amount);
+        assertThat(updated.get().status()).isEqualTo(BudgetStatus.BUDGET_STATUS_INCOMPLETE);
         assertThat(updatedBudget.getUpdatedDate()).isNotNull();
         assertThat(updatedBudget.getAmount()).isEqualTo(amount);
     }
 
     @Test
-    public void updateBudgetStatus_shouldUpdateTheStatusOfTheBudget() throws Exception {
+    public void updateCurrentBudget_withNoBudget_shouldReturnEmpty() throws Exception {
+        // given
+        Integer userId = 1;
+        LocalDate otherPeriod = LocalDate.of(2024, 11, 1);
+
+        // when
+        Optional<CurrentBudget> updated = budgetRepository.updateCurrentBudget(
+                userId,
+                otherPeriod,
+                new BigDecimal("5000.00")
+        );
+
+        // then
+        assertThat(updated.isPresent()).isFalse();
+    }
+
+    @Test
+    public void updateAllocatedTotal_withBudgetAllocated_shouldUpdateStatusToComplete()
+            throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+
+        // when
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("20000"));
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("2000"));
+        Budget updatedBudget = reload(budget.getId());
+
+        // then
+        assertThat(updatedBudget.getAllocatedTotal()).isEqualTo(new BigDecimal("22000.00"));
+        assertThat(updatedBudget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_COMPLETE);
+        assertThat(updatedBudget.getUpdatedDate()).isNotNull();
+    }
+
+    @Test
+    public void updateAllocatedTotal_withZeroDelta_shouldIncrementVersion() throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+
+        // when
+        budgetRepository.updateAllocatedTotal(budget.getId(), BigDecimal.ZERO);
+        entityManager.clear();
+
+        // then
+        assertThat(budgetRepository.findVersionById(budget.getId())).isEqualTo(Optional.of(1L));
+    }
+
+    @Test
+    public void findVersionById_shouldIncrementWithEveryWrite() throws Exception {
         // given
         Integer userId = 1;
         LocalDate currentPeriod = LocalDate.of(2024, 12, 1);
         Budget budget = budgetRepository.getCurrentBudget(userId, currentPeriod).get();
-        BudgetStatus status = BudgetStatus.BUDGET_STATUS_COMPLETE;
+        allocate(budget.getId(), "Rent", new BigDecimal("20000"));
 
         // when
-        budgetRepository.updateBudgetStatus(budget.getId(), status);
-        entityManager.flush();
+        Optional<Long> createdVersion = budgetRepository.findVersionById(budget.getId());
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("500"));
+        Optional<CurrentBudget> updated = budgetRepository.updateCurrentBudget(
+                userId,
+                currentPeriod,
+                new BigDecimal("5000.00")
+        );
+        budgetRepository.repairAllocatedTotal(budget.getId());
+        entityManager.clear();
 
-        Budget updatedBudget = budgetRepository.getCurrentBudget(userId, currentPeriod).get();
-        entityManager.refresh(updatedBudget);
+        // then
+        assertThat(createdVersion).isEqualTo(Optional.of(0L));
+        assertThat(updated.get().version()).isEqualTo(2L);
+        assertThat(budgetRepository.findVersionById(budget.getId())).isEqualTo(Optional.of(3L));
+    }
+
+    @Test
+    public void findVersionById_withNoBudget_shouldReturnEmpty() throws Exception {
+        // given
+        Integer budgetId = -1;
+
+        // when
+        Optional<Long> version = budgetRepository.findVersionById(budgetId);
 
         // then
-        assertThat(updatedBudget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_COMPLETE);
+        assertThat(version.isPresent()).isFalse();
+    }
+
+    @Test
+    public void updateAllocatedTotal_withNegativeDelta_shouldUpdateStatusToIncomplete()
+            throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("22000"));
+
+        // when
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("-500"));
+        Budget updatedBudget = reload(budget.getId());
+
+        // then
+        assertThat(updatedBudget.getAllocatedTotal()).isEqualTo(new BigDecimal("21500.00"));
+        assertThat(updatedBudget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_INCOMPLETE);
+    }
+
+    @Test
+    public void updateAllocatedTotal_withTotalExceedBudget_shouldUpdateStatusToInvalid()
+            throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+
+        // when
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("25000"));
+        Budget updatedBudget = reload(budget.getId());
+
+        // then
+        assertThat(updatedBudget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_INVALID);
+    }
+
+    @Test
+    public void updateCurrentBudget_shouldDeriveStatusFromAllocatedTotal() throws Exception {
+        // given
+        Integer userId = 1;
+        LocalDate currentPeriod = LocalDate.of(2024, 12, 1);
+        Budget budget = budgetRepository.getCurrentBudget(userId, currentPeriod).get();
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("5000"));
+
+        // when
+        Optional<CurrentBudget> updated = budgetRepository.updateCurrentBudget(
+                userId,
+                currentPeriod,
+                new BigDecimal("5000.00")
+        );
+
+        // then
+        assertThat(updated.get().allocatedTotal()).isEqualTo(new BigDecimal("5000.00"));
+        assertThat(updated.get().status()).isEqualTo(BudgetStatus.BUDGET_STATUS_COMPLETE);
+    }
+
+    @Test
+    public void repairAllocatedTotal_withDrift_shouldSetAllocatedTotalToSumOfEnvelopes()
+            throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+        allocate(budget.getId(), "Rent", new BigDecimal("20000"));
+        allocate(budget.getId(), "Food", new BigDecimal("2000"));
+
+        // when
+        List<Integer> driftedBudgetIds = budgetRepository.findDriftedBudgetIds();
+        Optional<BigDecimal> previousTotal = budgetRepository.repairAllocatedTotal(budget.getId());
+        Budget repairedBudget = reload(budget.getId());
+
+        // then
+        assertThat(driftedBudgetIds).isEqualTo(List.of(budget.getId()));
+        assertThat(previousTotal).isEqualTo(Optional.of(new BigDecimal("0.00")));
+        assertThat(repairedBudget.getAllocatedTotal()).isEqualTo(new BigDecimal("22000.00"));
+        assertThat(repairedBudget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_COMPLETE);
+        assertThat(budgetRepository.findDriftedBudgetIds()).isEqualTo(List.of());
+    }
+
+    @Test
+    public void findDriftedBudgetIds_withChangedSince_shouldOnlyReturnUpdatedBudgets()
+            throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+        Instant changedSince = Instant.now().minus(Duration.ofMinutes(1));
+        allocate(budget.getId(), "Rent", new BigDecimal("20000"));
+
+        // when
+        List<Integer> beforeUpdate = budgetRepository.findDriftedBudgetIds(changedSince);
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("1000"));
+        List<Integer> afterUpdate = budgetRepository.findDriftedBudgetIds(changedSince);
+
+        // then
+        assertThat(beforeUpdate).isEqualTo(List.of());
+        assertThat(afterUpdate).isEqualTo(List.of(budget.getId()));
+    }
+
+    @Test
+    public void repairAllocatedTotal_withoutDrift_shouldReturnEmpty() throws Exception {
+        // given
+        Budget budget = budgetRepository.getCurrentBudget(1, LocalDate.of(2024, 12, 1)).get();
+        allocate(budget.getId(), "Rent", new BigDecimal("20000"));
+        budgetRepository.updateAllocatedTotal(budget.getId(), new BigDecimal("20000"));
+
+        // when
+        Optional<BigDecimal> previousTotal = budgetRepository.repairAllocatedTotal(budget.getId());
+
+        // then
+        assertThat(budgetRepository.findDriftedBudgetIds()).isEqualTo(List.of());
+        assertThat(previousTotal.isPresent()).isFalse();
     }
 
 }
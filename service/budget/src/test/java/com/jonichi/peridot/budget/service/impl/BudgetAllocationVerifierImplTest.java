@@ -0,0 +1,152 @@
+package com.jonichi.peridot.budget.service.impl;
+
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.util.TransactionalHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class BudgetAllocationVerifierImplTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private TransactionalHandler transactionalHandler;
+
+    private CurrentBudgetCacheImpl currentBudgetCache;
+    private MeterRegistry meterRegistry;
+    private BudgetAllocationVerifierImpl budgetAllocationVerifier;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        currentBudgetCache = spy(new CurrentBudgetCacheImpl(
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)
+        ));
+        budgetAllocationVerifier = new BudgetAllocationVerifierImpl(
+                budgetRepository,
+                transactionalHandler,
+                currentBudgetCache,
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class)
+        );
+        budgetAllocationVerifier.init();
+    }
+
+    @Test
+    public void verifyAllocatedTotals_shouldRepairDriftedBudgets() throws Exception {
+        // given
+        when(budgetRepository.findDriftedBudgetIds()).thenReturn(List.of(1, 2));
+        when(budgetRepository.repairAllocatedTotal(1)).thenReturn(Optional.of(BigDecimal.ZERO));
+        when(budgetRepository.repairAllocatedTotal(2)).thenReturn(Optional.empty());
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Optional<BigDecimal>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
+
+        // when
+        int repaired = budgetAllocationVerifier.verifyAllocatedTotals();
+
+        // then
+        assertThat(repaired).isEqualTo(1);
+        verify(transactionalHandler, times(2))
+                .runInTransactionSupplier(eq("repairAllocatedTotal"), any(Supplier.class));
+        verify(currentBudgetCache, times(1)).invalidate(1);
+        verify(currentBudgetCache, never()).invalidate(2);
+        assertThat(meterRegistry.get(BudgetAllocationVerifierImpl.DRIFT_COUNTER_NAME)
+                .counter()
+                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void verifyAllocatedTotals_afterFullVerification_shouldOnlyVerifyChangedBudgets()
+            throws Exception {
+        // given
+        when(budgetRepository.findDriftedBudgetIds()).thenReturn(List.of());
+        when(budgetRepository.findDriftedBudgetIds(any(Instant.class))).thenReturn(List.of());
+
+        // when
+        budgetAllocationVerifier.verifyAllocatedTotals();
+        Instant firstVerification = budgetAllocationVerifier.lastVerification;
+        budgetAllocationVerifier.verifyAllocatedTotals();
+
+        // then
+        verify(budgetRepository, times(1)).findDriftedBudgetIds();
+        verify(budgetRepository, times(1)).findDriftedBudgetIds(
+                firstVerification.minus(BudgetAllocationVerifierImpl.CHANGE_MARGIN)
+        );
+        assertThat(budgetAllocationVerifier.lastFullVerification).isEqualTo(firstVerification);
+    }
+
+    @Test
+    public void verifyAllocatedTotals_withOldFullVerification_shouldVerifyEveryBudget()
+            throws Exception {
+        // given
+        Instant oldVerification = Instant.now()
+                .minus(BudgetAllocationVerifierImpl.FULL_VERIFICATION_INTERVAL)
+                .minus(Duration.ofMinutes(1));
+        budgetAllocationVerifier.lastVerification = oldVerification;
+        budgetAllocationVerifier.lastFullVerification = oldVerification;
+        when(budgetRepository.findDriftedBudgetIds()).thenReturn(List.of());
+
+        // when
+        budgetAllocationVerifier.verifyAllocatedTotals();
+
+        // then
+        verify(budgetRepository, times(1)).findDriftedBudgetIds();
+        verify(budgetRepository, never()).findDriftedBudgetIds(any(Instant.class));
+        assertThat(budgetAllocationVerifier.lastFullVerification).isAfter(oldVerification);
+    }
+
+    @Test
+    public void scheduledVerification_withDisabledVerifier_shouldNotQueryBudgets()
+            throws Exception {
+        // given
+        budgetAllocationVerifier.enabled = false;
+
+        // when
+        budgetAllocationVerifier.scheduledVerification();
+
+        // then
+        verify(budgetRepository, never()).findDriftedBudgetIds();
+    }
+
+    @Test
+    public void scheduledVerification_withEnabledVerifier_shouldVerifyAllocatedTotals()
+            throws Exception {
+        // given
+        budgetAllocationVerifier.enabled = true;
+        when(budgetRepository.findDriftedBudgetIds()).thenReturn(List.of());
+
+        // when
+        budgetAllocationVerifier.scheduledVerification();
+
+        // then
+        verify(budgetRepository, times(1)).findDriftedBudgetIds();
+    }
+}
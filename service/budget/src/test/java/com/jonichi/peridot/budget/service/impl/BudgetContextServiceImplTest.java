@@ -6,6 +6,7 @@ import com.jonichi.peridot.budget.model.BudgetStatus;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
 import com.jonichi.peridot.common.dto.UserBudgetDTO;
 import com.jonichi.peridot.common.util.DateUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -19,7 +20,9 @@ import org.mockito.Mockito;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.test.context.ActiveProfiles;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +33,10 @@ public class BudgetContextServiceImplTest {
     private BudgetRepository budgetRepository;
     @Mock
     private AuthContextService authContextService;
+    @Spy
+    private CurrentBudgetCacheImpl currentBudgetCache = new CurrentBudgetCacheImpl(
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)
+    );
     @InjectMocks
     private BudgetContextServiceImpl budgetContextService;
 
@@ -63,69 +70,54 @@ public class BudgetContextServiceImplTest {
     }
 
     @Test
-    public void updateBudgetStatus_withBudgetAllocated_shouldUpdateStatusToComplete() throws Exception {
+    public void updateAllocatedTotal_shouldAddDeltaToAllocatedTotal() throws Exception {
         // given
         Integer budgetId = 1;
-        BigDecimal totalExpenses = new BigDecimal("1500");
-        BudgetStatus expectedStatus = BudgetStatus.BUDGET_STATUS_COMPLETE;
-        Budget budget = Budget.builder()
-                .id(1)
-                .userId(1)
-                .amount(new BigDecimal("1500"))
-                .period(LocalDate.of(2024, 12, 1))
-                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
-                .build();
+        BigDecimal delta = new BigDecimal("-250");
 
         // when
-        when(budgetRepository.getReferenceById(budgetId)).thenReturn(budget);
-        budgetContextService.updateBudgetStatus(budgetId, totalExpenses);
+        budgetContextService.updateAllocatedTotal(budgetId, delta);
 
         // then
-        verify(budgetRepository, times(1)).updateBudgetStatus(budgetId, expectedStatus);
+        verify(budgetRepository, times(1)).updateAllocatedTotal(budgetId, delta);
     }
 
     @Test
-    public void updateBudgetStatus_withBudgetNotAllocated_shouldUpdateStatusToIncomplete() throws Exception {
+    public void updateAllocatedTotal_shouldInvalidateCachedBudget() throws Exception {
         // given
         Integer budgetId = 1;
-        BigDecimal totalExpenses = new BigDecimal("1500");
-        BudgetStatus expectedStatus = BudgetStatus.BUDGET_STATUS_INCOMPLETE;
-        Budget budget = Budget.builder()
-                .id(1)
-                .userId(1)
-                .amount(new BigDecimal("2000"))
-                .period(LocalDate.of(2024, 12, 1))
-                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
-                .build();
 
         // when
-        when(budgetRepository.getReferenceById(budgetId)).thenReturn(budget);
-        budgetContextService.updateBudgetStatus(budgetId, totalExpenses);
+        budgetContextService.updateAllocatedTotal(budgetId, new BigDecimal("500"));
 
         // then
-        verify(budgetRepository, times(1)).updateBudgetStatus(budgetId, expectedStatus);
+        verify(currentBudgetCache, times(1)).invalidate(budgetId);
     }
 
     @Test
-    public void updateBudgetStatus_withTotalExpensesExceedBudget_shouldUpdateStatusToInvalid() throws Exception {
+    public void invalidateBudget_shouldInvalidateCachedBudget() throws Exception {
+        // given
+        Integer budgetId = 1;
+
+        // when
+        budgetContextService.invalidateBudget(budgetId);
+
+        // then
+        verify(currentBudgetCache, times(1)).invalidate(budgetId);
+    }
+
+    @Test
+    public void getBudgetVersion_shouldReturnVersionOfBudget() throws Exception {
         // given
         Integer budgetId = 1;
-        BigDecimal totalExpenses = new BigDecimal("5000");
-        BudgetStatus expectedStatus = BudgetStatus.BUDGET_STATUS_INVALID;
-        Budget budget = Budget.builder()
-                .id(1)
-                .userId(1)
-                .amount(new BigDecimal("2000"))
-                .period(LocalDate.of(2024, 12, 1))
-                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
-                .build();
 
         // when
-        when(budgetRepository.getReferenceById(budgetId)).thenReturn(budget);
-        budgetContextService.updateBudgetStatus(budgetId, totalExpenses);
+        when(budgetRepository.findVersionById(budgetId)).thenReturn(Optional.of(3L));
+        Optional<Long> version = budgetContextService.getBudgetVersion(budgetId);
 
         // then
-        verify(budgetRepository, times(1)).updateBudgetStatus(budgetId, expectedStatus);
+        verify(budgetRepository, times(1)).findVersionById(budgetId);
+        assertThat(version).isEqualTo(Optional.of(3L));
     }
 
 }
@@ -5,11 +5,13 @@ import com.jonichi.peridot.budget.dto.BudgetDataDTO;
 import com.jonichi.peridot.budget.dto.BudgetResponseDTO;
 import com.jonichi.peridot.budget.model.Budget;
 import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.model.CurrentBudget;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
 import com.jonichi.peridot.common.util.DateUtil;
 import com.jonichi.peridot.common.util.TransactionalHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -19,15 +21,19 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -41,6 +47,10 @@ public class BudgetServiceImplTest {
     private AuthContextService authContextService;
     @Mock
     private TransactionalHandler transactionalHandler;
+    @Spy
+    private CurrentBudgetCacheImpl currentBudgetCache = new CurrentBudgetCacheImpl(
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)
+    );
     @InjectMocks
     private BudgetServiceImpl budgetService;
 
@@ -59,11 +69,13 @@ public class BudgetServiceImplTest {
                 .build();
 
         // when
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class))).thenReturn(budget);
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenReturn(budget);
         budgetService.createBudget(amount);
 
         // then
-        verify(transactionalHandler, times(1)).runInTransactionSupplier(any(Supplier.class));
+        verify(transactionalHandler, times(1))
+                .runInTransactionSupplier(eq("createBudget"), any(Supplier.class));
     }
 
     @Test
@@ -83,9 +95,9 @@ public class BudgetServiceImplTest {
         // when
         when(authContextService.getUserId()).thenReturn(1);
         when(budgetRepository.save(any(Budget.class))).thenReturn(budget);
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<Budget> supplier = invocation.getArgument(0);
+                    Supplier<Budget> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
         BudgetResponseDTO budgetResponseDTO = budgetService.createBudget(amount);
@@ -93,6 +105,7 @@ public class BudgetServiceImplTest {
         // then
         verify(authContextService, times(1)).getUserId();
         verify(budgetRepository, times(1)).save(any(Budget.class));
+        verify(currentBudgetCache, times(1)).invalidate(1);
         assertThat(budgetResponseDTO.budgetId()).isEqualTo(1);
     }
 
@@ -109,9 +122,9 @@ public class BudgetServiceImplTest {
                                 "Detail: Key (user_id, period)=(1, 2024-12-01) already exists."
                         )
                 );
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<Budget> supplier = invocation.getArgument(0);
+                    Supplier<Budget> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
 
@@ -130,18 +143,31 @@ public class BudgetServiceImplTest {
                 .id(1)
                 .userId(1)
                 .amount(amount)
+                .allocatedTotal(new BigDecimal("400"))
                 .period(currentPeriod)
                 .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .version(2L)
                 .build();
 
         // when
         when(authContextService.getUserId()).thenReturn(1);
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Optional<CurrentBudget>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
         when(budgetRepository.getCurrentBudget(1, currentPeriod)).thenReturn(Optional.of(budget));
         BudgetDataDTO response = budgetService.getCurrentBudget();
 
         // then
         verify(budgetRepository, times(1)).getCurrentBudget(1, currentPeriod);
+        verify(transactionalHandler, times(1))
+                .runInReadOnlyTransactionSupplier(eq("getCurrentBudget"), any(Supplier.class));
         assertThat(response).isEqualTo(response);
+        assertThat(response.allocatedTotal()).isEqualTo(new BigDecimal("400"));
+        assertThat(response.budgetId()).isEqualTo(1);
+        assertThat(response.version()).isEqualTo(2L);
 
     }
 
@@ -152,6 +178,12 @@ public class BudgetServiceImplTest {
 
         // when
         when(authContextService.getUserId()).thenReturn(1);
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Optional<CurrentBudget>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
         when(budgetRepository.getCurrentBudget(1, currentPeriod)).thenReturn(Optional.empty());
 
         // then
@@ -165,33 +197,61 @@ public class BudgetServiceImplTest {
         // given
         BigDecimal amount = new BigDecimal("1000");
         LocalDate period = LocalDate.of(2024, 12, 1);
-        Budget budget = Budget.builder()
-                .id(1)
-                .userId(1)
-                .amount(amount)
-                .period(period)
-                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
-                .build();
+        CurrentBudget budget = new CurrentBudget(
+                1,
+                period,
+                amount,
+                BigDecimal.ZERO,
+                BudgetStatus.BUDGET_STATUS_INCOMPLETE,
+                1L
+        );
 
         try (MockedStatic<DateUtil> mockedDatedUtil = Mockito.mockStatic(DateUtil.class)) {
             // when
             when(authContextService.getUserId()).thenReturn(1);
             mockedDatedUtil.when(DateUtil::getCurrentPeriod).thenReturn(period);
-            doAnswer(invocation -> {
-                Runnable action = invocation.getArgument(0);
-                action.run();
-                return null;
-            }).when(transactionalHandler).runInTransaction(any(Runnable.class));
-            when(budgetRepository.getCurrentBudget(1, period)).thenReturn(Optional.of(budget));
+            when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                    .thenAnswer(invocation -> {
+                        Supplier<Optional<CurrentBudget>> supplier = invocation.getArgument(1);
+                        return supplier.get();
+                    });
+            when(budgetRepository.updateCurrentBudget(1, period, amount))
+                    .thenReturn(Optional.of(budget));
             BudgetResponseDTO budgetResponseDTO = budgetService.updateCurrentBudget(amount);
 
             // then
             verify(authContextService, times(1)).getUserId();
-            verify(transactionalHandler, times(1)).runInTransaction(any(Runnable.class));
+            verify(transactionalHandler, times(1))
+                    .runInTransactionSupplier(eq("updateCurrentBudget"), any(Supplier.class));
             verify(budgetRepository, times(1)).updateCurrentBudget(1, period, amount);
-            verify(budgetRepository, times(1)).getCurrentBudget(1, period);
+            verify(budgetRepository, never()).getCurrentBudget(1, period);
+            verify(currentBudgetCache, times(1)).invalidate(1);
             assertThat(budgetResponseDTO.budgetId()).isEqualTo(1);
         }
     }
 
+    @Test
+    public void updateCurrentBudget_withNoBudget_shouldThrowPeridotNotFoundException()
+            throws Exception {
+        // given
+        BigDecimal amount = new BigDecimal("1000");
+        LocalDate currentPeriod = DateUtil.getCurrentPeriod();
+
+        // when
+        when(authContextService.getUserId()).thenReturn(1);
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Optional<CurrentBudget>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
+        when(budgetRepository.updateCurrentBudget(1, currentPeriod, amount))
+                .thenReturn(Optional.empty());
+
+        // then
+        assertThatThrownBy(() -> budgetService.updateCurrentBudget(amount))
+                .isInstanceOf(PeridotNotFoundException.class)
+                .hasMessage("Budget does not exist");
+        verify(currentBudgetCache, never()).invalidate(any());
+    }
+
 }
@@ -0,0 +1,248 @@
+package com.jonichi.peridot.budget.service.impl;
+
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.model.CurrentBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ActiveProfiles("test")
+public class CurrentBudgetCacheImplTest {
+
+    private static final Integer USER_ID = 1;
+    private static final LocalDate PERIOD = LocalDate.of(2024, 12, 1);
+
+    private MeterRegistry meterRegistry;
+    private CurrentBudgetCacheImpl currentBudgetCacheImpl;
+    private AtomicInteger loads;
+    private BudgetStatus status;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        currentBudgetCacheImpl = new CurrentBudgetCacheImpl(
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class)
+        );
+        currentBudgetCacheImpl.enabled = true;
+        currentBudgetCacheImpl.maximumSize = 100;
+        currentBudgetCacheImpl.timeToLive = Duration.ofMinutes(10);
+        loads = new AtomicInteger();
+        status = BudgetStatus.BUDGET_STATUS_INCOMPLETE;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Supplier<Optional<CurrentBudget>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.of(new CurrentBudget(
+                    10,
+                    PERIOD,
+                    new BigDecimal("1000"),
+                    BigDecimal.ZERO,
+                    status,
+                    0L
+            ));
+        };
+    }
+
+    @Test
+    public void getBudgetId_shouldLoadBudgetOnce() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+
+        // when
+        Optional<Integer> first = currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+        Optional<Integer> second = currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(first).isEqualTo(Optional.of(10));
+        assertThat(second).isEqualTo(Optional.of(10));
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void getBudgetId_withNoBudget_shouldNotCacheAbsence() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+        Supplier<Optional<CurrentBudget>> emptyLoader = () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        };
+
+        // when
+        Optional<Integer> first = currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, emptyLoader);
+        Optional<Integer> second = currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(first).isEqualTo(Optional.empty());
+        assertThat(second).isEqualTo(Optional.of(10));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_shouldServeBudgetFromCache() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+
+        // when
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        Optional<CurrentBudget> budget = currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(budget.map(CurrentBudget::budgetId)).isEqualTo(Optional.of(10));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_shouldReloadBudgetButKeepBudgetId() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+
+        // when
+        status = BudgetStatus.BUDGET_STATUS_COMPLETE;
+        currentBudgetCacheImpl.invalidate(10);
+        Optional<CurrentBudget> budget = currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(budget.map(CurrentBudget::status))
+                .isEqualTo(Optional.of(BudgetStatus.BUDGET_STATUS_COMPLETE));
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidate_insideTransaction_shouldWaitForCommit() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        status = BudgetStatus.BUDGET_STATUS_COMPLETE;
+        currentBudgetCacheImpl.invalidate(10);
+        Optional<CurrentBudget> beforeCommit = currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        Optional<CurrentBudget> afterCommit = currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(beforeCommit.map(CurrentBudget::status))
+                .isEqualTo(Optional.of(BudgetStatus.BUDGET_STATUS_INCOMPLETE));
+        assertThat(afterCommit.map(CurrentBudget::status))
+                .isEqualTo(Optional.of(BudgetStatus.BUDGET_STATUS_COMPLETE));
+    }
+
+    @Test
+    public void get_withInvalidationDuringLoad_shouldNotHoldCacheAndNotCacheResult()
+            throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+        AtomicBoolean invalidated = new AtomicBoolean();
+        Supplier<Optional<CurrentBudget>> invalidatingLoader = () -> {
+            Thread invalidation = new Thread(() -> currentBudgetCacheImpl.invalidate(10));
+            invalidation.start();
+            try {
+                invalidation.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            invalidated.set(!invalidation.isAlive());
+            return loader().get();
+        };
+
+        // when
+        Optional<CurrentBudget> budget = currentBudgetCacheImpl.get(
+                USER_ID,
+                PERIOD,
+                invalidatingLoader
+        );
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(invalidated.get()).isTrue();
+        assertThat(budget.isPresent()).isTrue();
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void get_withFailingLoad_shouldRethrowAndNotCacheFailure() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // when
+        assertThatThrownBy(() -> currentBudgetCacheImpl.get(USER_ID, PERIOD, () -> {
+            throw new IllegalStateException("Connection refused");
+        })).isInstanceOf(IllegalStateException.class);
+        Optional<CurrentBudget> budget = currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(budget.isPresent()).isTrue();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_withDisabledCache_shouldAlwaysLoad() throws Exception {
+        // given
+        currentBudgetCacheImpl.enabled = false;
+        currentBudgetCacheImpl.init();
+
+        // when
+        currentBudgetCacheImpl.get(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.invalidate(10);
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void init_shouldPublishHitRateMetrics() throws Exception {
+        // given
+        currentBudgetCacheImpl.init();
+
+        // when
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+        currentBudgetCacheImpl.getBudgetId(USER_ID, PERIOD, loader());
+
+        // then
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CurrentBudgetCacheImpl.BUDGET_ID_CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CurrentBudgetCacheImpl.BUDGET_CACHE_NAME)
+                .functionCounters()
+                .isEmpty()).isFalse();
+    }
+}
@@ -1,17 +1,27 @@
 package com.jonichi.peridot.envelope.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.jonichi.peridot.common.dto.ApiResponse;
 import com.jonichi.peridot.common.dto.SuccessResponse;
+import com.jonichi.peridot.common.util.EntityTagUtil;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeRequestDTO;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
 import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
 import com.jonichi.peridot.envelope.dto.PeridotPagination;
 import com.jonichi.peridot.envelope.service.EnvelopeService;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,6 +31,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST controller for managing envelopes.
@@ -34,7 +46,10 @@ import org.springframework.web.bind.annotation.RestController;
 public class EnvelopeController {
 
     private static final Logger logger = LoggerFactory.getLogger(EnvelopeController.class);
+    private static final String CURSOR_PAGINATION = "cursor";
+    private static final byte NEWLINE = '\n';
     private final EnvelopeService envelopeService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Creates a new envelope.
@@ -51,7 +66,6 @@ public class EnvelopeController {
     public ResponseEntity<ApiResponse<EnvelopeResponseDTO>> createEnvelope(
             @RequestBody @Valid CreateUpdateEnvelopeDTO createUpdateEnvelopeDTO
     ) {
-        logger.info("Start - Controller - createBudget");
         logger.debug("Request: {}", createUpdateEnvelopeDTO);
 
         EnvelopeResponseDTO envelopeResponseDTO = envelopeService.createEnvelope(
@@ -68,7 +82,6 @@ public class EnvelopeController {
                 .data(envelopeResponseDTO)
                 .build();
 
-        logger.info("End - Controller - createBudget");
         return ResponseEntity.status(status).body(response);
     }
 
@@ -87,7 +100,6 @@ public class EnvelopeController {
             @PathVariable Integer budgetEnvelopeId,
             @RequestBody @Valid CreateUpdateEnvelopeDTO createUpdateEnvelopeDTO
     ) {
-        logger.info("Start - Controller - updateEnvelope");
         logger.debug("""
                 PathVariable: {}
                 Request: {}
@@ -111,7 +123,39 @@ public class EnvelopeController {
                 .data(envelopeResponseDTO)
                 .build();
 
-        logger.info("End - Controller - updateEnvelope");
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Creates and updates several envelopes at once.
+     *
+     * <p>This endpoint handles HTTP POST requests with a list of envelopes, where an envelope
+     * with a {@code budgetEnvelopeId} updates that envelope and any other envelope is created.
+     * All the envelopes are validated before any is saved, and either all of them are saved or
+     * none is.</p>
+     *
+     * @param bulkEnvelopeRequestDTO the DTO containing the envelopes to save.
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the result of each
+     *         envelope in {@link BulkEnvelopeResultDTO} and an HTTP status of 200 (OK).
+     */
+    @PostMapping("/envelopes/bulk")
+    public ResponseEntity<ApiResponse<List<BulkEnvelopeResultDTO>>> saveEnvelopes(
+            @RequestBody @Valid BulkEnvelopeRequestDTO bulkEnvelopeRequestDTO
+    ) {
+        logger.debug("Request: {}", bulkEnvelopeRequestDTO);
+
+        List<BulkEnvelopeResultDTO> results = envelopeService.saveEnvelopes(
+                bulkEnvelopeRequestDTO.envelopes()
+        );
+
+        HttpStatus status = HttpStatus.OK;
+        ApiResponse<List<BulkEnvelopeResultDTO>> response = SuccessResponse
+                .<List<BulkEnvelopeResultDTO>>builder()
+                .code(status.value())
+                .message("Envelopes saved successfully")
+                .data(results)
+                .build();
+
         return ResponseEntity.status(status).body(response);
     }
 
@@ -119,15 +163,28 @@ public class EnvelopeController {
      * Retrieves a paginated list of envelopes for a given budget.
      *
      * <p>This method fetches envelopes associated with the specified budget ID. It supports
-     * pagination and sorting options.</p>
+     * pagination and sorting options. With {@code pagination=cursor}, or when an {@code after}
+     * cursor is given, the page starts after the cursor instead of at a page number, has no
+     * total unless {@code includeTotal} is true, and returns the cursor of the next page.</p>
+     *
+     * <p>The response has a strong ETag derived from the version of the budget. The version is
+     * looked up before the envelopes, and when the request has an {@code If-None-Match} header
+     * matching it, a 304 (Not Modified) response without body is returned without reading the
+     * envelopes. Because the version is read first, a write between the two reads can only make
+     * the ETag older than the page, which the next request detects.</p>
      *
      * @param budgetId the unique identifier of the budget whose envelopes are to be retrieved.
      * @param page the page number for pagination (optional).
      * @param size the number of items per page for pagination (optional).
      * @param sortBy the field to sort the envelopes by (optional).
      * @param sortDirection the direction of sorting, either 'asc' or 'desc' (optional).
+     * @param pagination the pagination mode, either 'offset' or 'cursor' (optional).
+     * @param after the cursor returned with the previous page (optional).
+     * @param includeTotal whether to count the envelopes in cursor mode (optional).
+     * @param webRequest the current request, used to evaluate its {@code If-None-Match} header.
      * @return a {@link ResponseEntity} containing an {@link ApiResponse} with paginated envelope
-     *     data as {@link PeridotPagination}.
+     *     data as {@link PeridotPagination}, or {@code null} when the envelopes were not
+     *     modified.
      */
     @GetMapping("/budgets/{budgetId}/envelopes")
     public ResponseEntity<ApiResponse<PeridotPagination<EnvelopeDataDTO>>> getEnvelopes(
@@ -135,27 +192,50 @@ public class EnvelopeController {
             @RequestParam(required = false, defaultValue = "1") Integer page,
             @RequestParam(required = false, defaultValue = "10") Integer size,
             @RequestParam(required = false, defaultValue = "id") String sortBy,
-            @RequestParam(required = false, defaultValue = "asc") String sortDirection
+            @RequestParam(required = false, defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false, defaultValue = "offset") String pagination,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false, defaultValue = "false") Boolean includeTotal,
+            WebRequest webRequest
     ) {
-        logger.info("Start - Controller - getEnvelopes");
         logger.debug("""
                 PathVariable: {}
-                RequestParam: page={}, size={}, sortBy={}, sortDirection={}
+                RequestParam: page={}, size={}, sortBy={}, sortDirection={}, pagination={}, \
+                after={}, includeTotal={}
                 """,
                 budgetId,
                 page,
                 size,
                 sortBy,
-                sortDirection
+                sortDirection,
+                pagination,
+                after,
+                includeTotal
         );
 
-        PeridotPagination<EnvelopeDataDTO> peridotPagination = envelopeService.getEnvelopes(
-                budgetId,
-                page,
-                size,
-                sortBy,
-                sortDirection
-        );
+        Optional<String> entityTag = envelopeService.getEnvelopesVersion(budgetId)
+                .map(version -> EntityTagUtil.fromVersion(budgetId, version));
+        if (entityTag.isPresent() && webRequest.checkNotModified(entityTag.get())) {
+            return null;
+        }
+
+        PeridotPagination<EnvelopeDataDTO> peridotPagination =
+                CURSOR_PAGINATION.equals(pagination) || after != null
+                        ? envelopeService.getEnvelopesAfter(
+                                budgetId,
+                                after,
+                                size,
+                                sortBy,
+                                sortDirection,
+                                includeTotal
+                        )
+                        : envelopeService.getEnvelopes(
+                                budgetId,
+                                page,
+                                size,
+                                sortBy,
+                                sortDirection
+                        );
 
         HttpStatus status = HttpStatus.OK;
         ApiResponse<PeridotPagination<EnvelopeDataDTO>> response = SuccessResponse
@@ -165,8 +245,50 @@ public class EnvelopeController {
                 .data(peridotPagination)
                 .build();
 
-        logger.info("End - Controller - getEnvelopes");
-        return ResponseEntity.status(status).body(response);
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status);
+        entityTag.ifPresent(responseBuilder::eTag);
+        return responseBuilder.body(response);
+    }
+
+    /**
+     * Streams all the envelopes of a given budget as newline-delimited JSON.
+     *
+     * <p>This endpoint writes one {@link EnvelopeDataDTO} per line, in the order of their budget
+     * envelope ID, as they are read from the database. The body is written incrementally after
+     * this method returns, so its size does not affect the memory used, and no pages or counts
+     * are queried.</p>
+     *
+     * @param budgetId the unique identifier of the budget whose envelopes are to be streamed.
+     * @return a {@link ResponseEntity} with an {@code application/x-ndjson} body that streams
+     *     the envelopes.
+     */
+    @GetMapping(
+            value = "/budgets/{budgetId}/envelopes/stream",
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> streamEnvelopes(@PathVariable Integer budgetId) {
+        logger.debug("PathVariable: {}", budgetId);
+
+        ObjectWriter writer = objectMapper.writerFor(EnvelopeDataDTO.class);
+        StreamingResponseBody body = outputStream -> {
+            try {
+                envelopeService.streamEnvelopes(budgetId, envelope -> {
+                    try {
+                        outputStream.write(writer.writeValueAsBytes(envelope));
+                        outputStream.write(NEWLINE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
 }
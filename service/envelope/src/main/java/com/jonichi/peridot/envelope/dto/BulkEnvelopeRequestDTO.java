@@ -0,0 +1,24 @@
+package com.jonichi.peridot.envelope.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Builder;
+
+/**
+ * Data Transfer Object for creating and updating several envelopes at once.
+ *
+ * <p>Every envelope is validated like a single envelope, and the request is rejected as a whole
+ * if any of them is invalid.</p>
+ *
+ * @param envelopes the envelopes to save. An envelope with a budget envelope ID updates it,
+ *                  any other envelope is created. Must contain 1 to 100 envelopes.
+ */
+@Builder
+public record BulkEnvelopeRequestDTO(
+        @NotEmpty(message = "Envelopes are required")
+        @Size(max = 100, message = "At most 100 envelopes can be saved at once")
+        List<@Valid CreateUpdateEnvelopeDTO> envelopes
+) {
+}
@@ -0,0 +1,20 @@
+package com.jonichi.peridot.envelope.dto;
+
+import lombok.Builder;
+
+/**
+ * Data Transfer Object representing the result of one envelope of a bulk request.
+ *
+ * @param index            the position of the envelope in the request.
+ * @param created          whether the envelope was created rather than updated.
+ * @param envelopeId       the ID of the envelope.
+ * @param budgetEnvelopeId the ID of the associated budget envelope.
+ */
+@Builder
+public record BulkEnvelopeResultDTO(
+        Integer index,
+        Boolean created,
+        Integer envelopeId,
+        Integer budgetEnvelopeId
+) {
+}
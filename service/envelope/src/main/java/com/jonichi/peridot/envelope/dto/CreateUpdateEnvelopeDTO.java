@@ -1,6 +1,7 @@
 package com.jonichi.peridot.envelope.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotEmpty;
@@ -20,8 +21,11 @@ import lombok.Builder;
  * @param amount      the amount for the envelope. Must not be null, must be greater than or equal
  *                    to 0, and must have at most 10 integer digits and 2 fractional digits.
  * @param recurring   indicates if the envelope is recurring. Must not be null.
+ * @param budgetEnvelopeId the ID of the budget envelope to update, only read by the bulk
+ *                    endpoint, where it is null for an envelope to create.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Builder
 public record CreateUpdateEnvelopeDTO(
         @NotEmpty(message = "Name is required")
@@ -39,6 +43,8 @@ public record CreateUpdateEnvelopeDTO(
         BigDecimal amount,
 
         @NotNull(message = "Recurring is required")
-        Boolean recurring
+        Boolean recurring,
+
+        Integer budgetEnvelopeId
 ) {
 }
@@ -0,0 +1,98 @@
+package com.jonichi.peridot.envelope.dto;
+
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position of a budget envelope in a sorted listing of the envelopes of a budget.
+ *
+ * <p>A cursor holds the value of the sort key and the id of the last budget envelope of a page,
+ * which is unique and breaks ties between equal values. The next page starts right after that
+ * position. Cursors are passed to clients as opaque tokens, and a token is only accepted for
+ * the sort it was issued for.</p>
+ *
+ * @param sortKey the key the listing is sorted by
+ * @param direction the direction of the sort
+ * @param value the value of the sort key of the budget envelope, in its string form
+ * @param budgetEnvelopeId the id of the budget envelope
+ */
+public record EnvelopeCursor(
+        EnvelopeSortKey sortKey,
+        Sort.Direction direction,
+        String value,
+        Integer budgetEnvelopeId
+) {
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Encodes this cursor as an opaque, URL safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String token = String.join(
+                SEPARATOR,
+                sortKey.getSortBy(),
+                direction.name(),
+                String.valueOf(budgetEnvelopeId),
+                value
+        );
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token issued for the given sort.
+     *
+     * @param token the token returned by {@link #encode()}
+     * @param sortKey the key the listing is sorted by
+     * @param direction the direction of the sort
+     * @return the cursor
+     * @throws PeridotNotAllowedException if the token is malformed or was issued for another sort
+     */
+    public static EnvelopeCursor decode(
+            String token,
+            EnvelopeSortKey sortKey,
+            Sort.Direction direction
+    ) {
+        try {
+            String[] parts = new String(
+                    Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8
+            ).split(SEPARATOR, 4);
+
+            if (parts.length != 4
+                    || !parts[0].equals(sortKey.getSortBy())
+                    || !parts[1].equals(direction.name())) {
+                throw new PeridotNotAllowedException("Cursor does not match the requested sort");
+            }
+
+            EnvelopeCursor cursor = new EnvelopeCursor(
+                    sortKey,
+                    direction,
+                    parts[3],
+                    Integer.valueOf(parts[2])
+            );
+            cursor.sortValue();
+
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            throw new PeridotNotAllowedException("Cursor is not valid");
+        }
+    }
+
+    /**
+     * Returns the value of the sort key in the type of its column.
+     *
+     * @return the value of the sort key
+     */
+    public Object sortValue() {
+        return sortKey.parse(value);
+    }
+}
@@ -0,0 +1,13 @@
+package com.jonichi.peridot.envelope.dto;
+
+/**
+ * An envelope of a listing together with its position in the listing.
+ *
+ * @param envelope the data of the envelope
+ * @param cursor the position of the envelope, from which the next page starts
+ */
+public record EnvelopeCursorRow(
+        EnvelopeDataDTO envelope,
+        EnvelopeCursor cursor
+) {
+}
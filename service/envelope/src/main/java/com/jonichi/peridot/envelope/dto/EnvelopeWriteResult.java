@@ -0,0 +1,15 @@
+package com.jonichi.peridot.envelope.dto;
+
+/**
+ * The rows written by a single statement that saves an envelope and its budget envelope.
+ *
+ * @param budgetId the id of the budget whose allocated total was updated
+ * @param envelopeId the id of the envelope
+ * @param budgetEnvelopeId the id of the budget envelope
+ */
+public record EnvelopeWriteResult(
+        Integer budgetId,
+        Integer envelopeId,
+        Integer budgetEnvelopeId
+) {
+}
@@ -1,5 +1,6 @@
 package com.jonichi.peridot.envelope.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,8 +13,13 @@ import lombok.NoArgsConstructor;
  * <p>This class contains metadata about the paginated content, including the total number of
  * elements, the current page, and whether the current page is the first or last.</p>
  *
+ * <p>A page read with a cursor has no page number. It carries the {@code nextCursor} to pass
+ * as the {@code after} parameter for the next page instead, and only has totals when they
+ * were requested. Fields without a value are left out of the response.</p>
+ *
  * @param <T> the type of content being paginated.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Data
 @Builder
 @AllArgsConstructor
@@ -27,5 +33,6 @@ public class PeridotPagination<T> {
     private Integer currentPage;
     private Boolean first;
     private Boolean last;
+    private String nextCursor;
 
 }
@@ -9,6 +9,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
@@ -24,6 +25,9 @@ import org.hibernate.annotations.CreationTimestamp;
  * association between a budget and an envelope, including details such as the amount,
  * recurrence status, and the envelope's current status. Timestamps for creation and updates
  * are automatically managed.</p>
+ *
+ * <p>The version is the optimistic lock of the entity. The queries of
+ * {@code BudgetEnvelopeRepository} that update a budget envelope increment it as well.</p>
  */
 @Data
 @Builder
@@ -38,7 +42,7 @@ public class BudgetEnvelope {
     @SequenceGenerator(
             name = "budget_envelope_sequence",
             sequenceName = "budget_envelope_sequence",
-            allocationSize = 1
+            allocationSize = 50
     )
     private Integer id;
 
@@ -57,6 +61,10 @@ public class BudgetEnvelope {
     @Enumerated(EnumType.STRING)
     private BudgetEnvelopeStatus status;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_date", nullable = false, updatable = false)
     private LocalDateTime createdDate;
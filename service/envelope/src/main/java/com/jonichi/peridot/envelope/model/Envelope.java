@@ -41,7 +41,7 @@ public class Envelope {
     @SequenceGenerator(
             name = "envelope_sequence",
             sequenceName = "envelope_sequence",
-            allocationSize = 1
+            allocationSize = 50
     )
     private Integer id;
 
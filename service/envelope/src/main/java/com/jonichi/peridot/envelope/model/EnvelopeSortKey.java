@@ -0,0 +1,54 @@
+package com.jonichi.peridot.envelope.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Enum representing the keys by which the envelopes of a budget can be sorted.
+ *
+ * <p>Each key maps the {@code sortBy} request value to the column it sorts on, which is the
+ * same in JPQL and SQL, and to the parser of its values. The parser turns the value of the key
+ * stored in a pagination cursor back into the type of the column.</p>
+ */
+@RequiredArgsConstructor
+public enum EnvelopeSortKey {
+    ID("id", "e.id", Integer::valueOf),
+    NAME("name", "e.name", value -> value),
+    AMOUNT("amount", "be.amount", BigDecimal::new),
+    RECURRING("recurring", "be.recurring", Boolean::valueOf),
+    STATUS("status", "be.status", value -> value);
+
+    @Getter
+    private final String sortBy;
+    @Getter
+    private final String column;
+    private final Function<String, Object> parser;
+
+    /**
+     * Returns the sort key for a {@code sortBy} request value.
+     *
+     * @param sortBy the {@code sortBy} request value
+     * @return an {@link Optional} containing the sort key, or an empty {@link Optional} if the
+     *     envelopes cannot be sorted by the value
+     */
+    public static Optional<EnvelopeSortKey> fromSortBy(String sortBy) {
+        return Arrays.stream(values())
+                .filter(key -> key.sortBy.equals(sortBy))
+                .findFirst();
+    }
+
+    /**
+     * Parses a value of this key from its string form.
+     *
+     * @param value the string form of the value
+     * @return the value in the type of the column
+     * @throws IllegalArgumentException if the value is not valid for the key
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+}
@@ -2,13 +2,16 @@ package com.jonichi.peridot.envelope.repository;
 
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.model.BudgetEnvelope;
-import jakarta.transaction.Transactional;
-import java.math.BigDecimal;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -20,70 +23,85 @@ import org.springframework.stereotype.Repository;
  * operations such as saving, deleting, and querying budget envelope data.</p>
  */
 @Repository
-public interface BudgetEnvelopeRepository extends JpaRepository<BudgetEnvelope, Integer> {
+public interface BudgetEnvelopeRepository extends JpaRepository<BudgetEnvelope, Integer>,
+        BudgetEnvelopeRepositoryCustom {
 
     /**
-     * Retrieves the total expenses for a specific budget.
-     *
-     * <p>This method calculates the sum of all amounts in the {@code BudgetEnvelope}
-     * entities associated with the given budget ID.</p>
+     * The number of rows fetched from the database at a time by {@link #streamEnvelopes}.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Retrieves a paginated list of active envelopes for a given budget ID.
      *
      * @param budgetId the unique identifier of the budget.
-     * @return the total expenses as a {@code BigDecimal}.
+     * @param pageable the page request containing pagination and sorting information.
+     * @return a paginated list of {@link EnvelopeDataDTO} representing the envelopes.
      */
     @Query("""
-            SELECT SUM(be.amount)
+            SELECT new com.jonichi.peridot.envelope.dto.EnvelopeDataDTO(
+                e.name, e.description, be.amount, be.recurring, be.status
+            )
             FROM BudgetEnvelope be
-            WHERE be.budgetId = :budgetId
+            INNER JOIN Envelope e ON be.envelopeId = e.id
+            WHERE be.budgetId = :budgetId AND e.status = 'SYSTEM_STATUS_ACTIVE'
             """)
-    BigDecimal getTotalExpenses(
-            @Param("budgetId") Integer budgetId
+    Page<EnvelopeDataDTO> getEnvelopes(
+            @Param("budgetId") Integer budgetId,
+            PageRequest pageable
     );
 
     /**
-     * Updates the details of a budget envelope.
+     * Streams the active envelopes of a given budget ID, ordered by budget envelope ID.
      *
-     * <p>This method modifies the amount, recurring status, and update timestamp of a
-     * budget envelope identified by the given budget envelope ID.</p>
+     * <p>The rows are read with a forward-only cursor, {@link #STREAM_FETCH_SIZE} at a time, so
+     * the memory used does not depend on how many envelopes the budget has. They are projected
+     * to {@link EnvelopeDataDTO} rather than loaded as entities, so the persistence context
+     * stays empty. The stream must be consumed and closed inside a transaction.</p>
      *
-     * @param budgetEnvelopeId the unique identifier of the budget envelope to update.
-     * @param amount the new amount to set for the budget envelope.
-     * @param recurring the new recurring status to set for the budget envelope.
-     * @return the number of rows affected by the update operation.
+     * @param budgetId the unique identifier of the budget.
+     * @return a stream of {@link EnvelopeDataDTO} representing the envelopes.
      */
-    @Transactional
-    @Modifying
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
-            UPDATE BudgetEnvelope be
-            SET
-                be.amount = :amount,
-                be.recurring = :recurring,
-                be.updatedDate = CURRENT_TIMESTAMP
-            WHERE be.id = :budgetEnvelopeId
+            SELECT new com.jonichi.peridot.envelope.dto.EnvelopeDataDTO(
+                e.name, e.description, be.amount, be.recurring, be.status
+            )
+            FROM BudgetEnvelope be
+            INNER JOIN Envelope e ON be.envelopeId = e.id
+            WHERE be.budgetId = :budgetId AND e.status = 'SYSTEM_STATUS_ACTIVE'
+            ORDER BY be.id
             """)
-    Integer updateBudgetEnvelope(
-            @Param("budgetEnvelopeId") Integer budgetEnvelopeId,
-            @Param("amount") BigDecimal amount,
-            @Param("recurring") Boolean recurring
-    );
+    Stream<EnvelopeDataDTO> streamEnvelopes(@Param("budgetId") Integer budgetId);
 
     /**
-     * Retrieves a paginated list of active envelopes for a given budget ID.
+     * Counts the active envelopes of a given budget ID.
      *
      * @param budgetId the unique identifier of the budget.
-     * @param pageable the page request containing pagination and sorting information.
-     * @return a paginated list of {@link EnvelopeDataDTO} representing the envelopes.
+     * @return the number of active envelopes of the budget.
      */
     @Query("""
-            SELECT new com.jonichi.peridot.envelope.dto.EnvelopeDataDTO(
-                e.name, e.description, be.amount, be.recurring, be.status
-            )
+            SELECT COUNT(be)
             FROM BudgetEnvelope be
             INNER JOIN Envelope e ON be.envelopeId = e.id
             WHERE be.budgetId = :budgetId AND e.status = 'SYSTEM_STATUS_ACTIVE'
             """)
-    Page<EnvelopeDataDTO> getEnvelopes(
-            @Param("budgetId") Integer budgetId,
-            PageRequest pageable
+    Long countEnvelopes(
+            @Param("budgetId") Integer budgetId
     );
+
+    /**
+     * Retrieves the budget envelopes of a given budget ID with the given IDs.
+     *
+     * <p>The rows are not locked. A budget envelope whose amount changes between being read
+     * and being updated is detected by its version when the update is flushed.</p>
+     *
+     * @param budgetId the unique identifier of the budget.
+     * @param ids the unique identifiers of the budget envelopes.
+     * @return the budget envelopes of the budget among the given IDs.
+     */
+    List<BudgetEnvelope> findAllByBudgetIdAndIdIn(Integer budgetId, Collection<Integer> ids);
 }
@@ -0,0 +1,113 @@
+package com.jonichi.peridot.envelope.repository;
+
+import com.jonichi.peridot.envelope.dto.EnvelopeCursor;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursorRow;
+import com.jonichi.peridot.envelope.dto.EnvelopeWriteResult;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Custom repository fragment for {@link BudgetEnvelope} operations that are not expressible as
+ * derived or JPQL queries.
+ */
+public interface BudgetEnvelopeRepositoryCustom {
+
+    /**
+     * Updates the details of a budget envelope and returns the amount it had before.
+     *
+     * <p>This method modifies the amount, recurring status, and update timestamp of a
+     * budget envelope identified by the given budget envelope ID. The previous amount is read
+     * by the same statement while holding the lock on the row, so concurrent updates of the
+     * same budget envelope each see the amount written by the one before.</p>
+     *
+     * @param budgetEnvelopeId the unique identifier of the budget envelope to update.
+     * @param amount the new amount to set for the budget envelope.
+     * @param recurring the new recurring status to set for the budget envelope.
+     * @return an {@link Optional} containing the previous amount of the budget envelope, or an
+     *     empty {@link Optional} if the budget envelope does not exist.
+     */
+    Optional<BigDecimal> updateBudgetEnvelope(
+            Integer budgetEnvelopeId,
+            BigDecimal amount,
+            Boolean recurring
+    );
+
+    /**
+     * Retrieves the active envelopes of a budget that come after a cursor in the given sort.
+     *
+     * <p>The page is read with a keyset condition on the sort key and the budget envelope id
+     * instead of an offset, so reading a page costs the same wherever it is in the listing and
+     * no count query is needed.</p>
+     *
+     * @param budgetId the unique identifier of the budget.
+     * @param sortKey the key to sort the envelopes by.
+     * @param direction the direction of the sort.
+     * @param after the cursor of the last envelope of the previous page, or {@code null} for
+     *     the first page.
+     * @param limit the maximum number of envelopes to return.
+     * @return the envelopes of the page, each with its cursor.
+     */
+    List<EnvelopeCursorRow> getEnvelopesAfter(
+            Integer budgetId,
+            EnvelopeSortKey sortKey,
+            Sort.Direction direction,
+            EnvelopeCursor after,
+            int limit
+    );
+
+    /**
+     * Creates an envelope and its budget envelope and adds its amount to the allocated total of
+     * the budget, in a single statement.
+     *
+     * <p>The status of the budget is derived from the new allocated total as in
+     * {@code BudgetRepository#updateAllocatedTotal}. The ids are taken from the id generators
+     * of the entities, like the ids of the envelopes saved through JPA.</p>
+     *
+     * @param userId the unique identifier of the user who owns the envelope.
+     * @param budgetId the unique identifier of the budget the envelope is allocated to.
+     * @param name the name of the envelope.
+     * @param description the description of the envelope.
+     * @param amount the amount allocated to the envelope.
+     * @param recurring the recurring status of the envelope.
+     * @return the ids of the written rows.
+     */
+    @Transactional
+    EnvelopeWriteResult createAllocatedEnvelope(
+            Integer userId,
+            Integer budgetId,
+            String name,
+            String description,
+            BigDecimal amount,
+            Boolean recurring
+    );
+
+    /**
+     * Updates an envelope and its budget envelope and adds the change of its amount to the
+     * allocated total of the budget, in a single statement.
+     *
+     * <p>The previous amount is read while holding the lock on the budget envelope, as in
+     * {@link #updateBudgetEnvelope(Integer, BigDecimal, Boolean)}, and the status of the budget
+     * is derived from the new allocated total as in {@code BudgetRepository#updateAllocatedTotal}.
+     * </p>
+     *
+     * @param budgetEnvelopeId the unique identifier of the budget envelope to update.
+     * @param name the new name of the envelope.
+     * @param description the new description of the envelope.
+     * @param amount the new amount of the budget envelope.
+     * @param recurring the new recurring status of the budget envelope.
+     * @return an {@link Optional} containing the ids of the written rows, or an empty
+     *     {@link Optional} if the budget envelope does not exist.
+     */
+    Optional<EnvelopeWriteResult> updateAllocatedEnvelope(
+            Integer budgetEnvelopeId,
+            String name,
+            String description,
+            BigDecimal amount,
+            Boolean recurring
+    );
+}
@@ -0,0 +1,258 @@
+package com.jonichi.peridot.envelope.repository;
+
+import com.jonichi.peridot.common.util.EntityIdUtil;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursor;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursorRow;
+import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeWriteResult;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+/**
+ * {@link JdbcClient} based implementation of {@link BudgetEnvelopeRepositoryCustom}.
+ *
+ * <p>Updates use {@code UPDATE ... RETURNING} so that the affected row is read by the same
+ * statement that modifies it, and increment the version of the budget envelope so that an
+ * entity read before the update can no longer be written. The keyset listing interpolates
+ * only the column of an {@link EnvelopeSortKey} and the sort direction into its SQL; every
+ * value is bound.</p>
+ *
+ * <p>The allocated writes chain the envelope, the budget envelope and the budget in
+ * data-modifying common table expressions, so that saving an envelope takes one round trip to
+ * the database and a transaction no longer than that statement. The ids of the inserted rows
+ * are taken from the id generators of the entities, see {@link EntityIdUtil}.</p>
+ */
+@RequiredArgsConstructor
+public class BudgetEnvelopeRepositoryCustomImpl implements BudgetEnvelopeRepositoryCustom {
+
+    private static final String UPDATE_BUDGET_ENVELOPE = """
+            UPDATE budget_envelope be
+            SET
+                amount = :amount,
+                recurring = :recurring,
+                version = be.version + 1,
+                updated_date = CURRENT_TIMESTAMP
+            FROM (
+                SELECT id, amount
+                FROM budget_envelope
+                WHERE id = :budgetEnvelopeId
+                FOR UPDATE
+            ) previous
+            WHERE be.id = previous.id
+            RETURNING previous.amount
+            """;
+
+    private static final String GET_ENVELOPES_AFTER = """
+            SELECT
+                e.name,
+                e.description,
+                be.amount,
+                be.recurring,
+                be.status,
+                be.id AS budget_envelope_id,
+                %1$s AS sort_value
+            FROM budget_envelope be
+            INNER JOIN envelope e ON be.envelope_id = e.id
+            WHERE be.budget_id = :budgetId
+                AND e.status = 'SYSTEM_STATUS_ACTIVE'
+                %3$s
+            ORDER BY %1$s %2$s, be.id %2$s
+            LIMIT :limit
+            """;
+
+    private static final String CREATE_ALLOCATED_ENVELOPE = """
+            WITH created_envelope AS (
+                -- The ids come from the pooled generators of the entities, since the sequences
+                -- are incremented by their allocation size and nextval would use up a pool.
+                INSERT INTO envelope (id, user_id, name, description, status)
+                VALUES (
+                    :envelopeId,
+                    :userId,
+                    :name,
+                    :description,
+                    'SYSTEM_STATUS_ACTIVE'
+                )
+                RETURNING id
+            ), created_budget_envelope AS (
+                INSERT INTO budget_envelope (id, budget_id, envelope_id, amount, recurring, status)
+                SELECT
+                    :budgetEnvelopeId,
+                    :budgetId,
+                    id,
+                    :amount,
+                    :recurring,
+                    'ENVELOPE_STATUS_UNDER'
+                FROM created_envelope
+                RETURNING id, budget_id, envelope_id, amount AS delta
+            ), %s
+            SELECT budget_id, envelope_id, id AS budget_envelope_id
+            FROM created_budget_envelope
+            """.formatted(updatedBudget("created_budget_envelope"));
+
+    private static final String UPDATE_ALLOCATED_ENVELOPE = """
+            WITH previous AS (
+                SELECT id, amount
+                FROM budget_envelope
+                WHERE id = :budgetEnvelopeId
+                FOR UPDATE
+            ), updated_budget_envelope AS (
+                UPDATE budget_envelope be
+                SET
+                    amount = :amount,
+                    recurring = :recurring,
+                    version = be.version + 1,
+                    updated_date = CURRENT_TIMESTAMP
+                FROM previous
+                WHERE be.id = previous.id
+                RETURNING be.id, be.budget_id, be.envelope_id, be.amount - previous.amount AS delta
+            ), updated_envelope AS (
+                UPDATE envelope e
+                SET
+                    name = :name,
+                    description = :description,
+                    updated_date = CURRENT_TIMESTAMP
+                FROM updated_budget_envelope ube
+                WHERE e.id = ube.envelope_id
+            ), %s
+            SELECT budget_id, envelope_id, id AS budget_envelope_id
+            FROM updated_budget_envelope
+            """.formatted(updatedBudget("updated_budget_envelope"));
+
+    private static final String AFTER_CURSOR =
+            "AND (%s, be.id) %s (:sortValue, :budgetEnvelopeId)";
+
+    private final JdbcClient jdbcClient;
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<BigDecimal> updateBudgetEnvelope(
+            Integer budgetEnvelopeId,
+            BigDecimal amount,
+            Boolean recurring
+    ) {
+        return jdbcClient.sql(UPDATE_BUDGET_ENVELOPE)
+                .param("budgetEnvelopeId", budgetEnvelopeId)
+                .param("amount", amount)
+                .param("recurring", recurring)
+                .query(BigDecimal.class)
+                .optional();
+    }
+
+    @Override
+    public List<EnvelopeCursorRow> getEnvelopesAfter(
+            Integer budgetId,
+            EnvelopeSortKey sortKey,
+            Sort.Direction direction,
+            EnvelopeCursor after,
+            int limit
+    ) {
+        String afterCursor = after == null ? "" : AFTER_CURSOR.formatted(
+                sortKey.getColumn(),
+                direction.isAscending() ? ">" : "<"
+        );
+        JdbcClient.StatementSpec statement = jdbcClient.sql(GET_ENVELOPES_AFTER.formatted(
+                        sortKey.getColumn(),
+                        direction.name(),
+                        afterCursor
+                ))
+                .param("budgetId", budgetId)
+                .param("limit", limit);
+
+        if (after != null) {
+            statement = statement
+                    .param("sortValue", after.sortValue())
+                    .param("budgetEnvelopeId", after.budgetEnvelopeId());
+        }
+
+        return statement
+                .query((rs, rowNum) -> new EnvelopeCursorRow(
+                        new EnvelopeDataDTO(
+                                rs.getString("name"),
+                                rs.getString("description"),
+                                rs.getBigDecimal("amount"),
+                                rs.getBoolean("recurring"),
+                                BudgetEnvelopeStatus.valueOf(rs.getString("status"))
+                        ),
+                        new EnvelopeCursor(
+                                sortKey,
+                                direction,
+                                String.valueOf(rs.getObject("sort_value")),
+                                rs.getInt("budget_envelope_id")
+                        )
+                ))
+                .list();
+    }
+
+    @Override
+    public EnvelopeWriteResult createAllocatedEnvelope(
+            Integer userId,
+            Integer budgetId,
+            String name,
+            String description,
+            BigDecimal amount,
+            Boolean recurring
+    ) {
+        return jdbcClient.sql(CREATE_ALLOCATED_ENVELOPE)
+                .param("envelopeId", EntityIdUtil.nextId(entityManager, Envelope.class))
+                .param("budgetEnvelopeId", EntityIdUtil.nextId(entityManager, BudgetEnvelope.class))
+                .param("userId", userId)
+                .param("budgetId", budgetId)
+                .param("name", name)
+                .param("description", description)
+                .param("amount", amount)
+                .param("recurring", recurring)
+                .query(EnvelopeWriteResult.class)
+                .single();
+    }
+
+    @Override
+    public Optional<EnvelopeWriteResult> updateAllocatedEnvelope(
+            Integer budgetEnvelopeId,
+            String name,
+            String description,
+            BigDecimal amount,
+            Boolean recurring
+    ) {
+        return jdbcClient.sql(UPDATE_ALLOCATED_ENVELOPE)
+                .param("budgetEnvelopeId", budgetEnvelopeId)
+                .param("name", name)
+                .param("description", description)
+                .param("amount", amount)
+                .param("recurring", recurring)
+                .query(EnvelopeWriteResult.class)
+                .optional();
+    }
+
+    /**
+     * Returns the common table expression that adds the {@code delta} of the budget envelope
+     * written by another expression to the allocated total of its budget.
+     */
+    private static String updatedBudget(String budgetEnvelope) {
+        return """
+                updated_budget AS (
+                    UPDATE budget b
+                    SET
+                        allocated_total = b.allocated_total + %1$s.delta,
+                        status = CASE
+                            WHEN b.allocated_total + %1$s.delta = b.amount
+                                THEN 'BUDGET_STATUS_COMPLETE'
+                            WHEN b.allocated_total + %1$s.delta > b.amount
+                                THEN 'BUDGET_STATUS_INVALID'
+                            ELSE 'BUDGET_STATUS_INCOMPLETE'
+                        END,
+                        version = b.version + 1,
+                        updated_date = CURRENT_TIMESTAMP
+                    FROM %1$s
+                    WHERE b.id = %1$s.budget_id
+                )""".formatted(budgetEnvelope);
+    }
+}
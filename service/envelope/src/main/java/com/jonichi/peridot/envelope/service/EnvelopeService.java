@@ -1,9 +1,14 @@
 package com.jonichi.peridot.envelope.service;
 
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
+import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
 import com.jonichi.peridot.envelope.dto.PeridotPagination;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing envelopes.
@@ -53,6 +58,30 @@ public interface EnvelopeService {
             Boolean recurring
     );
 
+    /**
+     * Creates and updates several envelopes of the current budget at once.
+     *
+     * <p>An envelope with a budget envelope ID updates that budget envelope and its envelope, any
+     * other envelope is created. All the envelopes are saved in one transaction with batched
+     * statements, and the budget is updated once for all of them.</p>
+     *
+     * @param envelopes the envelopes to create or update.
+     * @return the result of each envelope, in the order of the request.
+     */
+    List<BulkEnvelopeResultDTO> saveEnvelopes(List<CreateUpdateEnvelopeDTO> envelopes);
+
+    /**
+     * Retrieves the version of the envelopes of a given budget.
+     *
+     * <p>The version is the version of the budget, which every write to the envelopes of the
+     * budget increments, so it can be compared without reading the envelopes.</p>
+     *
+     * @param budgetId the ID of the budget whose envelopes are versioned
+     * @return an {@link Optional} containing the version, or an empty {@link Optional} if the
+     *     budget does not exist
+     */
+    Optional<Long> getEnvelopesVersion(Integer budgetId);
+
     /**
      * Retrieves a paginated list of envelopes for a given budget.
      *
@@ -74,4 +103,42 @@ public interface EnvelopeService {
             String sortBy,
             String sortDirection
     );
+
+    /**
+     * Passes every active envelope of a given budget to a consumer, one at a time.
+     *
+     * <p>The envelopes are streamed from the database in a read-only transaction that stays
+     * open until the last envelope is consumed, so neither the service nor the persistence
+     * context holds more than a batch of rows at once.</p>
+     *
+     * @param budgetId the ID of the budget to stream envelopes for
+     * @param consumer the consumer of each envelope, in the order of their budget envelope ID
+     */
+    void streamEnvelopes(Integer budgetId, Consumer<EnvelopeDataDTO> consumer);
+
+    /**
+     * Retrieves a page of envelopes for a given budget, starting after a cursor.
+     *
+     * <p>This method fetches envelopes associated with the specified budget ID with keyset
+     * pagination. The returned page carries the cursor of its last envelope, which is passed
+     * back to read the next page, so the cost of a page does not grow with its position.</p>
+     *
+     * @param budgetId the ID of the budget to retrieve envelopes for
+     * @param after the cursor returned with the previous page, or {@code null} for the first page
+     * @param size the number of items per page, from 1 to 100
+     * @param sortBy the field to sort the results by
+     * @param sortDirection the direction to sort the results (either "asc" for ascending or
+     *     "desc" for descending)
+     * @param includeTotal whether to count the envelopes of the budget, which costs an extra
+     *     query
+     * @return a page of envelope data transfer objects (DTOs)
+     */
+    PeridotPagination<EnvelopeDataDTO> getEnvelopesAfter(
+            Integer budgetId,
+            String after,
+            Integer size,
+            String sortBy,
+            String sortDirection,
+            Boolean includeTotal
+    );
 }
@@ -3,23 +3,45 @@ package com.jonichi.peridot.envelope.service.impl;
 import com.jonichi.peridot.budget.service.BudgetContextService;
 import com.jonichi.peridot.common.dto.UserBudgetDTO;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
 import com.jonichi.peridot.common.model.SystemStatus;
 import com.jonichi.peridot.common.util.TransactionalHandler;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
+import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursor;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursorRow;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeWriteResult;
 import com.jonichi.peridot.envelope.dto.PeridotPagination;
 import com.jonichi.peridot.envelope.model.BudgetEnvelope;
 import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
 import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
 import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
 import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
 import com.jonichi.peridot.envelope.service.EnvelopeService;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -32,17 +54,31 @@ import org.springframework.stereotype.Service;
  * <p>This service handles the creation of envelopes and associated budget envelopes. It
  * interacts with the repository layer to persist envelope and budget envelope details in
  * the database. A transaction is used to ensure that the operations are atomic.</p>
+ *
+ * <p>When {@code envelope.fused-writes.enabled} is true, a single envelope is created or
+ * updated by one statement that also updates the allocated total and status of the budget,
+ * instead of one statement per table inside a transaction.</p>
+ *
+ * <p>Envelopes saved in bulk are read without locks and written back as entities, so a
+ * concurrent write to one of them is detected by its version. The whole bulk save is then
+ * retried with the amounts read again, which keeps the allocated total and status of the
+ * budget consistent without making concurrent writers wait for each other's reads.</p>
  */
 @Service
 @RequiredArgsConstructor
 public class EnvelopeServiceImpl implements EnvelopeService {
 
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private static final Logger logger = LoggerFactory.getLogger(EnvelopeServiceImpl.class);
     private final BudgetContextService budgetContextService;
     private final EnvelopeRepository envelopeRepository;
     private final BudgetEnvelopeRepository budgetEnvelopeRepository;
     private final TransactionalHandler transactionalHandler;
 
+    @Value("${envelope.fused-writes.enabled:false}")
+    boolean fusedWrites;
+
     @Override
     public EnvelopeResponseDTO createEnvelope(
             String name,
@@ -50,11 +86,20 @@ public class EnvelopeServiceImpl implements EnvelopeService {
             BigDecimal amount,
             Boolean recurring
     ) {
-        logger.info("Start - Service - createEnvelope");
-
         try {
             UserBudgetDTO userBudgetDTO = budgetContextService.getCurrentUserBudgetId();
 
+            if (fusedWrites) {
+                return toEnvelopeResponseDTO(budgetEnvelopeRepository.createAllocatedEnvelope(
+                        userBudgetDTO.userId(),
+                        userBudgetDTO.budgetId(),
+                        name,
+                        description,
+                        amount,
+                        recurring
+                ));
+            }
+
             Supplier<EnvelopeResponseDTO> supplier = () -> {
                 Envelope envelope = envelopeRepository.save(Envelope.builder()
                         .userId(userBudgetDTO.userId())
@@ -73,13 +118,7 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                             .build()
                 );
 
-                BigDecimal totalExpenses = budgetEnvelopeRepository
-                        .getTotalExpenses(userBudgetDTO.budgetId());
-
-                budgetContextService.updateBudgetStatus(
-                        userBudgetDTO.budgetId(),
-                        totalExpenses
-                );
+                budgetContextService.updateAllocatedTotal(userBudgetDTO.budgetId(), amount);
 
                 return EnvelopeResponseDTO.builder()
                         .envelopeId(envelope.getId())
@@ -87,15 +126,12 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                         .build();
             };
 
-            return transactionalHandler.runInTransactionSupplier(supplier);
+            return transactionalHandler.runInTransactionSupplier("createEnvelope", supplier);
         } catch (DataIntegrityViolationException e) {
             logger.error("DataIntegrityViolationException: {}", e.getMessage());
 
             throw new PeridotDuplicateException("Envelope already exists");
-        } finally {
-            logger.info("End - Service - createEnvelope");
         }
-
     }
 
     @Override
@@ -106,9 +142,21 @@ public class EnvelopeServiceImpl implements EnvelopeService {
             BigDecimal amount,
             Boolean recurring
     ) {
-        logger.info("Start - Service - updateEnvelope");
-
         try {
+            if (fusedWrites) {
+                return toEnvelopeResponseDTO(budgetEnvelopeRepository
+                        .updateAllocatedEnvelope(
+                                budgetEnvelopeId,
+                                name,
+                                description,
+                                amount,
+                                recurring
+                        )
+                        .orElseThrow(() -> new PeridotNotFoundException(
+                                "Envelope does not exist"
+                        )));
+            }
+
             Supplier<EnvelopeResponseDTO> supplier = () -> {
                 BudgetEnvelope budgetEnvelope = budgetEnvelopeRepository
                         .getReferenceById(budgetEnvelopeId);
@@ -119,18 +167,15 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                         description
                 );
 
-                budgetEnvelopeRepository.updateBudgetEnvelope(
-                        budgetEnvelopeId,
-                        amount,
-                        recurring
-                );
-
-                BigDecimal totalExpenses = budgetEnvelopeRepository
-                        .getTotalExpenses(budgetEnvelope.getBudgetId());
+                BigDecimal previousAmount = budgetEnvelopeRepository
+                        .updateBudgetEnvelope(budgetEnvelopeId, amount, recurring)
+                        .orElseThrow(() -> new PeridotNotFoundException(
+                                "Envelope does not exist"
+                        ));
 
-                budgetContextService.updateBudgetStatus(
+                budgetContextService.updateAllocatedTotal(
                         budgetEnvelope.getBudgetId(),
-                        totalExpenses
+                        amount.subtract(previousAmount)
                 );
 
                 return EnvelopeResponseDTO.builder()
@@ -139,7 +184,7 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                         .build();
             };
 
-            return transactionalHandler.runInTransactionSupplier(supplier);
+            return transactionalHandler.runInTransactionSupplier("updateEnvelope", supplier);
         } catch (DataIntegrityViolationException e) {
             logger.error("Update DataIntegrityViolationException: {}", e.getMessage());
 
@@ -148,10 +193,138 @@ public class EnvelopeServiceImpl implements EnvelopeService {
             logger.error("NullPointerException: {}", e.getMessage());
 
             throw new PeridotNotFoundException("Envelope does not exist");
-        } finally {
-            logger.info("End - Service - updateEnvelope");
         }
+    }
+
+    @Override
+    public List<BulkEnvelopeResultDTO> saveEnvelopes(List<CreateUpdateEnvelopeDTO> envelopes) {
+        try {
+            UserBudgetDTO userBudgetDTO = budgetContextService.getCurrentUserBudgetId();
+
+            Supplier<List<BulkEnvelopeResultDTO>> supplier = () -> {
+                Map<Integer, BudgetEnvelope> budgetEnvelopes = getBudgetEnvelopesForUpdate(
+                        userBudgetDTO.budgetId(),
+                        envelopes
+                );
+                Map<Integer, Envelope> updatedEnvelopes = envelopeRepository
+                        .findAllById(budgetEnvelopes.values().stream()
+                                .map(BudgetEnvelope::getEnvelopeId)
+                                .toList())
+                        .stream()
+                        .collect(Collectors.toMap(Envelope::getId, Function.identity()));
+
+                Iterator<Envelope> createdEnvelopes = envelopeRepository.saveAll(envelopes.stream()
+                        .filter(envelope -> envelope.budgetEnvelopeId() == null)
+                        .map(envelope -> Envelope.builder()
+                                .userId(userBudgetDTO.userId())
+                                .name(envelope.name())
+                                .description(envelope.description())
+                                .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                                .build())
+                        .toList()).iterator();
+
+                LocalDateTime updatedDate = LocalDateTime.now();
+                BigDecimal allocatedDelta = BigDecimal.ZERO;
+                List<BudgetEnvelope> savedBudgetEnvelopes = new ArrayList<>();
+                List<BudgetEnvelope> createdBudgetEnvelopes = new ArrayList<>();
+                for (CreateUpdateEnvelopeDTO envelope : envelopes) {
+                    BudgetEnvelope budgetEnvelope;
+                    if (envelope.budgetEnvelopeId() == null) {
+                        budgetEnvelope = BudgetEnvelope.builder()
+                                .budgetId(userBudgetDTO.budgetId())
+                                .envelopeId(createdEnvelopes.next().getId())
+                                .amount(envelope.amount())
+                                .recurring(envelope.recurring())
+                                .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                                .build();
+                        createdBudgetEnvelopes.add(budgetEnvelope);
+                        allocatedDelta = allocatedDelta.add(envelope.amount());
+                    } else {
+                        budgetEnvelope = budgetEnvelopes.get(envelope.budgetEnvelopeId());
+                        Envelope updatedEnvelope = updatedEnvelopes.get(
+                                budgetEnvelope.getEnvelopeId()
+                        );
+                        updatedEnvelope.setName(envelope.name());
+                        updatedEnvelope.setDescription(envelope.description());
+                        updatedEnvelope.setUpdatedDate(updatedDate);
 
+                        allocatedDelta = allocatedDelta.add(
+                                envelope.amount().subtract(budgetEnvelope.getAmount())
+                        );
+                        budgetEnvelope.setAmount(envelope.amount());
+                        budgetEnvelope.setRecurring(envelope.recurring());
+                        budgetEnvelope.setUpdatedDate(updatedDate);
+                    }
+                    savedBudgetEnvelopes.add(budgetEnvelope);
+                }
+                budgetEnvelopeRepository.saveAll(createdBudgetEnvelopes);
+
+                budgetContextService.updateAllocatedTotal(
+                        userBudgetDTO.budgetId(),
+                        allocatedDelta
+                );
+
+                return IntStream.range(0, envelopes.size())
+                        .mapToObj(index -> BulkEnvelopeResultDTO.builder()
+                                .index(index)
+                                .created(envelopes.get(index).budgetEnvelopeId() == null)
+                                .envelopeId(savedBudgetEnvelopes.get(index).getEnvelopeId())
+                                .budgetEnvelopeId(savedBudgetEnvelopes.get(index).getId())
+                                .build())
+                        .toList();
+            };
+
+            return transactionalHandler.runInTransactionWithRetry("saveEnvelopes", supplier);
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Bulk DataIntegrityViolationException: {}", e.getMessage());
+
+            throw new PeridotDuplicateException("Envelope already exists");
+        }
+    }
+
+    private EnvelopeResponseDTO toEnvelopeResponseDTO(EnvelopeWriteResult envelopeWriteResult) {
+        budgetContextService.invalidateBudget(envelopeWriteResult.budgetId());
+
+        return EnvelopeResponseDTO.builder()
+                .envelopeId(envelopeWriteResult.envelopeId())
+                .budgetEnvelopeId(envelopeWriteResult.budgetEnvelopeId())
+                .build();
+    }
+
+    private Map<Integer, BudgetEnvelope> getBudgetEnvelopesForUpdate(
+            Integer budgetId,
+            List<CreateUpdateEnvelopeDTO> envelopes
+    ) {
+        List<Integer> budgetEnvelopeIds = envelopes.stream()
+                .map(CreateUpdateEnvelopeDTO::budgetEnvelopeId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (budgetEnvelopeIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<Integer> uniqueBudgetEnvelopeIds = new HashSet<>(budgetEnvelopeIds);
+        if (uniqueBudgetEnvelopeIds.size() < budgetEnvelopeIds.size()) {
+            throw new PeridotNotAllowedException("Envelope cannot be updated more than once");
+        }
+
+        Map<Integer, BudgetEnvelope> budgetEnvelopes = budgetEnvelopeRepository
+                .findAllByBudgetIdAndIdIn(budgetId, uniqueBudgetEnvelopeIds)
+                .stream()
+                .collect(Collectors.toMap(BudgetEnvelope::getId, Function.identity()));
+        if (budgetEnvelopes.size() < uniqueBudgetEnvelopeIds.size()) {
+            throw new PeridotNotFoundException("Envelope does not exist");
+        }
+
+        return budgetEnvelopes;
+    }
+
+    @Override
+    public Optional<Long> getEnvelopesVersion(Integer budgetId) {
+        return transactionalHandler.runInReadOnlyTransactionSupplier(
+                "getEnvelopesVersion",
+                () -> budgetContextService.getBudgetVersion(budgetId)
+        );
     }
 
     @Override
@@ -164,14 +337,7 @@ public class EnvelopeServiceImpl implements EnvelopeService {
     ) {
         Sort.Direction direction = Sort.Direction.fromString(sortDirection);
 
-        Sort sort = switch (sortBy) {
-            case "id" -> Sort.by(direction, "e.id");
-            case "name" -> Sort.by(direction, "e.name");
-            case "amount" -> Sort.by(direction, "be.amount");
-            case "recurring" -> Sort.by(direction, "be.recurring");
-            case "status" -> Sort.by(direction, "be.status");
-            default -> throw new PeridotNotFoundException("Sort by " + sortBy + " is not allowed");
-        };
+        Sort sort = Sort.by(direction, getSortKey(sortBy).getColumn());
 
         PageRequest pageable = PageRequest.of(
                 page - 1,
@@ -179,8 +345,9 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                 sort
         );
 
-        Page<EnvelopeDataDTO> envelopes = budgetEnvelopeRepository.getEnvelopes(
-                budgetId, pageable
+        Page<EnvelopeDataDTO> envelopes = transactionalHandler.runInReadOnlyTransactionSupplier(
+                "getEnvelopes",
+                () -> budgetEnvelopeRepository.getEnvelopes(budgetId, pageable)
         );
 
         return PeridotPagination.<EnvelopeDataDTO>builder()
@@ -193,4 +360,68 @@ public class EnvelopeServiceImpl implements EnvelopeService {
                 .last(envelopes.isLast())
                 .build();
     }
+
+    @Override
+    public void streamEnvelopes(Integer budgetId, Consumer<EnvelopeDataDTO> consumer) {
+        transactionalHandler.runInReadOnlyTransaction("streamEnvelopes", () -> {
+            try (Stream<EnvelopeDataDTO> envelopes = budgetEnvelopeRepository
+                    .streamEnvelopes(budgetId)) {
+                envelopes.forEach(consumer);
+            }
+        });
+    }
+
+    @Override
+    public PeridotPagination<EnvelopeDataDTO> getEnvelopesAfter(
+            Integer budgetId,
+            String after,
+            Integer size,
+            String sortBy,
+            String sortDirection,
+            Boolean includeTotal
+    ) {
+        if (size == null || size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new PeridotNotAllowedException(
+                    "Size must be between 1 and " + MAX_CURSOR_PAGE_SIZE
+            );
+        }
+
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        EnvelopeSortKey sortKey = getSortKey(sortBy);
+        EnvelopeCursor cursor = after == null
+                ? null
+                : EnvelopeCursor.decode(after, sortKey, direction);
+
+        Supplier<PeridotPagination<EnvelopeDataDTO>> supplier = () -> {
+            List<EnvelopeCursorRow> rows = budgetEnvelopeRepository.getEnvelopesAfter(
+                    budgetId,
+                    sortKey,
+                    direction,
+                    cursor,
+                    size + 1
+            );
+            boolean last = rows.size() <= size;
+            List<EnvelopeCursorRow> page = last ? rows : rows.subList(0, size);
+
+            return PeridotPagination.<EnvelopeDataDTO>builder()
+                    .content(page.stream().map(EnvelopeCursorRow::envelope).toList())
+                    .totalElements(Boolean.TRUE.equals(includeTotal)
+                            ? budgetEnvelopeRepository.countEnvelopes(budgetId)
+                            : null)
+                    .numberOfElements(page.size())
+                    .first(cursor == null)
+                    .last(last)
+                    .nextCursor(last ? null : page.getLast().cursor().encode())
+                    .build();
+        };
+
+        return transactionalHandler.runInReadOnlyTransactionSupplier("getEnvelopesAfter", supplier);
+    }
+
+    private EnvelopeSortKey getSortKey(String sortBy) {
+        return EnvelopeSortKey.fromSortBy(sortBy)
+                .orElseThrow(() -> new PeridotNotFoundException(
+                        "Sort by " + sortBy + " is not allowed"
+                ));
+    }
 }
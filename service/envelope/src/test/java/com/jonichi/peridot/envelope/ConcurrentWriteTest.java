@@ -0,0 +1,284 @@
+package com.jonichi.peridot.envelope;
+
+import com.jonichi.peridot.auth.model.AuthenticatedUser;
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.budget.model.Budget;
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.common.util.DateUtil;
+import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
+import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
+import com.jonichi.peridot.envelope.service.EnvelopeService;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Saves the envelopes of one budget in bulk from many threads at once and asserts that the
+ * allocated total and status of the budget always end up consistent with its envelopes.
+ *
+ * <p>Every save rewrites the amounts of all the envelopes, so two saves that overlap always
+ * conflict on at least one of them. The retries are not bounded by the default number of
+ * attempts here, so that every save eventually succeeds and the outcome can be checked.</p>
+ */
+@SpringBootTest(
+        classes = {EnvelopeApp.class, ConcurrentWriteTest.ConcurrentWriteConfig.class},
+        properties = {
+            "transaction.retry.max-attempts=100",
+            "transaction.retry.backoff-millis=2"
+        }
+)
+@ActiveProfiles("test")
+public class ConcurrentWriteTest {
+
+    private static final int THREADS = 8;
+    private static final int SAVES_PER_THREAD = 5;
+    private static final int ENVELOPES = 4;
+    private static final BigDecimal BUDGET_AMOUNT = BigDecimal.valueOf(5000);
+
+    @Autowired
+    private EnvelopeService envelopeService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private EnvelopeRepository envelopeRepository;
+    @Autowired
+    private BudgetEnvelopeRepository budgetEnvelopeRepository;
+
+    private static final PostgreSQLContainer<?> POSTGRES_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    private static Connection connection;
+
+    private User user;
+    private Integer budgetId;
+    private List<Integer> budgetEnvelopeIds;
+
+    /**
+     * Registers the repositories and entities of every module. It is deliberately not annotated
+     * as a configuration class so that the component scan of other tests does not pick it up.
+     */
+    @EnableJpaRepositories(basePackages = {"com.jonichi.peridot"})
+    @EntityScan(basePackages = {"com.jonichi.peridot"})
+    static class ConcurrentWriteConfig {
+    }
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        POSTGRES_CONTAINER.start();
+        connection = DriverManager.getConnection(
+                POSTGRES_CONTAINER.getJdbcUrl(),
+                POSTGRES_CONTAINER.getUsername(),
+                POSTGRES_CONTAINER.getPassword()
+        );
+
+        applyDatabaseMigrations();
+    }
+
+    private static void applyDatabaseMigrations() throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(
+                        new liquibase.database.jvm.JdbcConnection(connection)
+                );
+        Liquibase liquibase = new Liquibase(
+                "changelog/changelog-root.yml",
+                new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                database
+        );
+        liquibase.update("");
+    }
+
+    @AfterAll
+    static void afterAll() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        POSTGRES_CONTAINER.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRES_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    public void setUpTestData() {
+        user = userRepository.saveAndFlush(User.builder()
+                .username("test")
+                .email("test@mail.com")
+                .password("encodedPassword")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build());
+
+        budgetId = budgetRepository.saveAndFlush(Budget.builder()
+                .userId(user.getId())
+                .amount(BUDGET_AMOUNT)
+                .period(DateUtil.getCurrentPeriod())
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .build()).getId();
+
+        budgetEnvelopeIds = IntStream.range(0, ENVELOPES)
+                .mapToObj(index -> {
+                    Envelope envelope = envelopeRepository.saveAndFlush(Envelope.builder()
+                            .userId(user.getId())
+                            .name("Envelope " + index)
+                            .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                            .build());
+
+                    return budgetEnvelopeRepository.saveAndFlush(BudgetEnvelope.builder()
+                            .budgetId(budgetId)
+                            .envelopeId(envelope.getId())
+                            .amount(BigDecimal.ZERO)
+                            .recurring(true)
+                            .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                            .build()).getId();
+                })
+                .toList();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        budgetEnvelopeRepository.deleteAll();
+        envelopeRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Returns the amounts saved by a save, which add up to less than, exactly or more than the
+     * amount of the budget depending on the save.
+     */
+    private List<BigDecimal> amountsOf(int thread, int save) {
+        return IntStream.range(0, ENVELOPES)
+                .mapToObj(index -> BigDecimal.valueOf(
+                        500L * ((thread * SAVES_PER_THREAD + save + index) % 4 + 1)
+                ))
+                .toList();
+    }
+
+    private List<CreateUpdateEnvelopeDTO> envelopesOf(List<BigDecimal> amounts) {
+        return IntStream.range(0, ENVELOPES)
+                .mapToObj(index -> CreateUpdateEnvelopeDTO.builder()
+                        .name("Envelope " + index)
+                        .amount(amounts.get(index))
+                        .recurring(true)
+                        .budgetEnvelopeId(budgetEnvelopeIds.get(index))
+                        .build())
+                .toList();
+    }
+
+    private Callable<Void> saveEnvelopes(int thread, CountDownLatch start) {
+        return () -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(
+                            AuthenticatedUser.from(user),
+                            null,
+                            List.of()
+                    )
+            );
+            try {
+                start.await();
+                for (int save = 0; save < SAVES_PER_THREAD; save++) {
+                    envelopeService.saveEnvelopes(envelopesOf(amountsOf(thread, save)));
+                }
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+
+            return null;
+        };
+    }
+
+    private static BudgetStatus statusOf(BigDecimal allocatedTotal) {
+        int comparison = allocatedTotal.compareTo(BUDGET_AMOUNT);
+        if (comparison == 0) {
+            return BudgetStatus.BUDGET_STATUS_COMPLETE;
+        }
+
+        return comparison > 0
+                ? BudgetStatus.BUDGET_STATUS_INVALID
+                : BudgetStatus.BUDGET_STATUS_INCOMPLETE;
+    }
+
+    @Test
+    public void saveEnvelopes_fromConcurrentThreads_shouldKeepBudgetConsistent() throws Exception {
+        // given
+        CountDownLatch start = new CountDownLatch(1);
+        List<List<BigDecimal>> savedAmounts = new ArrayList<>();
+        IntStream.range(0, THREADS).forEach(thread -> IntStream.range(0, SAVES_PER_THREAD)
+                .forEach(save -> savedAmounts.add(amountsOf(thread, save).stream()
+                        .map(amount -> amount.setScale(2))
+                        .toList())));
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> saves = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                saves.add(executor.submit(saveEnvelopes(thread, start)));
+            }
+            start.countDown();
+            for (Future<Void> save : saves) {
+                save.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Budget budget = budgetRepository.findById(budgetId).orElseThrow();
+        List<BigDecimal> amounts = budgetEnvelopeIds.stream()
+                .map(id -> budgetEnvelopeRepository.findById(id).orElseThrow().getAmount())
+                .toList();
+        BigDecimal total = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // then
+        assertThat(savedAmounts).contains(amounts);
+        assertThat(budget.getAllocatedTotal()).isEqualByComparingTo(total);
+        assertThat(budget.getStatus()).isEqualTo(statusOf(total));
+        assertThat(budget.getVersion()).isEqualTo((long) THREADS * SAVES_PER_THREAD);
+    }
+}
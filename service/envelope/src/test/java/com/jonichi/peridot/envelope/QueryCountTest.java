@@ -0,0 +1,540 @@
+package com.jonichi.peridot.envelope;
+
+import com.jonichi.peridot.auth.config.JwtAuthenticationFilter;
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.auth.service.JwtService;
+import com.jonichi.peridot.budget.model.Budget;
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.common.util.DateUtil;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
+import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
+import com.jonichi.peridot.envelope.service.impl.EnvelopeServiceImpl;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Asserts the number of SQL statements executed by each endpoint, so that redundant queries
+ * (such as looking the authenticated user up more than once) cannot creep back in.
+ */
+@SpringBootTest(
+        classes = {EnvelopeApp.class, QueryCountTest.QueryCountConfig.class},
+        properties = "jwt.stateless-authentication=true"
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class QueryCountTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static final Pattern USER_TABLE = Pattern.compile("\\b_user\\b");
+    private static final Pattern SEQUENCE_CALL = Pattern.compile("\\bnextval\\b");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private EnvelopeRepository envelopeRepository;
+    @Autowired
+    private BudgetEnvelopeRepository budgetEnvelopeRepository;
+    @Autowired
+    private EnvelopeServiceImpl envelopeServiceImpl;
+
+    private static final PostgreSQLContainer<?> POSTGRES_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    private static Connection connection;
+
+    private String token;
+    private Integer budgetId;
+    private Integer budgetEnvelopeId;
+
+    /**
+     * Registers the repositories and entities of every module and records the SQL statements
+     * sent to the database. It is deliberately not annotated as a configuration class so that
+     * the component scan of other tests does not pick it up.
+     */
+    @EnableJpaRepositories(basePackages = {"com.jonichi.peridot"})
+    @EntityScan(basePackages = {"com.jonichi.peridot"})
+    static class QueryCountConfig {
+
+        @Bean
+        static BeanPostProcessor queryRecordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder
+                                .create(dataSource)
+                                .afterQuery((execInfo, queryInfoList) -> queryInfoList
+                                        .stream()
+                                        .map(QueryInfo::getQuery)
+                                        .forEach(STATEMENTS::add))
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        POSTGRES_CONTAINER.start();
+        connection = DriverManager.getConnection(
+                POSTGRES_CONTAINER.getJdbcUrl(),
+                POSTGRES_CONTAINER.getUsername(),
+                POSTGRES_CONTAINER.getPassword()
+        );
+
+        applyDatabaseMigrations();
+    }
+
+    private static void applyDatabaseMigrations() throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(
+                        new liquibase.database.jvm.JdbcConnection(connection)
+                );
+        Liquibase liquibase = new Liquibase(
+                "changelog/changelog-root.yml",
+                new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                database
+        );
+        liquibase.update("");
+    }
+
+    @AfterAll
+    static void afterAll() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        POSTGRES_CONTAINER.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRES_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    public void setUpTestData() {
+        User user = userRepository.saveAndFlush(User.builder()
+                .username("test")
+                .email("test@mail.com")
+                .password("encodedPassword")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build());
+        token = jwtService.generateToken(user);
+
+        Budget budget = budgetRepository.saveAndFlush(Budget.builder()
+                .userId(user.getId())
+                .amount(BigDecimal.valueOf(10000))
+                .period(DateUtil.getCurrentPeriod())
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .build());
+        budgetId = budget.getId();
+
+        Envelope envelope = envelopeRepository.saveAndFlush(Envelope.builder()
+                .userId(user.getId())
+                .name("Test")
+                .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                .build());
+
+        budgetEnvelopeId = budgetEnvelopeRepository.saveAndFlush(BudgetEnvelope.builder()
+                .budgetId(budgetId)
+                .envelopeId(envelope.getId())
+                .amount(BigDecimal.valueOf(1000))
+                .recurring(true)
+                .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                .build()).getId();
+
+        STATEMENTS.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuthentication", true);
+        ReflectionTestUtils.setField(envelopeServiceImpl, "fusedWrites", true);
+        budgetEnvelopeRepository.deleteAll();
+        envelopeRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private List<String> userStatements() {
+        return STATEMENTS.stream()
+                .filter(statement -> USER_TABLE.matcher(statement).find())
+                .toList();
+    }
+
+    /**
+     * Returns the statements other than the sequence calls, whose number depends on how many
+     * ids earlier tests left in the pools of the id generators.
+     */
+    private List<String> nonSequenceStatements() {
+        return STATEMENTS.stream()
+                .filter(statement -> !SEQUENCE_CALL.matcher(statement).find())
+                .toList();
+    }
+
+    @Test
+    public void getCurrentBudget_shouldNotQueryUser() throws Exception {
+        // when
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    public void getCurrentBudget_withStatefulAuthentication_shouldQueryUserOnce() throws Exception {
+        // given
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuthentication", false);
+
+        // when
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).hasSize(1);
+        assertThat(STATEMENTS).hasSize(2);
+    }
+
+    @Test
+    public void updateCurrentBudget_shouldNotQueryUser() throws Exception {
+        // when
+        mockMvc.perform(put("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 20000}"))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    public void createEnvelope_shouldNotQueryUser() throws Exception {
+        // when
+        mockMvc.perform(post("/api/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "New envelope",
+                                    "description": "Description",
+                                    "amount": 500,
+                                    "recurring": true
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(2);
+    }
+
+    @Test
+    public void createEnvelope_withCachedBudget_shouldNotQueryBudget() throws Exception {
+        // given
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        STATEMENTS.clear();
+
+        // when
+        mockMvc.perform(post("/api/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "New envelope",
+                                    "description": "Description",
+                                    "amount": 500,
+                                    "recurring": true
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        // then
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    public void getCurrentBudget_withCachedBudget_shouldNotQueryDatabase() throws Exception {
+        // given
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/budgets/current")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+        STATEMENTS.clear();
+
+        // when
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(STATEMENTS).isEmpty();
+    }
+
+    @Test
+    public void updateEnvelope_shouldNotQueryUser() throws Exception {
+        // when
+        mockMvc.perform(put("/api/envelopes/" + budgetEnvelopeId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "Updated envelope",
+                                    "description": "Description",
+                                    "amount": 700,
+                                    "recurring": false
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    public void updateEnvelope_withoutFusedWrites_shouldUpdateEachTable() throws Exception {
+        // given
+        ReflectionTestUtils.setField(envelopeServiceImpl, "fusedWrites", false);
+
+        // when
+        mockMvc.perform(put("/api/envelopes/" + budgetEnvelopeId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "Updated envelope",
+                                    "description": "Description",
+                                    "amount": 700,
+                                    "recurring": false
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(4);
+    }
+
+    @Test
+    public void getEnvelopes_shouldNotQueryUser() throws Exception {
+        // when
+        mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(2);
+    }
+
+    @Test
+    public void getEnvelopes_withMatchingETag_shouldOnlyQueryVersion() throws Exception {
+        // given
+        String eTag = mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        STATEMENTS.clear();
+
+        // when
+        mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // then
+        assertThat(STATEMENTS).hasSize(1);
+        assertThat(STATEMENTS.getFirst()).contains("version");
+    }
+
+    @Test
+    public void getEnvelopes_afterEnvelopeUpdate_shouldReturnNewETag() throws Exception {
+        // given
+        String eTag = mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(put("/api/envelopes/" + budgetEnvelopeId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "Renamed envelope",
+                                    "description": "Description",
+                                    "amount": 1000,
+                                    "recurring": true
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        // when
+        String updatedETag = mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // then
+        assertThat(updatedETag).isNotNull().isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void getCurrentBudget_afterEnvelopeCreate_shouldReturnNewETag() throws Exception {
+        // given
+        String eTag = mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(post("/api/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "New envelope",
+                                    "description": "Description",
+                                    "amount": 500,
+                                    "recurring": true
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        // when
+        String updatedETag = mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // then
+        assertThat(updatedETag).isNotNull().isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void streamEnvelopes_shouldOnlyQueryEnvelopes() throws Exception {
+        // given
+        MvcResult result = mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes/stream")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    public void getEnvelopes_withCursorPagination_shouldNotCountEnvelopes() throws Exception {
+        // when
+        mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .param("pagination", "cursor")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(STATEMENTS).hasSize(2);
+    }
+
+    @Test
+    public void saveEnvelopes_shouldBatchTheStatementsOfAllEnvelopes() throws Exception {
+        // given
+        String envelopes = IntStream.range(0, 50)
+                .mapToObj(index -> """
+                        { "name": "Envelope %d", "amount": 100, "recurring": true }
+                        """.formatted(index))
+                .collect(Collectors.joining(",", "{\"envelopes\": [", "]}"));
+
+        // when
+        mockMvc.perform(post("/api/envelopes/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(envelopes))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(userStatements()).isEmpty();
+        assertThat(nonSequenceStatements()).hasSize(4);
+    }
+}
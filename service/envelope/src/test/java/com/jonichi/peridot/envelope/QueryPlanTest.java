@@ -0,0 +1,426 @@
+package com.jonichi.peridot.envelope;
+
+import com.jayway.jsonpath.JsonPath;
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.auth.service.JwtService;
+import com.jonichi.peridot.budget.model.Budget;
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.common.util.DateUtil;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
+import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Asserts that no SQL statement executed by the hot endpoints reads a table with a sequential
+ * scan, so that a query change or a dropped index cannot silently degrade to a full scan.
+ *
+ * <p>Every statement sent to the database is recorded with its parameters and explained again
+ * on a separate connection. The planner prefers sequential scans of small tables whatever the
+ * indexes are, so sequential scans are disabled on that connection: a sequential scan left in
+ * a plan then means that no index can serve the query.</p>
+ */
+@SpringBootTest(
+        classes = {EnvelopeApp.class, QueryPlanTest.QueryPlanConfig.class},
+        properties = "jwt.stateless-authentication=true"
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class QueryPlanTest {
+
+    private static final List<RecordedStatement> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static final String SEQUENTIAL_SCAN = "Seq Scan";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private EnvelopeRepository envelopeRepository;
+    @Autowired
+    private BudgetEnvelopeRepository budgetEnvelopeRepository;
+
+    private static final PostgreSQLContainer<?> POSTGRES_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    private static Connection connection;
+
+    private String token;
+    private Integer budgetId;
+    private Integer budgetEnvelopeId;
+
+    /**
+     * Registers the repositories and entities of every module and records the SQL statements
+     * sent to the database. It is deliberately not annotated as a configuration class so that
+     * the component scan of other tests does not pick it up.
+     */
+    @EnableJpaRepositories(basePackages = {"com.jonichi.peridot"})
+    @EntityScan(basePackages = {"com.jonichi.peridot"})
+    static class QueryPlanConfig {
+
+        @Bean
+        static BeanPostProcessor queryRecordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder
+                                .create(dataSource)
+                                .afterQuery((execInfo, queryInfoList) -> queryInfoList
+                                        .stream()
+                                        .map(RecordedStatement::from)
+                                        .forEach(STATEMENTS::add))
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * A statement sent to the database with the first set of its parameters.
+     *
+     * @param sql the SQL of the statement
+     * @param parameters the operations that set the parameters of the statement
+     */
+    private record RecordedStatement(String sql, List<ParameterSetOperation> parameters) {
+
+        static RecordedStatement from(QueryInfo queryInfo) {
+            return new RecordedStatement(
+                    queryInfo.getQuery(),
+                    queryInfo.getParametersList().isEmpty()
+                            ? List.of()
+                            : List.copyOf(queryInfo.getParametersList().getFirst())
+            );
+        }
+    }
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        POSTGRES_CONTAINER.start();
+        connection = DriverManager.getConnection(
+                POSTGRES_CONTAINER.getJdbcUrl(),
+                POSTGRES_CONTAINER.getUsername(),
+                POSTGRES_CONTAINER.getPassword()
+        );
+
+        applyDatabaseMigrations();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+
+    private static void applyDatabaseMigrations() throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(
+                        new liquibase.database.jvm.JdbcConnection(connection)
+                );
+        Liquibase liquibase = new Liquibase(
+                "changelog/changelog-root.yml",
+                new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                database
+        );
+        liquibase.update("");
+    }
+
+    @AfterAll
+    static void afterAll() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        POSTGRES_CONTAINER.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRES_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    public void setUpTestData() {
+        User user = userRepository.saveAndFlush(User.builder()
+                .username("test")
+                .email("test@mail.com")
+                .password("encodedPassword")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build());
+        token = jwtService.generateToken(user);
+
+        Budget budget = budgetRepository.saveAndFlush(Budget.builder()
+                .userId(user.getId())
+                .amount(BigDecimal.valueOf(10000))
+                .period(DateUtil.getCurrentPeriod())
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .build());
+        budgetId = budget.getId();
+
+        List<Envelope> envelopes = envelopeRepository.saveAllAndFlush(IntStream.range(0, 5)
+                .mapToObj(index -> Envelope.builder()
+                        .userId(user.getId())
+                        .name("Test " + index)
+                        .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                        .build())
+                .toList());
+
+        budgetEnvelopeId = budgetEnvelopeRepository.saveAllAndFlush(envelopes.stream()
+                .map(envelope -> BudgetEnvelope.builder()
+                        .budgetId(budgetId)
+                        .envelopeId(envelope.getId())
+                        .amount(BigDecimal.valueOf(1000))
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build())
+                .toList()).getFirst().getId();
+
+        STATEMENTS.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        budgetEnvelopeRepository.deleteAll();
+        envelopeRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private void assertNoSequentialScans() throws Exception {
+        assertThat(STATEMENTS).isNotEmpty();
+        for (RecordedStatement statement : STATEMENTS) {
+            assertThat(explain(statement)).as(statement.sql()).doesNotContain(SEQUENTIAL_SCAN);
+        }
+    }
+
+    private String explain(RecordedStatement recordedStatement) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "EXPLAIN " + recordedStatement.sql()
+        )) {
+            for (ParameterSetOperation parameter : recordedStatement.parameters()) {
+                parameter.getMethod().invoke(statement, parameter.getArgs());
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append(System.lineSeparator());
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    @Test
+    public void getCurrentBudget_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void updateCurrentBudget_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(put("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 20000}"))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void createEnvelope_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(post("/api/envelopes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "New envelope",
+                                    "description": "Description",
+                                    "amount": 500,
+                                    "recurring": true
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void updateEnvelope_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(put("/api/envelopes/" + budgetEnvelopeId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "name": "Updated envelope",
+                                    "description": "Description",
+                                    "amount": 700,
+                                    "recurring": false
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void getEnvelopes_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .param("size", "2")
+                        .param("sortBy", "amount")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void streamEnvelopes_shouldNotScanSequentially() throws Exception {
+        // given
+        MvcResult result = mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes/stream")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void getEnvelopes_withCursorPagination_shouldNotScanSequentially() throws Exception {
+        // given
+        String nextCursor = JsonPath.read(
+                mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                                .param("pagination", "cursor")
+                                .param("size", "2")
+                                .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                "$.data.nextCursor"
+        );
+        STATEMENTS.clear();
+
+        // when
+        mockMvc.perform(get("/api/budgets/" + budgetId + "/envelopes")
+                        .param("after", nextCursor)
+                        .param("size", "2")
+                        .param("includeTotal", "true")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void repairAllocatedTotal_shouldNotScanSequentially() throws Exception {
+        // when
+        budgetRepository.repairAllocatedTotal(budgetId);
+
+        // then
+        assertNoSequentialScans();
+    }
+
+    @Test
+    public void saveEnvelopes_shouldNotScanSequentially() throws Exception {
+        // when
+        mockMvc.perform(post("/api/envelopes/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "envelopes": [
+                                        { "name": "New", "amount": 500, "recurring": true },
+                                        {
+                                            "name": "Updated",
+                                            "amount": 700,
+                                            "recurring": false,
+                                            "budgetEnvelopeId": %d
+                                        }
+                                    ]
+                                }
+                                """.formatted(budgetEnvelopeId)))
+                .andExpect(status().isOk());
+
+        // then
+        assertNoSequentialScans();
+    }
+}
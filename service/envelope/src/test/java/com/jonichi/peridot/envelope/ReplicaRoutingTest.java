@@ -0,0 +1,352 @@
+package com.jonichi.peridot.envelope;
+
+import com.jonichi.peridot.auth.model.AuthenticatedUser;
+import com.jonichi.peridot.auth.model.Role;
+import com.jonichi.peridot.auth.model.User;
+import com.jonichi.peridot.auth.repository.UserRepository;
+import com.jonichi.peridot.auth.service.JwtService;
+import com.jonichi.peridot.budget.model.Budget;
+import com.jonichi.peridot.budget.model.BudgetStatus;
+import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.config.ReplicaLagMonitor;
+import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.common.util.DateUtil;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
+import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Runs the application against a primary and a second database standing for its read replica,
+ * and asserts which of them serves the reads.
+ *
+ * <p>The replica only has the schema and is never written to, so a row written to the primary
+ * is found by a read served by the primary and missing from a read served by the replica.
+ * The current budget is not cached, so that every request reads it.</p>
+ */
+@SpringBootTest(
+        classes = {EnvelopeApp.class, ReplicaRoutingTest.ReplicaRoutingConfig.class},
+        properties = {
+            "datasource.replica.enabled=true",
+            "datasource.replica.lag-check-interval=100ms",
+            "jwt.stateless-authentication=true",
+            "budget.cache.enabled=false"
+        }
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private EnvelopeRepository envelopeRepository;
+    @Autowired
+    private BudgetEnvelopeRepository budgetEnvelopeRepository;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private static final PostgreSQLContainer<?> PRIMARY_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+    private static final PostgreSQLContainer<?> REPLICA_CONTAINER =
+            new PostgreSQLContainer<>("postgres:14-alpine")
+                    .withDatabaseName("testdb")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    /**
+     * Registers the repositories and entities of every module. It is deliberately not annotated
+     * as a configuration class so that the component scan of other tests does not pick it up.
+     */
+    @EnableJpaRepositories(basePackages = {"com.jonichi.peridot"})
+    @EntityScan(basePackages = {"com.jonichi.peridot"})
+    static class ReplicaRoutingConfig {
+    }
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        PRIMARY_CONTAINER.start();
+        REPLICA_CONTAINER.start();
+        applyDatabaseMigrations(PRIMARY_CONTAINER);
+        applyDatabaseMigrations(REPLICA_CONTAINER);
+    }
+
+    private static void applyDatabaseMigrations(PostgreSQLContainer<?> container)
+            throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                container.getJdbcUrl(),
+                container.getUsername(),
+                container.getPassword()
+        )) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(
+                            new liquibase.database.jvm.JdbcConnection(connection)
+                    );
+            Liquibase liquibase = new Liquibase(
+                    "changelog/changelog-root.yml",
+                    new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                    database
+            );
+            liquibase.update("");
+        }
+    }
+
+    @AfterAll
+    static void afterAll() {
+        PRIMARY_CONTAINER.stop();
+        REPLICA_CONTAINER.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", PRIMARY_CONTAINER::getPassword);
+        registry.add("datasource.replica.url", REPLICA_CONTAINER::getJdbcUrl);
+        registry.add("datasource.replica.username", REPLICA_CONTAINER::getUsername);
+        registry.add("datasource.replica.password", REPLICA_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        replicaLagMonitor.checkLag();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+        budgetEnvelopeRepository.deleteAll();
+        envelopeRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private User saveUser(String username) {
+        return userRepository.saveAndFlush(User.builder()
+                .username(username)
+                .email(username + "@mail.com")
+                .password("encodedPassword")
+                .role(Role.USER_ROLE_ACCOUNT)
+                .build());
+    }
+
+    /**
+     * Writes a budget with one envelope for the user to the primary, without an authenticated
+     * user, so that the write is not recorded as one of the user.
+     */
+    private Integer saveBudgetWithEnvelope(User user) {
+        Integer budgetId = budgetRepository.saveAndFlush(Budget.builder()
+                .userId(user.getId())
+                .amount(BigDecimal.valueOf(10000))
+                .period(DateUtil.getCurrentPeriod())
+                .status(BudgetStatus.BUDGET_STATUS_INCOMPLETE)
+                .build()).getId();
+        Envelope envelope = envelopeRepository.saveAndFlush(Envelope.builder()
+                .userId(user.getId())
+                .name("Test")
+                .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                .build());
+        budgetEnvelopeRepository.saveAndFlush(BudgetEnvelope.builder()
+                .budgetId(budgetId)
+                .envelopeId(envelope.getId())
+                .amount(BigDecimal.valueOf(1000))
+                .recurring(true)
+                .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                .build());
+
+        return budgetId;
+    }
+
+    private void updateCurrentBudget(String token) throws Exception {
+        mockMvc.perform(put("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 20000}"))
+                .andExpect(status().isOk());
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(
+                        AuthenticatedUser.from(user),
+                        null,
+                        List.of()
+                )
+        );
+    }
+
+    @Test
+    public void read_afterOwnWrite_shouldBeServedByPrimaryUntilReplicaCatchesUp()
+            throws Exception {
+        // given
+        User user = saveUser("test");
+        authenticate(user);
+
+        // when
+        User written = saveUser("written");
+        boolean readAfterWrite = userRepository.findById(written.getId()).isPresent();
+        Thread.sleep(300);
+        boolean laterRead = userRepository.findById(written.getId()).isPresent();
+
+        // then
+        assertThat(readAfterWrite).isTrue();
+        assertThat(laterRead).isFalse();
+    }
+
+    @Test
+    public void read_withoutAuthenticatedUser_shouldBeServedByPrimary() throws Exception {
+        // given
+        User user = saveUser("test");
+
+        // when
+        boolean found = userRepository.findById(user.getId()).isPresent();
+
+        // then
+        assertThat(found).isTrue();
+    }
+
+    @Test
+    public void write_withAuthenticatedUser_shouldBeServedByPrimary() throws Exception {
+        // given
+        User user = saveUser("test");
+        authenticate(user);
+        Thread.sleep(300);
+
+        // when
+        userRepository.deleteById(user.getId());
+        SecurityContextHolder.clearContext();
+
+        // then
+        assertThat(userRepository.findById(user.getId()).isPresent()).isFalse();
+    }
+
+    @Test
+    public void getCurrentBudget_withoutRecentWrite_shouldBeServedByReplica() throws Exception {
+        // given
+        User user = saveUser("test");
+        saveBudgetWithEnvelope(user);
+        String token = jwtService.generateToken(user);
+
+        // when
+
+        // then
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getCurrentBudget_afterOwnWrite_shouldBeServedByPrimaryUntilReplicaCatchesUp()
+            throws Exception {
+        // given
+        User user = saveUser("test");
+        saveBudgetWithEnvelope(user);
+        String token = jwtService.generateToken(user);
+
+        // when
+        updateCurrentBudget(token);
+
+        // then
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.amount").value(20000));
+        Thread.sleep(300);
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getEnvelopes_withoutRecentWrite_shouldBeServedByReplica() throws Exception {
+        // given
+        User user = saveUser("test");
+        Integer budgetId = saveBudgetWithEnvelope(user);
+        String token = jwtService.generateToken(user);
+
+        // when
+
+        // then
+        mockMvc.perform(get("/api/budgets/{budgetId}/envelopes", budgetId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(0));
+        mockMvc.perform(get("/api/budgets/{budgetId}/envelopes", budgetId)
+                        .header("Authorization", "Bearer " + token)
+                        .param("pagination", "cursor")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(0));
+    }
+
+    @Test
+    public void getEnvelopes_afterOwnWrite_shouldBeServedByPrimaryUntilReplicaCatchesUp()
+            throws Exception {
+        // given
+        User user = saveUser("test");
+        Integer budgetId = saveBudgetWithEnvelope(user);
+        String token = jwtService.generateToken(user);
+
+        // when
+        updateCurrentBudget(token);
+
+        // then
+        mockMvc.perform(get("/api/budgets/{budgetId}/envelopes", budgetId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1));
+        mockMvc.perform(get("/api/budgets/{budgetId}/envelopes", budgetId)
+                        .header("Authorization", "Bearer " + token)
+                        .param("pagination", "cursor")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1));
+        Thread.sleep(300);
+        mockMvc.perform(get("/api/budgets/{budgetId}/envelopes", budgetId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(0));
+    }
+}
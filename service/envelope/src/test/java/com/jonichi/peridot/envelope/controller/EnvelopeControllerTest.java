@@ -1,20 +1,31 @@
 package com.jonichi.peridot.envelope.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jonichi.peridot.common.dto.ApiResponse;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeRequestDTO;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
 import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
 import com.jonichi.peridot.envelope.dto.PeridotPagination;
 import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
 import com.jonichi.peridot.envelope.service.EnvelopeService;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -24,16 +35,31 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @ExtendWith(MockitoExtension.class)
 public class EnvelopeControllerTest {
 
     @Mock
     private EnvelopeService envelopeService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
     @InjectMocks
     private EnvelopeController envelopeController;
 
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(
+                new MockHttpServletRequest("GET", "/api/budgets/1/envelopes"),
+                new MockHttpServletResponse()
+        );
+    }
+
     @Test
     public void createEnvelope_shouldReturnTheCorrectResponse() throws Exception {
         // given
@@ -114,6 +140,50 @@ public class EnvelopeControllerTest {
         assertThat(response.getBody().getCode()).isEqualTo(200);
     }
 
+    @Test
+    public void saveEnvelopes_shouldReturnTheResultOfEachEnvelope() throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Sample")
+                        .amount(new BigDecimal("1000"))
+                        .recurring(true)
+                        .build(),
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Existing")
+                        .amount(new BigDecimal("500"))
+                        .recurring(false)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+        List<BulkEnvelopeResultDTO> results = List.of(
+                BulkEnvelopeResultDTO.builder()
+                        .index(0)
+                        .created(true)
+                        .envelopeId(1)
+                        .budgetEnvelopeId(1)
+                        .build(),
+                BulkEnvelopeResultDTO.builder()
+                        .index(1)
+                        .created(false)
+                        .envelopeId(2)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+
+        // when
+        when(envelopeService.saveEnvelopes(envelopes)).thenReturn(results);
+        ResponseEntity<ApiResponse<List<BulkEnvelopeResultDTO>>> response = envelopeController
+                .saveEnvelopes(BulkEnvelopeRequestDTO.builder().envelopes(envelopes).build());
+
+        // then
+        verify(envelopeService, times(1)).saveEnvelopes(envelopes);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(Objects.requireNonNull(response.getBody()).getData()).isEqualTo(results);
+        assertThat(response.getBody().getMessage()).isEqualTo("Envelopes saved successfully");
+        assertThat(response.getBody().getCode()).isEqualTo(200);
+    }
+
     @Test
     public void getEnvelopes_shouldReturnPaginatedResponse() throws Exception {
         // given
@@ -168,7 +238,11 @@ public class EnvelopeControllerTest {
                         page,
                         size,
                         sortBy,
-                        sortDirection
+                        sortDirection,
+                        "offset",
+                        null,
+                        false,
+                        webRequest()
                 );
 
         // then
@@ -184,4 +258,133 @@ public class EnvelopeControllerTest {
         assertThat(response.getBody().getCode()).isEqualTo(200);
     }
 
+    @Test
+    public void getEnvelopes_withCursor_shouldReturnThePageAfterTheCursor() throws Exception {
+        // given
+        Integer budgetId = 1;
+        List<EnvelopeDataDTO> envelopes = List.of(
+                EnvelopeDataDTO.builder()
+                        .name("Sample")
+                        .amount(BigDecimal.valueOf(1000))
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build()
+        );
+        PeridotPagination<EnvelopeDataDTO> peridotPagination = PeridotPagination
+                .<EnvelopeDataDTO>builder()
+                .content(envelopes)
+                .numberOfElements(1)
+                .first(false)
+                .last(false)
+                .nextCursor("next")
+                .build();
+
+        // when
+        when(envelopeService.getEnvelopesAfter(budgetId, "after", 1, "id", "asc", false))
+                .thenReturn(peridotPagination);
+        ResponseEntity<ApiResponse<PeridotPagination<EnvelopeDataDTO>>> response = envelopeController
+                .getEnvelopes(budgetId, 1, 1, "id", "asc", "offset", "after", false, webRequest());
+
+        // then
+        verify(envelopeService, times(1))
+                .getEnvelopesAfter(budgetId, "after", 1, "id", "asc", false);
+        verify(envelopeService, never()).getEnvelopes(budgetId, 1, 1, "id", "asc");
+        assertThat(Objects.requireNonNull(response.getBody()).getData()).isEqualTo(peridotPagination);
+    }
+
+    @Test
+    public void getEnvelopes_withVersionedBudget_shouldReturnETag() throws Exception {
+        // given
+        Integer budgetId = 1;
+        PeridotPagination<EnvelopeDataDTO> peridotPagination = PeridotPagination
+                .<EnvelopeDataDTO>builder()
+                .content(List.of())
+                .build();
+
+        // when
+        when(envelopeService.getEnvelopesVersion(budgetId)).thenReturn(Optional.of(5L));
+        when(envelopeService.getEnvelopes(budgetId, 1, 10, "id", "asc"))
+                .thenReturn(peridotPagination);
+        ResponseEntity<ApiResponse<PeridotPagination<EnvelopeDataDTO>>> response = envelopeController
+                .getEnvelopes(budgetId, 1, 10, "id", "asc", "offset", null, false, webRequest());
+
+        // then
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1-5\"");
+    }
+
+    @Test
+    public void getEnvelopes_withMatchingETag_shouldNotRetrieveEnvelopes() throws Exception {
+        // given
+        Integer budgetId = 1;
+        MockHttpServletRequest request = new MockHttpServletRequest(
+                "GET",
+                "/api/budgets/1/envelopes"
+        );
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-5\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        // when
+        when(envelopeService.getEnvelopesVersion(budgetId)).thenReturn(Optional.of(5L));
+        ResponseEntity<ApiResponse<PeridotPagination<EnvelopeDataDTO>>> response = envelopeController
+                .getEnvelopes(
+                        budgetId,
+                        1,
+                        10,
+                        "id",
+                        "asc",
+                        "offset",
+                        null,
+                        false,
+                        new ServletWebRequest(request, servletResponse)
+                );
+
+        // then
+        verify(envelopeService, never()).getEnvelopes(budgetId, 1, 10, "id", "asc");
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(304);
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1-5\"");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamEnvelopes_shouldWriteOneJsonLinePerEnvelope() throws Exception {
+        // given
+        Integer budgetId = 1;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            Consumer<EnvelopeDataDTO> consumer = invocation.getArgument(1);
+            consumer.accept(EnvelopeDataDTO.builder()
+                    .name("Sample 1")
+                    .amount(BigDecimal.valueOf(1000))
+                    .recurring(true)
+                    .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                    .build());
+            consumer.accept(EnvelopeDataDTO.builder()
+                    .name("Sample 2")
+                    .amount(BigDecimal.valueOf(500))
+                    .recurring(false)
+                    .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                    .build());
+            return null;
+        }).when(envelopeService).streamEnvelopes(any(), any(Consumer.class));
+
+        // when
+        ResponseEntity<StreamingResponseBody> response = envelopeController
+                .streamEnvelopes(budgetId);
+        verify(envelopeService, never()).streamEnvelopes(any(), any(Consumer.class));
+        Objects.requireNonNull(response.getBody()).writeTo(outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        verify(envelopeService, times(1)).streamEnvelopes(any(), any(Consumer.class));
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(lines.length).isEqualTo(2);
+        assertThat(objectMapper.readValue(lines[0], EnvelopeDataDTO.class).name())
+                .isEqualTo("Sample 1");
+        assertThat(objectMapper.readValue(lines[1], EnvelopeDataDTO.class).name())
+                .isEqualTo("Sample 2");
+    }
+
 }
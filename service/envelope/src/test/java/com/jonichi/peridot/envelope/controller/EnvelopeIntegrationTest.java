@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jonichi.peridot.auth.config.SecurityConfig;
 import com.jonichi.peridot.auth.repository.UserRepository;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
+import com.jonichi.peridot.common.constant.ErrorCode;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeRequestDTO;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
 import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
@@ -12,7 +16,14 @@ import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
 import com.jonichi.peridot.envelope.service.EnvelopeService;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
@@ -24,6 +35,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessRequest;
@@ -32,10 +44,16 @@ import static org.springframework.restdocs.operation.preprocess.Preprocessors.pr
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -219,6 +237,91 @@ public class EnvelopeIntegrationTest {
                 );
     }
 
+    @Test
+    @WithMockUser
+    public void saveEnvelopes_shouldReturn200Ok() throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Sample")
+                        .description("This is a sample envelope")
+                        .amount(new BigDecimal("500.00"))
+                        .recurring(true)
+                        .build(),
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Existing")
+                        .description("This is an existing envelope")
+                        .amount(new BigDecimal("200.00"))
+                        .recurring(false)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+        List<BulkEnvelopeResultDTO> results = List.of(
+                BulkEnvelopeResultDTO.builder()
+                        .index(0)
+                        .created(true)
+                        .envelopeId(3)
+                        .budgetEnvelopeId(3)
+                        .build(),
+                BulkEnvelopeResultDTO.builder()
+                        .index(1)
+                        .created(false)
+                        .envelopeId(2)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+
+        // when
+        when(envelopeService.saveEnvelopes(envelopes)).thenReturn(results);
+
+        // then
+        mockMvc.perform(post("/api/envelopes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                BulkEnvelopeRequestDTO.builder().envelopes(envelopes).build()
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].created").value(true))
+                .andExpect(jsonPath("$.data[1].budgetEnvelopeId").value(2))
+                .andDo(
+                        document("saveEnvelopesSuccess",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+    }
+
+    @Test
+    @WithMockUser
+    public void saveEnvelopes_withInvalidEnvelope_shouldReturn400BadRequestError()
+            throws Exception {
+        // given
+        String invalidRequest = """
+                {
+                    "envelopes": [
+                        { "name": "Sample", "amount": "500.00", "recurring": true },
+                        { "name": "Invalid", "amount": "-1.00", "recurring": true }
+                    ]
+                }
+                """;
+
+        // when
+
+        // then
+        mockMvc.perform(post("/api/envelopes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(invalidRequest))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andDo(
+                        document("saveEnvelopesInvalidRequest",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+    }
+
     @Test
     @WithMockUser
     public void getEnvelopes_shouldReturn200Ok() throws Exception {
@@ -261,6 +364,7 @@ public class EnvelopeIntegrationTest {
                 .build();
 
         // when
+        when(envelopeService.getEnvelopesVersion(budgetId)).thenReturn(Optional.of(5L));
         when(envelopeService.getEnvelopes(
                 budgetId,
                 page,
@@ -273,6 +377,7 @@ public class EnvelopeIntegrationTest {
         mockMvc.perform(get("/api/budgets/1/envelopes?page=1&size=10&sortBy=id&sortDirection=asc"))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5\""))
                 .andDo(
                         document("getEnvelopes",
                                 preprocessRequest(prettyPrint()),
@@ -281,4 +386,132 @@ public class EnvelopeIntegrationTest {
                 );
     }
 
+    @Test
+    @WithMockUser
+    public void getEnvelopes_withMatchingETag_shouldReturn304NotModified() throws Exception {
+        // when
+        when(envelopeService.getEnvelopesVersion(1)).thenReturn(Optional.of(5L));
+
+        // then
+        mockMvc.perform(get("/api/budgets/1/envelopes?page=1&size=10&sortBy=id&sortDirection=asc")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-5\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5\""))
+                .andExpect(content().string(""))
+                .andDo(
+                        document("getEnvelopesNotModified",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+        verify(envelopeService, never()).getEnvelopes(1, 1, 10, "id", "asc");
+    }
+
+    @Test
+    @WithMockUser
+    public void getEnvelopes_withCursorPagination_shouldReturn200Ok() throws Exception {
+        // given
+        List<EnvelopeDataDTO> envelopes = List.of(
+                EnvelopeDataDTO.builder()
+                        .name("Sample 1")
+                        .description("This is sample envelope")
+                        .amount(BigDecimal.valueOf(1000))
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build()
+        );
+        PeridotPagination<EnvelopeDataDTO> peridotPagination = PeridotPagination
+                .<EnvelopeDataDTO>builder()
+                .content(envelopes)
+                .numberOfElements(envelopes.size())
+                .first(true)
+                .last(false)
+                .nextCursor("YW1vdW50LERFU0MsMSwxMDAwLjAw")
+                .build();
+
+        // when
+        when(envelopeService.getEnvelopesAfter(1, null, 1, "amount", "desc", false))
+                .thenReturn(peridotPagination);
+
+        // then
+        mockMvc.perform(get(
+                        "/api/budgets/1/envelopes?pagination=cursor&size=1&sortBy=amount"
+                                + "&sortDirection=desc"
+                ))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.nextCursor").value("YW1vdW50LERFU0MsMSwxMDAwLjAw"))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                .andDo(
+                        document("getEnvelopesWithCursor",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+    }
+
+    @Test
+    @WithMockUser
+    public void getEnvelopes_withInvalidCursor_shouldReturn400BadRequest() throws Exception {
+        // when
+        when(envelopeService.getEnvelopesAfter(1, "invalid", 10, "id", "asc", false))
+                .thenThrow(new PeridotNotAllowedException("Cursor is not valid"));
+
+        // then
+        mockMvc.perform(get("/api/budgets/1/envelopes?after=invalid"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(ErrorCode.NOT_ALLOWED));
+    }
+
+    @Test
+    @WithMockUser
+    @SuppressWarnings("unchecked")
+    public void streamEnvelopes_shouldReturn200Ok() throws Exception {
+        // given
+        List<EnvelopeDataDTO> envelopes = List.of(
+                EnvelopeDataDTO.builder()
+                        .name("Sample 1")
+                        .description("This is sample envelope")
+                        .amount(BigDecimal.valueOf(1000))
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build(),
+                EnvelopeDataDTO.builder()
+                        .name("Sample 2")
+                        .description("This is sample envelope")
+                        .amount(BigDecimal.valueOf(500))
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build()
+        );
+
+        // when
+        doAnswer(invocation -> {
+            Consumer<EnvelopeDataDTO> consumer = invocation.getArgument(1);
+            envelopes.forEach(consumer);
+            return null;
+        }).when(envelopeService).streamEnvelopes(eq(1), any(Consumer.class));
+
+        // then
+        MvcResult result = mockMvc.perform(get("/api/budgets/1/envelopes/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(envelopes.get(0)) + "\n"
+                                + objectMapper.writeValueAsString(envelopes.get(1)) + "\n"
+                ))
+                .andDo(
+                        document("streamEnvelopes",
+                                preprocessRequest(prettyPrint()),
+                                preprocessResponse(prettyPrint())
+                        )
+                );
+    }
+
 }
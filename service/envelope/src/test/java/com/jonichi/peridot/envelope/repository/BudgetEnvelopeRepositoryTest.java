@@ -4,10 +4,13 @@ import com.jonichi.peridot.budget.model.Budget;
 import com.jonichi.peridot.budget.model.BudgetStatus;
 import com.jonichi.peridot.budget.repository.BudgetRepository;
 import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursorRow;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeWriteResult;
 import com.jonichi.peridot.envelope.model.BudgetEnvelope;
 import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
 import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.io.File;
@@ -17,6 +20,8 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import liquibase.Liquibase;
 import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
@@ -26,8 +31,11 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
@@ -39,6 +47,7 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 @DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ActiveProfiles("test")
 public class BudgetEnvelopeRepositoryTest {
@@ -147,32 +156,40 @@ public class BudgetEnvelopeRepositoryTest {
     }
 
     @Test
-    public void getTotalExpenses_shouldReturnCorrectTotalExpenses() throws Exception {
+    public void updateBudgetEnvelope_shouldUpdateAnBudgetEnvelope() throws Exception {
         // given
-        Integer budgetId = 1;
+        BudgetEnvelope budgetEnvelope = budgetEnvelopeRepository.findAll().stream()
+                .filter(value -> value.getAmount().compareTo(new BigDecimal("1000")) == 0)
+                .findFirst()
+                .get();
+        BigDecimal amount = BigDecimal.valueOf(1200);
 
         // when
-        BigDecimal totalExpenses = budgetEnvelopeRepository.getTotalExpenses(budgetId);
+        Optional<BigDecimal> previousAmount = budgetEnvelopeRepository.updateBudgetEnvelope(
+                budgetEnvelope.getId(),
+                amount,
+                false
+        );
+        entityManager.clear();
 
         // then
-        assertThat(totalExpenses).isEqualTo(new BigDecimal("1500.00"));
+        assertThat(previousAmount).isEqualTo(Optional.of(new BigDecimal("1000.00")));
+        assertThat(budgetEnvelopeRepository.findById(budgetEnvelope.getId()).get().getAmount())
+                .isEqualTo(new BigDecimal("1200.00"));
     }
 
     @Test
-    public void updateBudgetEnvelope_shouldUpdateAnBudgetEnvelope() throws Exception {
-        // given
-        Integer budgetEnvelopeId = budgetEnvelopeRepository.findAll().getFirst().getId();
-        BigDecimal amount = BigDecimal.valueOf(1200);
-
+    public void updateBudgetEnvelope_withNonExistingBudgetEnvelope_shouldReturnEmpty()
+            throws Exception {
         // when
-        Integer updated = budgetEnvelopeRepository.updateBudgetEnvelope(
-                budgetEnvelopeId,
-                amount,
+        Optional<BigDecimal> previousAmount = budgetEnvelopeRepository.updateBudgetEnvelope(
+                -1,
+                BigDecimal.valueOf(1200),
                 false
         );
 
         // then
-        assertThat(updated).isEqualTo(1);
+        assertThat(previousAmount.isPresent()).isFalse();
     }
 
     @Test
@@ -226,4 +243,188 @@ public class BudgetEnvelopeRepositoryTest {
         assertThat(envelopes.isLast()).isTrue();
     }
 
+    @Test
+    public void streamEnvelopes_shouldStreamEnvelopesWithoutManagingEntities() throws Exception {
+        // given
+        Integer budgetId = budgetRepository.findAll().getFirst().getId();
+        entityManager.clear();
+
+        // when
+        List<EnvelopeDataDTO> envelopes;
+        try (Stream<EnvelopeDataDTO> stream = budgetEnvelopeRepository.streamEnvelopes(budgetId)) {
+            envelopes = stream.toList();
+        }
+
+        // then
+        assertThat(envelopes.stream().map(EnvelopeDataDTO::name).toList())
+                .isEqualTo(List.of("Test 1", "Test 2"));
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void getEnvelopesAfter_shouldReturnTheRowsAfterTheCursor() throws Exception {
+        // given
+        Integer budgetId = budgetRepository.findAll().getFirst().getId();
+        List<EnvelopeCursorRow> firstPage = budgetEnvelopeRepository.getEnvelopesAfter(
+                budgetId,
+                EnvelopeSortKey.AMOUNT,
+                Sort.Direction.ASC,
+                null,
+                1
+        );
+
+        // when
+        List<EnvelopeCursorRow> secondPage = budgetEnvelopeRepository.getEnvelopesAfter(
+                budgetId,
+                EnvelopeSortKey.AMOUNT,
+                Sort.Direction.ASC,
+                firstPage.getFirst().cursor(),
+                2
+        );
+
+        // then
+        assertThat(firstPage.size()).isEqualTo(1);
+        assertThat(firstPage.getFirst().envelope().name()).isEqualTo("Test 2");
+        assertThat(firstPage.getFirst().cursor().sortValue()).isEqualTo(new BigDecimal("500.00"));
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertThat(secondPage.getFirst().envelope().name()).isEqualTo("Test 1");
+    }
+
+    @Test
+    public void findAllByBudgetIdAndIdIn_shouldOnlyReturnBudgetEnvelopesOfTheBudget()
+            throws Exception {
+        // given
+        Integer budgetId = budgetRepository.findAll().getFirst().getId();
+        List<Integer> ids = budgetEnvelopeRepository.findAll().stream()
+                .map(BudgetEnvelope::getId)
+                .toList();
+
+        // when
+        List<BudgetEnvelope> budgetEnvelopes = budgetEnvelopeRepository
+                .findAllByBudgetIdAndIdIn(budgetId, ids);
+        List<BudgetEnvelope> otherBudgetEnvelopes = budgetEnvelopeRepository
+                .findAllByBudgetIdAndIdIn(-1, ids);
+
+        // then
+        assertThat(budgetEnvelopes.size()).isEqualTo(2);
+        assertThat(otherBudgetEnvelopes.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void createAllocatedEnvelope_shouldCreateEnvelopeAndAllocateItsAmount()
+            throws Exception {
+        // given
+        Integer budgetId = budgetRepository.findAll().getFirst().getId();
+        Long version = budgetRepository.findVersionById(budgetId).get();
+
+        // when
+        EnvelopeWriteResult result = budgetEnvelopeRepository.createAllocatedEnvelope(
+                1,
+                budgetId,
+                "Test 3",
+                null,
+                new BigDecimal("10000"),
+                true
+        );
+        entityManager.clear();
+
+        // then
+        Budget budget = budgetRepository.findById(budgetId).get();
+        BudgetEnvelope budgetEnvelope = budgetEnvelopeRepository
+                .findById(result.budgetEnvelopeId())
+                .get();
+        assertThat(result.budgetId()).isEqualTo(budgetId);
+        assertThat(budgetEnvelope.getEnvelopeId()).isEqualTo(result.envelopeId());
+        assertThat(budgetEnvelope.getAmount()).isEqualTo(new BigDecimal("10000.00"));
+        assertThat(envelopeRepository.findById(result.envelopeId()).get().getName())
+                .isEqualTo("Test 3");
+        assertThat(budget.getAllocatedTotal()).isEqualTo(new BigDecimal("10000.00"));
+        assertThat(budget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_COMPLETE);
+        assertThat(budget.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    public void createAllocatedEnvelope_shouldTakeConsecutiveIdsFromThePool() throws Exception {
+        // given
+        Integer budgetId = budgetRepository.findAll().getFirst().getId();
+
+        // when
+        EnvelopeWriteResult first = budgetEnvelopeRepository.createAllocatedEnvelope(
+                1,
+                budgetId,
+                "Test 3",
+                null,
+                new BigDecimal("100"),
+                true
+        );
+        EnvelopeWriteResult second = budgetEnvelopeRepository.createAllocatedEnvelope(
+                1,
+                budgetId,
+                "Test 4",
+                null,
+                new BigDecimal("100"),
+                true
+        );
+
+        // then
+        assertThat(second.envelopeId()).isEqualTo(first.envelopeId() + 1);
+        assertThat(second.budgetEnvelopeId()).isEqualTo(first.budgetEnvelopeId() + 1);
+    }
+
+    @Test
+    public void updateAllocatedEnvelope_shouldUpdateEnvelopeAndAllocateTheChange()
+            throws Exception {
+        // given
+        BudgetEnvelope budgetEnvelope = budgetEnvelopeRepository.findAll().stream()
+                .filter(value -> value.getAmount().compareTo(new BigDecimal("1000")) == 0)
+                .findFirst()
+                .get();
+        Long version = budgetRepository.findVersionById(budgetEnvelope.getBudgetId()).get();
+
+        // when
+        Optional<EnvelopeWriteResult> result = budgetEnvelopeRepository.updateAllocatedEnvelope(
+                budgetEnvelope.getId(),
+                "Renamed",
+                "New description",
+                new BigDecimal("1200"),
+                false
+        );
+        entityManager.clear();
+
+        // then
+        Budget budget = budgetRepository.findById(budgetEnvelope.getBudgetId()).get();
+        BudgetEnvelope updatedBudgetEnvelope = budgetEnvelopeRepository
+                .findById(budgetEnvelope.getId())
+                .get();
+        assertThat(result).isEqualTo(Optional.of(new EnvelopeWriteResult(
+                budgetEnvelope.getBudgetId(),
+                budgetEnvelope.getEnvelopeId(),
+                budgetEnvelope.getId()
+        )));
+        assertThat(updatedBudgetEnvelope.getAmount()).isEqualTo(new BigDecimal("1200.00"));
+        assertThat(updatedBudgetEnvelope.getRecurring()).isFalse();
+        assertThat(envelopeRepository.findById(budgetEnvelope.getEnvelopeId()).get().getName())
+                .isEqualTo("Renamed");
+        assertThat(budget.getAllocatedTotal()).isEqualTo(new BigDecimal("200.00"));
+        assertThat(budget.getStatus()).isEqualTo(BudgetStatus.BUDGET_STATUS_INCOMPLETE);
+        assertThat(budget.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    public void updateAllocatedEnvelope_withNonExistingBudgetEnvelope_shouldReturnEmpty()
+            throws Exception {
+        // when
+        Optional<EnvelopeWriteResult> result = budgetEnvelopeRepository.updateAllocatedEnvelope(
+                -1,
+                "Renamed",
+                null,
+                new BigDecimal("1200"),
+                false
+        );
+
+        // then
+        assertThat(result.isPresent()).isFalse();
+    }
+
 }
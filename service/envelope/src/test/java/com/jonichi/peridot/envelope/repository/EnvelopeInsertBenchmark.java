@@ -0,0 +1,191 @@
+package com.jonichi.peridot.envelope.repository;
+
+import com.jonichi.peridot.common.model.SystemStatus;
+import com.jonichi.peridot.envelope.EnvelopeApp;
+import com.jonichi.peridot.envelope.model.BudgetEnvelope;
+import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
+import com.jonichi.peridot.envelope.model.Envelope;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.resource.DirectoryResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Measures how many envelopes, each with its budget envelope, can be created per second.
+ *
+ * <p>With {@code allocationSize = 1} the sequences are incremented by one and batching is
+ * disabled, which reproduces the previous behavior: every insert is preceded by a
+ * {@code nextval} round trip and sent on its own. With {@code allocationSize = 50} the ids are
+ * allocated in pools of 50 and the inserts are sent in JDBC batches of 50.</p>
+ *
+ * <p>Requires Docker. Run with {@code ./run bench service/envelope}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeInsertBenchmark {
+
+    private static final int ENVELOPES_PER_INVOCATION = 200;
+    private static final int USER_ID = 1;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private PostgreSQLContainer<?> postgresContainer;
+    private ConfigurableApplicationContext context;
+    private EnvelopeRepository envelopeRepository;
+    private BudgetEnvelopeRepository budgetEnvelopeRepository;
+    private TransactionTemplate transactionTemplate;
+    private Integer budgetId;
+    private int sequence;
+
+    /**
+     * Registers the repositories and entities of every module. It is deliberately not
+     * annotated as a configuration class so that the component scan of the tests does not
+     * pick it up.
+     */
+    @EnableJpaRepositories(basePackages = {"com.jonichi.peridot"})
+    @EntityScan(basePackages = {"com.jonichi.peridot"})
+    static class BenchmarkConfig {
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        postgresContainer = new PostgreSQLContainer<>("postgres:14-alpine")
+                .withDatabaseName("benchdb")
+                .withUsername("benchuser")
+                .withPassword("benchpass");
+        postgresContainer.start();
+
+        try (Connection connection = openConnection()) {
+            applyDatabaseMigrations(connection);
+        }
+        try (Connection connection = openConnection()) {
+            budgetId = prepareSequencesAndBudget(connection);
+        }
+
+        context = new SpringApplicationBuilder(EnvelopeApp.class, BenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(
+                        "--spring.datasource.url=" + postgresContainer.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgresContainer.getUsername(),
+                        "--spring.datasource.password=" + postgresContainer.getPassword(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + allocationSize,
+                        "--spring.jpa.properties.hibernate.id.sequence"
+                                + ".increment_size_mismatch_strategy=fix",
+                        "--logging.level.com.jonichi=WARN"
+                );
+
+        envelopeRepository = context.getBean(EnvelopeRepository.class);
+        budgetEnvelopeRepository = context.getBean(BudgetEnvelopeRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    private Connection openConnection() throws Exception {
+        return DriverManager.getConnection(
+                postgresContainer.getJdbcUrl(),
+                postgresContainer.getUsername(),
+                postgresContainer.getPassword()
+        );
+    }
+
+    private static void applyDatabaseMigrations(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(
+                        new liquibase.database.jvm.JdbcConnection(connection)
+                );
+        Liquibase liquibase = new Liquibase(
+                "changelog/changelog-root.yml",
+                new DirectoryResourceAccessor(new File("../../config/liquibase/")),
+                database
+        );
+        liquibase.update("");
+    }
+
+    private Integer prepareSequencesAndBudget(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE envelope_sequence INCREMENT BY " + allocationSize);
+            statement.execute(
+                    "ALTER SEQUENCE budget_envelope_sequence INCREMENT BY " + allocationSize
+            );
+
+            try (ResultSet resultSet = statement.executeQuery("""
+                    INSERT INTO budget (id, user_id, amount, period, status)
+                    VALUES (nextval('budget_sequence'), 1, 1000000, CURRENT_DATE,
+                            'BUDGET_STATUS_INCOMPLETE')
+                    RETURNING id
+                    """)) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgresContainer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public void createEnvelopes() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Envelope> envelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+            for (int i = 0; i < ENVELOPES_PER_INVOCATION; i++) {
+                envelopes.add(Envelope.builder()
+                        .userId(USER_ID)
+                        .name("Envelope " + sequence++)
+                        .status(SystemStatus.SYSTEM_STATUS_ACTIVE)
+                        .build());
+            }
+            envelopeRepository.saveAll(envelopes);
+
+            List<BudgetEnvelope> budgetEnvelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+            for (Envelope envelope : envelopes) {
+                budgetEnvelopes.add(BudgetEnvelope.builder()
+                        .budgetId(budgetId)
+                        .envelopeId(envelope.getId())
+                        .amount(BigDecimal.TEN)
+                        .recurring(false)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build());
+            }
+            budgetEnvelopeRepository.saveAll(budgetEnvelopes);
+        });
+    }
+}
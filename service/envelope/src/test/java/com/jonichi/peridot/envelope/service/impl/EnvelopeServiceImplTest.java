@@ -4,27 +4,43 @@ import com.jonichi.peridot.budget.model.Budget;
 import com.jonichi.peridot.budget.service.BudgetContextService;
 import com.jonichi.peridot.common.dto.UserBudgetDTO;
 import com.jonichi.peridot.common.exception.PeridotDuplicateException;
+import com.jonichi.peridot.common.exception.PeridotNotAllowedException;
 import com.jonichi.peridot.common.exception.PeridotNotFoundException;
 import com.jonichi.peridot.common.model.SystemStatus;
 import com.jonichi.peridot.common.util.TransactionalHandler;
+import com.jonichi.peridot.envelope.dto.BulkEnvelopeResultDTO;
+import com.jonichi.peridot.envelope.dto.CreateUpdateEnvelopeDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursor;
+import com.jonichi.peridot.envelope.dto.EnvelopeCursorRow;
 import com.jonichi.peridot.envelope.dto.EnvelopeDataDTO;
 import com.jonichi.peridot.envelope.dto.EnvelopeResponseDTO;
+import com.jonichi.peridot.envelope.dto.EnvelopeWriteResult;
 import com.jonichi.peridot.envelope.dto.PeridotPagination;
 import com.jonichi.peridot.envelope.model.BudgetEnvelope;
 import com.jonichi.peridot.envelope.model.BudgetEnvelopeStatus;
 import com.jonichi.peridot.envelope.model.Envelope;
+import com.jonichi.peridot.envelope.model.EnvelopeSortKey;
 import com.jonichi.peridot.envelope.repository.BudgetEnvelopeRepository;
 import com.jonichi.peridot.envelope.repository.EnvelopeRepository;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -90,12 +106,11 @@ public class EnvelopeServiceImplTest {
         );
         when(envelopeRepository.save(envelopeRequest)).thenReturn(envelope);
         when(budgetEnvelopeRepository.save(budgetEnvelopeRequest)).thenReturn(budgetEnvelope);
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<Budget> supplier = invocation.getArgument(0);
+                    Supplier<Budget> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
-        when(budgetEnvelopeRepository.getTotalExpenses(1)).thenReturn(BigDecimal.valueOf(1000));
         EnvelopeResponseDTO response = envelopeServiceImpl.createEnvelope(
                 name,
                 description,
@@ -105,10 +120,11 @@ public class EnvelopeServiceImplTest {
 
         // then
         verify(budgetContextService, times(1)).getCurrentUserBudgetId();
-        verify(transactionalHandler, times(1)).runInTransactionSupplier(any(Supplier.class));
+        verify(transactionalHandler, times(1))
+                .runInTransactionSupplier(eq("createEnvelope"), any(Supplier.class));
         verify(envelopeRepository, times(1)).save(envelopeRequest);
         verify(budgetEnvelopeRepository, times(1)).save(budgetEnvelopeRequest);
-        verify(budgetContextService, times(1)).updateBudgetStatus(1, BigDecimal.valueOf(1000));
+        verify(budgetContextService, times(1)).updateAllocatedTotal(1, amount);
         assertThat(response.envelopeId()).isEqualTo(1);
         assertThat(response.budgetEnvelopeId()).isEqualTo(1);
     }
@@ -133,9 +149,9 @@ public class EnvelopeServiceImplTest {
                                 "Detail: Key (user_id, name)=(1, Sample) already exists."
                         )
                 );
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(0);
+                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
 
@@ -166,13 +182,14 @@ public class EnvelopeServiceImplTest {
                 .build();
 
         // when
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<Budget> supplier = invocation.getArgument(0);
+                    Supplier<Budget> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
         when(budgetEnvelopeRepository.getReferenceById(budgetEnvelopeId)).thenReturn(budgetEnvelope);
-        when(budgetEnvelopeRepository.getTotalExpenses(budgetEnvelope.getBudgetId())).thenReturn(BigDecimal.valueOf(2000));
+        when(budgetEnvelopeRepository.updateBudgetEnvelope(budgetEnvelopeId, amount, true))
+                .thenReturn(Optional.of(BigDecimal.valueOf(400)));
         EnvelopeResponseDTO response = envelopeServiceImpl.updateEnvelope(
                 budgetEnvelopeId,
                 name,
@@ -182,7 +199,8 @@ public class EnvelopeServiceImplTest {
         );
 
         // then
-        verify(transactionalHandler, times(1)).runInTransactionSupplier(any(Supplier.class));
+        verify(transactionalHandler, times(1))
+                .runInTransactionSupplier(eq("updateEnvelope"), any(Supplier.class));
         verify(budgetEnvelopeRepository, times(1)).getReferenceById(budgetEnvelopeId);
         verify(envelopeRepository, times(1)).updateEnvelope(
                 1,
@@ -194,8 +212,10 @@ public class EnvelopeServiceImplTest {
                 amount,
                 true
         );
-        verify(budgetEnvelopeRepository, times(1)).getTotalExpenses(budgetEnvelope.getBudgetId());
-        verify(budgetContextService, times(1)).updateBudgetStatus(budgetEnvelope.getBudgetId(), BigDecimal.valueOf(2000));
+        verify(budgetContextService, times(1)).updateAllocatedTotal(
+                budgetEnvelope.getBudgetId(),
+                BigDecimal.valueOf(600)
+        );
         assertThat(response.envelopeId()).isEqualTo(1);
         assertThat(response.budgetEnvelopeId()).isEqualTo(1);
 
@@ -227,9 +247,9 @@ public class EnvelopeServiceImplTest {
                 new DataIntegrityViolationException(
                         "Detail: Key (user_id, name)=(1, Sample) already exists."
                 ));
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(0);
+                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
 
@@ -244,6 +264,42 @@ public class EnvelopeServiceImplTest {
                 .hasMessage("Envelope already exists");
     }
 
+    @Test
+    public void updateEnvelope_withBudgetEnvelopeNotExist_shouldThrowPeridotNotFoundException()
+            throws Exception {
+        // given
+        Integer budgetEnvelopeId = 1;
+        String name = "Sample";
+        String description = "This is sample";
+        BigDecimal amount = BigDecimal.valueOf(1000);
+        BudgetEnvelope budgetEnvelope = BudgetEnvelope.builder()
+                .id(budgetEnvelopeId)
+                .budgetId(1)
+                .envelopeId(1)
+                .build();
+
+        // when
+        when(budgetEnvelopeRepository.getReferenceById(budgetEnvelopeId)).thenReturn(budgetEnvelope);
+        when(budgetEnvelopeRepository.updateBudgetEnvelope(budgetEnvelopeId, amount, true))
+                .thenReturn(Optional.empty());
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.updateEnvelope(
+                budgetEnvelopeId,
+                name,
+                description,
+                amount,
+                true
+        )).isInstanceOf(PeridotNotFoundException.class)
+                .hasMessage("Envelope does not exist");
+        verify(budgetContextService, never()).updateAllocatedTotal(any(), any());
+    }
+
     @Test
     public void updateEnvelope_withEnvelopeNotExist_shouldThrowPeridotNotFoundException() throws Exception {
         // given
@@ -253,9 +309,9 @@ public class EnvelopeServiceImplTest {
         BigDecimal amount = BigDecimal.valueOf(1000);
 
         // when
-        when(transactionalHandler.runInTransactionSupplier(any(Supplier.class)))
+        when(transactionalHandler.runInTransactionSupplier(anyString(), any(Supplier.class)))
                 .thenAnswer(invocation -> {
-                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(0);
+                    Supplier<EnvelopeResponseDTO> supplier = invocation.getArgument(1);
                     return supplier.get();
                 });
 
@@ -270,6 +326,335 @@ public class EnvelopeServiceImplTest {
                 .hasMessage("Envelope does not exist");
     }
 
+    @Test
+    public void createEnvelope_withFusedWrites_shouldCreateEnvelopeInOneStatement()
+            throws Exception {
+        // given
+        envelopeServiceImpl.fusedWrites = true;
+        BigDecimal amount = new BigDecimal("1000");
+
+        // when
+        when(budgetContextService.getCurrentUserBudgetId()).thenReturn(
+                UserBudgetDTO.builder()
+                        .budgetId(1)
+                        .userId(2)
+                        .build()
+        );
+        when(budgetEnvelopeRepository.createAllocatedEnvelope(
+                2,
+                1,
+                "Sample",
+                null,
+                amount,
+                true
+        )).thenReturn(new EnvelopeWriteResult(1, 3, 4));
+        EnvelopeResponseDTO response = envelopeServiceImpl.createEnvelope(
+                "Sample",
+                null,
+                amount,
+                true
+        );
+
+        // then
+        verify(transactionalHandler, never())
+                .runInTransactionSupplier(anyString(), any(Supplier.class));
+        verify(envelopeRepository, never()).save(any(Envelope.class));
+        verify(budgetContextService, never()).updateAllocatedTotal(any(), any());
+        verify(budgetContextService, times(1)).invalidateBudget(1);
+        assertThat(response.envelopeId()).isEqualTo(3);
+        assertThat(response.budgetEnvelopeId()).isEqualTo(4);
+    }
+
+    @Test
+    public void updateEnvelope_withFusedWrites_shouldUpdateEnvelopeInOneStatement()
+            throws Exception {
+        // given
+        envelopeServiceImpl.fusedWrites = true;
+        BigDecimal amount = new BigDecimal("1000");
+
+        // when
+        when(budgetEnvelopeRepository.updateAllocatedEnvelope(
+                4,
+                "Sample",
+                "Description",
+                amount,
+                false
+        )).thenReturn(Optional.of(new EnvelopeWriteResult(1, 3, 4)));
+        EnvelopeResponseDTO response = envelopeServiceImpl.updateEnvelope(
+                4,
+                "Sample",
+                "Description",
+                amount,
+                false
+        );
+
+        // then
+        verify(transactionalHandler, never())
+                .runInTransactionSupplier(anyString(), any(Supplier.class));
+        verify(budgetEnvelopeRepository, never()).getReferenceById(any());
+        verify(budgetContextService, times(1)).invalidateBudget(1);
+        assertThat(response.envelopeId()).isEqualTo(3);
+        assertThat(response.budgetEnvelopeId()).isEqualTo(4);
+    }
+
+    @Test
+    public void updateEnvelope_withFusedWritesAndNoBudgetEnvelope_shouldThrowPeridotNotFoundException()
+            throws Exception {
+        // given
+        envelopeServiceImpl.fusedWrites = true;
+        BigDecimal amount = new BigDecimal("1000");
+
+        // when
+        when(budgetEnvelopeRepository.updateAllocatedEnvelope(4, "Sample", null, amount, false))
+                .thenReturn(Optional.empty());
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.updateEnvelope(
+                4,
+                "Sample",
+                null,
+                amount,
+                false
+        ))
+                .isInstanceOf(PeridotNotFoundException.class)
+                .hasMessage("Envelope does not exist");
+        verify(budgetContextService, never()).invalidateBudget(any());
+    }
+
+    private void givenCurrentBudgetAndTransaction() {
+        when(budgetContextService.getCurrentUserBudgetId()).thenReturn(
+                UserBudgetDTO.builder()
+                        .budgetId(1)
+                        .userId(1)
+                        .build()
+        );
+        when(transactionalHandler.runInTransactionWithRetry(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<List<BulkEnvelopeResultDTO>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
+    }
+
+    @Test
+    public void saveEnvelopes_shouldSaveEnvelopesAndUpdateAllocatedTotalOnce() throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("New")
+                        .amount(new BigDecimal("300"))
+                        .recurring(true)
+                        .build(),
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Renamed")
+                        .description("Updated description")
+                        .amount(new BigDecimal("1200"))
+                        .recurring(false)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+        BudgetEnvelope existingBudgetEnvelope = BudgetEnvelope.builder()
+                .id(2)
+                .budgetId(1)
+                .envelopeId(20)
+                .amount(new BigDecimal("1000"))
+                .recurring(true)
+                .build();
+        Envelope existingEnvelope = Envelope.builder()
+                .id(20)
+                .userId(1)
+                .name("Existing")
+                .build();
+
+        // when
+        givenCurrentBudgetAndTransaction();
+        when(budgetEnvelopeRepository.findAllByBudgetIdAndIdIn(1, Set.of(2)))
+                .thenReturn(List.of(existingBudgetEnvelope));
+        when(envelopeRepository.findAllById(List.of(20))).thenReturn(List.of(existingEnvelope));
+        when(envelopeRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Envelope> created = invocation.getArgument(0);
+            created.forEach(envelope -> envelope.setId(10));
+            return created;
+        });
+        when(budgetEnvelopeRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<BudgetEnvelope> created = invocation.getArgument(0);
+            created.forEach(budgetEnvelope -> budgetEnvelope.setId(11));
+            return created;
+        });
+        List<BulkEnvelopeResultDTO> results = envelopeServiceImpl.saveEnvelopes(envelopes);
+
+        // then
+        verify(transactionalHandler, times(1))
+                .runInTransactionWithRetry(eq("saveEnvelopes"), any(Supplier.class));
+        verify(budgetContextService, times(1)).updateAllocatedTotal(1, new BigDecimal("500"));
+        assertThat(results).isEqualTo(List.of(
+                BulkEnvelopeResultDTO.builder()
+                        .index(0)
+                        .created(true)
+                        .envelopeId(10)
+                        .budgetEnvelopeId(11)
+                        .build(),
+                BulkEnvelopeResultDTO.builder()
+                        .index(1)
+                        .created(false)
+                        .envelopeId(20)
+                        .budgetEnvelopeId(2)
+                        .build()
+        ));
+        assertThat(existingEnvelope.getName()).isEqualTo("Renamed");
+        assertThat(existingBudgetEnvelope.getAmount()).isEqualTo(new BigDecimal("1200"));
+        assertThat(existingBudgetEnvelope.getRecurring()).isFalse();
+    }
+
+    @Test
+    public void saveEnvelopes_withUnchangedAmounts_shouldStillUpdateBudget() throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Renamed")
+                        .amount(new BigDecimal("1000"))
+                        .recurring(true)
+                        .budgetEnvelopeId(2)
+                        .build()
+        );
+
+        // when
+        givenCurrentBudgetAndTransaction();
+        when(budgetEnvelopeRepository.findAllByBudgetIdAndIdIn(1, Set.of(2)))
+                .thenReturn(List.of(BudgetEnvelope.builder()
+                        .id(2)
+                        .envelopeId(20)
+                        .amount(new BigDecimal("1000"))
+                        .build()));
+        when(envelopeRepository.findAllById(List.of(20)))
+                .thenReturn(List.of(Envelope.builder().id(20).build()));
+        envelopeServiceImpl.saveEnvelopes(envelopes);
+
+        // then
+        verify(budgetContextService, times(1)).updateAllocatedTotal(1, BigDecimal.ZERO);
+    }
+
+    @Test
+    public void saveEnvelopes_withBudgetEnvelopeNotInBudget_shouldThrowPeridotNotFoundException()
+            throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Other")
+                        .amount(new BigDecimal("1000"))
+                        .recurring(true)
+                        .budgetEnvelopeId(99)
+                        .build()
+        );
+
+        // when
+        givenCurrentBudgetAndTransaction();
+        when(budgetEnvelopeRepository.findAllByBudgetIdAndIdIn(1, Set.of(99)))
+                .thenReturn(List.of());
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.saveEnvelopes(envelopes))
+                .isInstanceOf(PeridotNotFoundException.class)
+                .hasMessage("Envelope does not exist");
+        verify(envelopeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void saveEnvelopes_withRepeatedBudgetEnvelope_shouldThrowPeridotNotAllowedException()
+            throws Exception {
+        // given
+        CreateUpdateEnvelopeDTO envelope = CreateUpdateEnvelopeDTO.builder()
+                .name("Repeated")
+                .amount(new BigDecimal("1000"))
+                .recurring(true)
+                .budgetEnvelopeId(2)
+                .build();
+
+        // when
+        givenCurrentBudgetAndTransaction();
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.saveEnvelopes(List.of(envelope, envelope)))
+                .isInstanceOf(PeridotNotAllowedException.class)
+                .hasMessage("Envelope cannot be updated more than once");
+    }
+
+    @Test
+    public void saveEnvelopes_withDuplicateName_shouldThrowPeridotDuplicateException()
+            throws Exception {
+        // given
+        List<CreateUpdateEnvelopeDTO> envelopes = List.of(
+                CreateUpdateEnvelopeDTO.builder()
+                        .name("Sample")
+                        .amount(new BigDecimal("1000"))
+                        .recurring(true)
+                        .build()
+        );
+
+        // when
+        givenCurrentBudgetAndTransaction();
+        when(envelopeRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException(
+                "Detail: Key (user_id, name)=(1, Sample) already exists."
+        ));
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.saveEnvelopes(envelopes))
+                .isInstanceOf(PeridotDuplicateException.class)
+                .hasMessage("Envelope already exists");
+    }
+
+    @Test
+    public void getEnvelopesVersion_shouldReturnVersionOfBudget() throws Exception {
+        // given
+        Integer budgetId = 1;
+
+        // when
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Optional<Long>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
+        when(budgetContextService.getBudgetVersion(budgetId)).thenReturn(Optional.of(4L));
+        Optional<Long> version = envelopeServiceImpl.getEnvelopesVersion(budgetId);
+
+        // then
+        verify(transactionalHandler, times(1))
+                .runInReadOnlyTransactionSupplier(eq("getEnvelopesVersion"), any(Supplier.class));
+        verify(budgetContextService, times(1)).getBudgetVersion(budgetId);
+        verify(budgetEnvelopeRepository, never()).getEnvelopes(any(), any());
+        assertThat(version).isEqualTo(Optional.of(4L));
+    }
+
+    @Test
+    public void streamEnvelopes_shouldConsumeEnvelopesInReadOnlyTransaction() throws Exception {
+        // given
+        Integer budgetId = 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        List<EnvelopeDataDTO> envelopes = List.of(
+                EnvelopeDataDTO.builder().name("Sample 1").build(),
+                EnvelopeDataDTO.builder().name("Sample 2").build()
+        );
+        List<EnvelopeDataDTO> consumed = new ArrayList<>();
+
+        // when
+        doAnswer(invocation -> {
+            Runnable runnable = invocation.getArgument(1);
+            runnable.run();
+            return null;
+        }).when(transactionalHandler).runInReadOnlyTransaction(anyString(), any(Runnable.class));
+        when(budgetEnvelopeRepository.streamEnvelopes(budgetId))
+                .thenReturn(envelopes.stream().onClose(() -> closed.set(true)));
+        envelopeServiceImpl.streamEnvelopes(budgetId, consumed::add);
+
+        // then
+        verify(transactionalHandler, times(1))
+                .runInReadOnlyTransaction(eq("streamEnvelopes"), any(Runnable.class));
+        verify(transactionalHandler, never())
+                .runInTransactionSupplier(anyString(), any(Supplier.class));
+        assertThat(consumed).isEqualTo(envelopes);
+        assertThat(closed.get()).isTrue();
+    }
+
     @Test
     public void getEnvelopes_shouldReturnPeridotPaginationOfEnvelopeDataDTO() throws Exception {
         testGetEnvelopes("id", "e.id");
@@ -339,6 +724,12 @@ public class EnvelopeServiceImplTest {
                 .build();
 
         // when
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Page<EnvelopeDataDTO>> supplier = invocation.getArgument(1);
+                    return supplier.get();
+                });
         when(budgetEnvelopeRepository.getEnvelopes(budgetId, pageable)).thenReturn(pagination);
         PeridotPagination<EnvelopeDataDTO> response = envelopeServiceImpl.getEnvelopes(
                 budgetId,
@@ -349,6 +740,8 @@ public class EnvelopeServiceImplTest {
         );
 
         // then
+        verify(transactionalHandler, times(1))
+                .runInReadOnlyTransactionSupplier(eq("getEnvelopes"), any(Supplier.class));
         verify(budgetEnvelopeRepository, times(1)).getEnvelopes(budgetId, pageable);
         assertThat(response).isEqualTo(peridotPagination);
     }
@@ -374,4 +767,209 @@ public class EnvelopeServiceImplTest {
         )).isInstanceOf(PeridotNotFoundException.class)
                 .hasMessage("Sort by " + sortBy + " is not allowed");
     }
+
+    private EnvelopeCursorRow createCursorRow(String name, BigDecimal amount, Integer id) {
+        return new EnvelopeCursorRow(
+                EnvelopeDataDTO.builder()
+                        .name(name)
+                        .amount(amount)
+                        .recurring(true)
+                        .status(BudgetEnvelopeStatus.ENVELOPE_STATUS_UNDER)
+                        .build(),
+                new EnvelopeCursor(
+                        EnvelopeSortKey.AMOUNT,
+                        Sort.Direction.DESC,
+                        amount.toString(),
+                        id
+                )
+        );
+    }
+
+    @Test
+    public void getEnvelopesAfter_withoutCursor_shouldReturnFirstPageAndNextCursor()
+            throws Exception {
+        // given
+        Integer budgetId = 1;
+        List<EnvelopeCursorRow> rows = List.of(
+                createCursorRow("Sample 1", new BigDecimal("1000.00"), 3),
+                createCursorRow("Sample 2", new BigDecimal("500.00"), 1),
+                createCursorRow("Sample 3", new BigDecimal("200.00"), 2)
+        );
+
+        // when
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<PeridotPagination<EnvelopeDataDTO>> supplier =
+                            invocation.getArgument(1);
+                    return supplier.get();
+                });
+        when(budgetEnvelopeRepository.getEnvelopesAfter(
+                budgetId,
+                EnvelopeSortKey.AMOUNT,
+                Sort.Direction.DESC,
+                null,
+                3
+        )).thenReturn(rows);
+        PeridotPagination<EnvelopeDataDTO> response = envelopeServiceImpl.getEnvelopesAfter(
+                budgetId,
+                null,
+                2,
+                "amount",
+                "desc",
+                false
+        );
+
+        // then
+        verify(transactionalHandler, times(1))
+                .runInReadOnlyTransactionSupplier(eq("getEnvelopesAfter"), any(Supplier.class));
+        verify(budgetEnvelopeRepository, never()).countEnvelopes(budgetId);
+        assertThat(response.getContent()).isEqualTo(List.of(
+                rows.get(0).envelope(),
+                rows.get(1).envelope()
+        ));
+        assertThat(response.getNumberOfElements()).isEqualTo(2);
+        assertThat(response.getFirst()).isTrue();
+        assertThat(response.getLast()).isFalse();
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(response.getNextCursor()).isEqualTo(rows.get(1).cursor().encode());
+    }
+
+    @Test
+    public void getEnvelopesAfter_withCursor_shouldReturnPageAfterCursor() throws Exception {
+        // given
+        Integer budgetId = 1;
+        EnvelopeCursor cursor = createCursorRow("Sample 2", new BigDecimal("500.00"), 1).cursor();
+        List<EnvelopeCursorRow> rows = List.of(
+                createCursorRow("Sample 3", new BigDecimal("200.00"), 2)
+        );
+
+        // when
+        when(transactionalHandler
+                .runInReadOnlyTransactionSupplier(anyString(), any(Supplier.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<PeridotPagination<EnvelopeDataDTO>> supplier =
+                            invocation.getArgument(1);
+                    return supplier.get();
+                });
+        when(budgetEnvelopeRepository.getEnvelopesAfter(
+                budgetId,
+                EnvelopeSortKey.AMOUNT,
+                Sort.Direction.DESC,
+                cursor,
+                3
+        )).thenReturn(rows);
+        when(budgetEnvelopeRepository.countEnvelopes(budgetId)).thenReturn(3L);
+        PeridotPagination<EnvelopeDataDTO> response = envelopeServiceImpl.getEnvelopesAfter(
+                budgetId,
+                cursor.encode(),
+                2,
+                "amount",
+                "desc",
+                true
+        );
+
+        // then
+        assertThat(response.getContent()).isEqualTo(List.of(rows.getFirst().envelope()));
+        assertThat(response.getFirst()).isFalse();
+        assertThat(response.getLast()).isTrue();
+        assertThat(response.getTotalElements()).isEqualTo(3L);
+        assertThat(response.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void getEnvelopesAfter_withCursorOfAnotherSort_shouldThrowPeridotNotAllowedException()
+            throws Exception {
+        // given
+        String after = createCursorRow("Sample", new BigDecimal("500.00"), 1).cursor().encode();
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.getEnvelopesAfter(
+                1,
+                after,
+                2,
+                "amount",
+                "asc",
+                false
+        )).isInstanceOf(PeridotNotAllowedException.class)
+                .hasMessage("Cursor does not match the requested sort");
+    }
+
+    @Test
+    public void getEnvelopesAfter_withMalformedCursor_shouldThrowPeridotNotAllowedException()
+            throws Exception {
+        // given
+        String after = new EnvelopeCursor(
+                EnvelopeSortKey.AMOUNT,
+                Sort.Direction.DESC,
+                "not a number",
+                1
+        ).encode();
+
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.getEnvelopesAfter(
+                1,
+                after,
+                2,
+                "amount",
+                "desc",
+                false
+        )).isInstanceOf(PeridotNotAllowedException.class)
+                .hasMessage("Cursor is not valid");
+        assertThatThrownBy(() -> envelopeServiceImpl.getEnvelopesAfter(
+                1,
+                "%%%",
+                2,
+                "amount",
+                "desc",
+                false
+        )).isInstanceOf(PeridotNotAllowedException.class)
+                .hasMessage("Cursor is not valid");
+    }
+
+    @Test
+    public void getEnvelopesAfter_withSizeLessThanOne_shouldThrowPeridotNotAllowedException()
+            throws Exception {
+        // then
+        for (Integer size : List.of(0, -1)) {
+            assertThatThrownBy(() -> envelopeServiceImpl.getEnvelopesAfter(
+                    1,
+                    null,
+                    size,
+                    "amount",
+                    "desc",
+                    false
+            )).isInstanceOf(PeridotNotAllowedException.class)
+                    .hasMessage("Size must be between 1 and 100");
+        }
+        verify(budgetEnvelopeRepository, never()).getEnvelopesAfter(
+                anyInt(),
+                any(EnvelopeSortKey.class),
+                any(Sort.Direction.class),
+                any(),
+                anyInt()
+        );
+    }
+
+    @Test
+    public void getEnvelopesAfter_withSizeAboveMaximum_shouldThrowPeridotNotAllowedException()
+            throws Exception {
+        // then
+        assertThatThrownBy(() -> envelopeServiceImpl.getEnvelopesAfter(
+                1,
+                null,
+                EnvelopeServiceImpl.MAX_CURSOR_PAGE_SIZE + 1,
+                "amount",
+                "desc",
+                false
+        )).isInstanceOf(PeridotNotAllowedException.class)
+                .hasMessage("Size must be between 1 and 100");
+        verify(budgetEnvelopeRepository, never()).getEnvelopesAfter(
+                anyInt(),
+                any(EnvelopeSortKey.class),
+                any(Sort.Direction.class),
+                any(),
+                anyInt()
+        );
+    }
 }